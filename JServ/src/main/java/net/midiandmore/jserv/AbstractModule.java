@@ -175,8 +175,8 @@ public abstract class AbstractModule implements Module {
         String myNumeric = numeric + numericSuffix;
         int noticesSent = 0;
         
-        // Iterate through all connected users
-        for (var entry : st.getUsers().entrySet()) {
+        // Iterate through a snapshot, the reader thread keeps changing the table
+        for (var entry : st.getUsers().snapshot().entrySet()) {
             String userNumeric = entry.getKey();
             Users user = entry.getValue();
             
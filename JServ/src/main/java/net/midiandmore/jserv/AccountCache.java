@@ -0,0 +1,289 @@
+/*
+ * Cache for chanserv.users rows
+ */
+package net.midiandmore.jserv;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-through cache for the account fields needed on hot paths: id, flags,
+ * language, suspension and the vhost. Keys are case-folded usernames.
+ * Database fills it on a miss and updates or drops entries on its own
+ * writes. Entries expire after a while because other services write to
+ * the same tables, and unknown accounts are remembered for a shorter time
+ * so new registrations show up soon.
+ *
+ * @author Andreas Pschorn
+ */
+public final class AccountCache {
+
+    /**
+     * Columns of chanserv.users served from the cache
+     */
+    static final String COLUMNS = "id, username, flags, language, suspendby, suspendexp, suspendtime, suspendreason";
+
+    private final int capacity;
+    private final long maxAge;
+    private final long missingMaxAge;
+    private final Map<String, Account> entries;
+    private long hits;
+    private long misses;
+    private long changes;
+
+    /**
+     * @param capacity Maximum number of accounts kept
+     * @param maxAge Lifetime of an entry in milliseconds
+     * @param missingMaxAge Lifetime of an unknown account in milliseconds
+     */
+    public AccountCache(int capacity, long maxAge, long missingMaxAge) {
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.missingMaxAge = missingMaxAge;
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Account> eldest) {
+                return size() > AccountCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * One account row
+     *
+     * @param id User id
+     * @param username Username as stored
+     * @param flags Account flags
+     * @param language Language code
+     * @param suspendBy Suspender
+     * @param suspendExp End of the suspension
+     * @param suspendTime Start of the suspension
+     * @param suspendReason Suspension reason
+     * @param vhost ident@host of the vhost, null if none
+     * @param vhostLoaded true if the vhost has been looked up
+     * @param loaded Time of the load in milliseconds
+     */
+    public record Account(int id, String username, int flags, String language, String suspendBy,
+            long suspendExp, long suspendTime, String suspendReason, String vhost, boolean vhostLoaded, long loaded) {
+
+        /**
+         * @param column A column of {@link #COLUMNS}
+         * @return the value as text, like ResultSet.getString would return it
+         */
+        public String get(String column) {
+            return switch (column) {
+                case "id" -> Integer.toString(id);
+                case "username" -> username;
+                case "flags" -> Integer.toString(flags);
+                case "language" -> language;
+                case "suspendby" -> suspendBy;
+                case "suspendexp" -> Long.toString(suspendExp);
+                case "suspendtime" -> Long.toString(suspendTime);
+                case "suspendreason" -> suspendReason;
+                default -> throw new IllegalArgumentException("Not cached: " + column);
+            };
+        }
+
+        /**
+         * @param column A column of {@link #COLUMNS}
+         * @param value The new value
+         * @return a copy with the column changed
+         */
+        Account with(String column, String value) {
+            return switch (column) {
+                case "flags" -> new Account(id, username, parseInt(value), language, suspendBy, suspendExp, suspendTime, suspendReason, vhost, vhostLoaded, loaded);
+                case "language" -> new Account(id, username, flags, value, suspendBy, suspendExp, suspendTime, suspendReason, vhost, vhostLoaded, loaded);
+                case "suspendby" -> new Account(id, username, flags, language, value, suspendExp, suspendTime, suspendReason, vhost, vhostLoaded, loaded);
+                case "suspendexp" -> new Account(id, username, flags, language, suspendBy, parseLong(value), suspendTime, suspendReason, vhost, vhostLoaded, loaded);
+                case "suspendtime" -> new Account(id, username, flags, language, suspendBy, suspendExp, parseLong(value), suspendReason, vhost, vhostLoaded, loaded);
+                case "suspendreason" -> new Account(id, username, flags, language, suspendBy, suspendExp, suspendTime, value, vhost, vhostLoaded, loaded);
+                default -> null;
+            };
+        }
+
+        /**
+         * @param host ident@host, null if none
+         * @return a copy with the vhost set
+         */
+        Account withVhost(String host) {
+            return new Account(id, username, flags, language, suspendBy, suspendExp, suspendTime, suspendReason, host, true, loaded);
+        }
+
+        private static int parseInt(String value) {
+            return value == null ? 0 : Integer.parseInt(value.trim());
+        }
+
+        private static long parseLong(String value) {
+            return value == null ? 0 : Long.parseLong(value.trim());
+        }
+    }
+
+    /**
+     * @param column A column name
+     * @return true if the column is served from the cache
+     */
+    public static boolean isCached(String column) {
+        return switch (column) {
+            case "id", "username", "flags", "language", "suspendby", "suspendexp", "suspendtime", "suspendreason" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @param username The account name
+     * @return the cache key
+     */
+    static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param username The account name
+     * @return the cached account, {@link #isMissing(Account)} if it is known
+     * not to exist, or null if it has to be loaded
+     */
+    public synchronized Account get(String username) {
+        var key = key(username);
+        var account = entries.get(key);
+        if (account != null) {
+            long age = System.currentTimeMillis() - account.loaded();
+            if (age < (isMissing(account) ? missingMaxAge : maxAge)) {
+                hits++;
+                return account;
+            }
+            entries.remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * @param account A result of {@link #get(String)}
+     * @return true if the account does not exist
+     */
+    public static boolean isMissing(Account account) {
+        return account.username() == null;
+    }
+
+    /**
+     * @return a counter of the writes and invalidations, taken before a load
+     */
+    public synchronized long getChanges() {
+        return changes;
+    }
+
+    /**
+     * Stores a loaded account. A load that raced with a write or an
+     * invalidation is dropped, its row could be older than that change.
+     *
+     * @param username The name that was looked up
+     * @param account The row, null if there is none
+     * @param changesBefore {@link #getChanges()} from before the load
+     * @return true if the account was stored
+     */
+    public synchronized boolean put(String username, Account account, long changesBefore) {
+        if (changes != changesBefore) {
+            return false;
+        }
+        if (account == null) {
+            // Remembered without a username
+            account = new Account(0, null, 0, null, null, 0, 0, null, null, true, System.currentTimeMillis());
+        }
+        entries.put(key(username), account);
+        return true;
+    }
+
+    /**
+     * Applies a write of one column; a changed id or username drops the entry
+     *
+     * @param username The account name
+     * @param column The column
+     * @param value The new value
+     */
+    public synchronized void update(String username, String column, String value) {
+        changes++;
+        var key = key(username);
+        var account = entries.get(key);
+        if (account == null || isMissing(account)) {
+            return;
+        }
+        Account changed;
+        try {
+            changed = account.with(column, value);
+        } catch (NumberFormatException ex) {
+            changed = null;
+        }
+        if (changed != null) {
+            entries.put(key, changed);
+        } else if (isCached(column)) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Sets the vhost of a cached account
+     *
+     * @param username The account name
+     * @param host ident@host, null if removed
+     */
+    public synchronized void updateVhost(String username, String host) {
+        changes++;
+        var key = key(username);
+        var account = entries.get(key);
+        if (account != null && !isMissing(account)) {
+            entries.put(key, account.withVhost(host));
+        }
+    }
+
+    /**
+     * Drops one account, e.g. after it was created or deleted
+     *
+     * @param username The account name
+     */
+    public synchronized void invalidate(String username) {
+        changes++;
+        if (username != null) {
+            entries.remove(key(username));
+        }
+    }
+
+    /**
+     * Drops an account by its id, e.g. after its vhost changed elsewhere
+     *
+     * @param id The user id
+     */
+    public synchronized void invalidateId(int id) {
+        changes++;
+        entries.values().removeIf(account -> !isMissing(account) && account.id() == id);
+    }
+
+    /**
+     * Drops everything
+     */
+    public synchronized void clear() {
+        changes++;
+        entries.clear();
+    }
+
+    /**
+     * @return number of cached accounts
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return lookups answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return lookups that needed the database
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
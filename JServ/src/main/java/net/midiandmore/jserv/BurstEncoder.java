@@ -0,0 +1,108 @@
+/*
+ * Outgoing P10 BURST line encoder
+ */
+package net.midiandmore.jserv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Encodes the members of one channel into P10 B lines.
+ * Members are grouped like ircu does it (plain, +v, +o, +ov) and the status
+ * suffix is only written on the first member of a group, because the
+ * receiving server applies it to all following members of the line. Lines
+ * are split before they exceed the 512 byte protocol limit; every
+ * continuation line repeats the channel and timestamp and starts its first
+ * group with the suffix again. One encoder reuses its buffers, it is not
+ * thread-safe.
+ *
+ * @author Andreas Pschorn
+ */
+public final class BurstEncoder {
+
+    /**
+     * Longest line without the trailing CR LF
+     */
+    public static final int MAX_LINE_LENGTH = 510;
+
+    private static final String[] SUFFIXES = {"", ":v", ":o", ":ov"};
+
+    private final List<List<String>> groups = new ArrayList<>(SUFFIXES.length);
+    private final StringBuilder line = new StringBuilder(MAX_LINE_LENGTH + 2);
+    private int members;
+
+    public BurstEncoder() {
+        for (int i = 0; i < SUFFIXES.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Adds a member to the next channel
+     *
+     * @param numeric The user's numeric
+     * @param op true for +o
+     * @param voice true for +v
+     */
+    public void add(String numeric, boolean op, boolean voice) {
+        groups.get((op ? 2 : 0) | (voice ? 1 : 0)).add(numeric);
+        members++;
+    }
+
+    /**
+     * @return number of members added since the last encode
+     */
+    public int getMembers() {
+        return members;
+    }
+
+    /**
+     * Writes the B lines of a channel and forgets its members
+     *
+     * @param source Our server numeric
+     * @param channel Channel name
+     * @param timestamp Channel creation time
+     * @param modes Channel modes starting with '+', or null/empty
+     * @param out Receives every finished line
+     * @return number of lines written
+     */
+    public int encode(String source, String channel, long timestamp, String modes, Consumer<String> out) {
+        int lines = 0;
+        startLine(source, channel, timestamp);
+        if (modes != null && modes.startsWith("+")) {
+            line.append(' ').append(modes);
+        }
+        boolean first = true;
+        for (int group = 0; group < groups.size(); group++) {
+            boolean suffixWritten = false;
+            for (String numeric : groups.get(group)) {
+                String suffix = suffixWritten ? "" : SUFFIXES[group];
+                if (!first && line.length() + 1 + numeric.length() + suffix.length() > MAX_LINE_LENGTH) {
+                    out.accept(line.toString());
+                    lines++;
+                    startLine(source, channel, timestamp);
+                    first = true;
+                    suffix = SUFFIXES[group];
+                }
+                line.append(first ? ' ' : ',').append(numeric).append(suffix);
+                first = false;
+                suffixWritten = true;
+            }
+        }
+        if (!first || lines == 0) {
+            out.accept(line.toString());
+            lines++;
+        }
+        for (var group : groups) {
+            group.clear();
+        }
+        members = 0;
+        return lines;
+    }
+
+    private void startLine(String source, String channel, long timestamp) {
+        line.setLength(0);
+        line.append(source).append(" B ").append(channel).append(' ').append(timestamp);
+    }
+}
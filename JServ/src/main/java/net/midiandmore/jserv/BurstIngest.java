@@ -0,0 +1,169 @@
+/*
+ * Parallel ingestion of incoming netburst channel lines
+ */
+package net.midiandmore.jserv;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects the B lines of a netburst and builds their channels in parallel.
+ * Lines are partitioned by channel name, so all lines of one channel are
+ * handled in arrival order by the same task and no channel is touched by two
+ * tasks. The tasks only stage channels in partition-local maps; the caller
+ * commits the staged channels to the shared state on its own thread at a
+ * checkpoint, e.g. at EB or after a fixed number of lines, while nothing
+ * else changes the shared maps.
+ *
+ * @author Andreas Pschorn
+ */
+public final class BurstIngest {
+
+    private static final Logger LOG = Logger.getLogger(BurstIngest.class.getName());
+
+    /**
+     * Number of buffered lines after which a checkpoint is due
+     */
+    public static final int CHECKPOINT_LINES = 8192;
+
+    /**
+     * Builds or updates the channel of one B line
+     */
+    @FunctionalInterface
+    public interface Stager {
+
+        /**
+         * @param message The B line
+         * @param staged Channels staged by this partition so far, by lower case name
+         */
+        void stage(P10Message message, Map<String, Channel> staged);
+    }
+
+    private final Stager stager;
+    private final int parallelism;
+    private final List<List<P10Message>> partitions;
+    private ForkJoinPool pool;
+    private int pending;
+    private long checkpoints;
+
+    /**
+     * @param stager Builds the channels
+     * @param parallelism Number of partitions and worker threads
+     */
+    public BurstIngest(Stager stager, int parallelism) {
+        this.stager = stager;
+        this.parallelism = Math.max(1, parallelism);
+        this.partitions = new ArrayList<>(this.parallelism);
+        for (int i = 0; i < this.parallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Buffers a B line
+     *
+     * @param channel Lower case channel name
+     * @param message The B line
+     * @return true if a checkpoint is due
+     */
+    public boolean submit(String channel, P10Message message) {
+        partitions.get(Math.floorMod(channel.hashCode(), parallelism)).add(message);
+        return ++pending >= CHECKPOINT_LINES;
+    }
+
+    /**
+     * @return true if lines are waiting for a checkpoint
+     */
+    public boolean hasPending() {
+        return pending > 0;
+    }
+
+    /**
+     * Stages all buffered lines in parallel and waits for the result.
+     * The returned maps are in partition order and each keeps the order in
+     * which its channels were first seen, so committing them is deterministic.
+     *
+     * @return the staged channels per partition
+     */
+    public List<Map<String, Channel>> checkpoint() {
+        List<Map<String, Channel>> staged = new ArrayList<>(parallelism);
+        if (pending == 0) {
+            return staged;
+        }
+        List<Callable<Map<String, Channel>>> tasks = new ArrayList<>(parallelism);
+        for (var partition : partitions) {
+            if (partition.isEmpty()) {
+                continue;
+            }
+            var lines = List.copyOf(partition);
+            partition.clear();
+            tasks.add(() -> {
+                Map<String, Channel> channels = new LinkedHashMap<>();
+                for (var line : lines) {
+                    try {
+                        stager.stage(line, channels);
+                    } catch (RuntimeException e) {
+                        LOG.log(Level.WARNING, "Failed to apply burst line: " + line.getRaw(), e);
+                    }
+                }
+                return channels;
+            });
+        }
+        pending = 0;
+        checkpoints++;
+        for (Future<Map<String, Channel>> result : getPool().invokeAll(tasks)) {
+            try {
+                staged.add(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOG.log(Level.WARNING, "Burst partition failed", e.getCause());
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Drops buffered lines, e.g. after the uplink was lost
+     */
+    public void clear() {
+        for (var partition : partitions) {
+            partition.clear();
+        }
+        pending = 0;
+    }
+
+    /**
+     * Drops buffered lines and stops the worker threads
+     */
+    public void close() {
+        clear();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return number of checkpoints so far
+     */
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * IRC casemapping helpers
+ */
+package net.midiandmore.jserv;
+
+/**
+ * rfc1459 casemapping as used by ircu.
+ * A-Z fold to a-z and []\~ fold to {}|^, so "Nick[1]" and "nick{1}" are the
+ * same nickname on the network.
+ *
+ * @author Andreas Pschorn
+ */
+public final class CaseMapping {
+
+    private CaseMapping() {
+    }
+
+    /**
+     * @param c A character
+     * @return the rfc1459 lower case form
+     */
+    public static char toLower(char c) {
+        if (c >= 'A' && c <= '^') {
+            // A-Z plus [ \ ] ^ map 32 positions up to a-z plus { | } ~
+            return (char) (c + 32);
+        }
+        return c;
+    }
+
+    /**
+     * @param s A nickname
+     * @return the rfc1459 lower case form, the same instance if nothing changes
+     */
+    public static String toLower(String s) {
+        if (s == null) {
+            return null;
+        }
+        int len = s.length();
+        int i = 0;
+        while (i < len && toLower(s.charAt(i)) == s.charAt(i)) {
+            i++;
+        }
+        if (i == len) {
+            return s;
+        }
+        char[] out = s.toCharArray();
+        for (; i < len; i++) {
+            out[i] = toLower(out[i]);
+        }
+        return new String(out);
+    }
+
+    /**
+     * @param a First nickname
+     * @param b Second nickname
+     * @return true if both are equal under rfc1459 casemapping
+     */
+    public static boolean equals(String a, String b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        int len = a.length();
+        if (len != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (toLower(a.charAt(i)) != toLower(b.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Row change notifications from PostgreSQL
+ */
+package net.midiandmore.jserv;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+
+/**
+ * Listens for the notifications sent by the triggers of the schema
+ * migrations and passes them to the in-process caches. Other programs, like
+ * the web frontend, write the same tables, so without this the caches could
+ * only expire. The feed uses its own connection outside the pool because a
+ * LISTEN belongs to one session. Notifications sent while it is not
+ * connected are lost, so every (re)connect tells the listeners to reset.
+ *
+ * @author Andreas Pschorn
+ */
+public final class ChangeFeed implements Runnable {
+
+    /**
+     * Notification channel used by public.jserv_notify_change()
+     */
+    static final String CHANNEL = "jserv_changes";
+
+    private static final int POLL_MILLIS = 5000;
+    private static final long PING_MILLIS = 30000L;
+    private static final long MAX_BACKOFF_MILLIS = 60000L;
+
+    private final Database db;
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private final List<Listener> resetListeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Connection connection;
+
+    /**
+     * Kind of a row change
+     */
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+
+    /**
+     * One changed row
+     *
+     * @param table Schema qualified table, e.g. chanserv.users
+     * @param operation The change
+     * @param key Key column of the new row, null for DELETE
+     * @param oldKey Key column of the old row, null for INSERT
+     */
+    public record Change(String table, Operation operation, String key, String oldKey) {
+    }
+
+    /**
+     * Receives the changes of the tables it is registered for. Called on the
+     * feed thread, so it must not block for long.
+     */
+    public interface Listener {
+
+        /**
+         * @param change The changed row
+         */
+        void onChange(Change change);
+
+        /**
+         * Changes may have been missed, everything cached has to be dropped
+         * or reloaded
+         */
+        default void onReset() {
+        }
+    }
+
+    /**
+     * Starts listening
+     *
+     * @param db Opens the connection
+     */
+    public ChangeFeed(Database db) {
+        this.db = db;
+        thread = new Thread(this, "ChangeFeed");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registers a listener for the rows of a table
+     *
+     * @param table Schema qualified table
+     * @param listener The listener
+     */
+    public void addListener(String table, Listener listener) {
+        listeners.computeIfAbsent(table, k -> new CopyOnWriteArrayList<>()).add(listener);
+        if (!resetListeners.contains(listener)) {
+            resetListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void run() {
+        long backoff = 1000L;
+        while (running) {
+            try (Connection conn = db.openDirectConnection()) {
+                connection = conn;
+                try (var statement = conn.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                var pg = conn.unwrap(PGConnection.class);
+                LOG.info("Listening for database changes");
+                backoff = 1000L;
+                reset();
+                long lastActivity = System.currentTimeMillis();
+                while (running) {
+                    var notifications = pg.getNotifications(POLL_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        for (var notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                        lastActivity = System.currentTimeMillis();
+                    } else if (System.currentTimeMillis() - lastActivity >= PING_MILLIS) {
+                        // A dead peer is not noticed while only waiting
+                        try (var statement = conn.createStatement()) {
+                            statement.execute("SELECT 1");
+                        }
+                        lastActivity = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    break;
+                }
+                LOG.warning("Change feed lost its connection, retrying in " + backoff / 1000 + "s: " + ex.getMessage());
+            } catch (RuntimeException ex) {
+                LOG.log(Level.SEVERE, "Change feed failed", ex);
+            } finally {
+                connection = null;
+            }
+            if (!sleepWhileRunning(backoff + ThreadLocalRandom.current().nextLong(backoff / 4 + 1))) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private boolean sleepWhileRunning(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return running;
+    }
+
+    private void reset() {
+        for (var listener : resetListeners) {
+            try {
+                listener.onReset();
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Change feed reset failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Parses a payload of public.jserv_notify_change() and calls the listeners
+     *
+     * @param payload The JSON payload
+     */
+    void dispatch(String payload) {
+        var change = parse(payload);
+        if (change == null) {
+            return;
+        }
+        var registered = listeners.get(change.table());
+        if (registered == null) {
+            return;
+        }
+        for (var listener : registered) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Change listener failed for " + change.table(), ex);
+            }
+        }
+    }
+
+    /**
+     * @param payload The JSON payload
+     * @return the change or null if the payload is not understood
+     */
+    static Change parse(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return null;
+        }
+        try (var reader = Json.createReader(new StringReader(payload))) {
+            JsonObject obj = reader.readObject();
+            return new Change(obj.getString("table"), Operation.valueOf(obj.getString("op")),
+                    obj.getString("key", null), obj.getString("old", null));
+        } catch (RuntimeException ex) {
+            LOG.warning("Ignoring change notification: " + payload);
+            return null;
+        }
+    }
+
+    /**
+     * Stops listening
+     */
+    public void close() {
+        running = false;
+        thread.interrupt();
+        var conn = connection;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException ex) {
+                LOG.fine("Closing change feed connection: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(ChangeFeed.class.getName());
+}
@@ -5,10 +5,31 @@
 package net.midiandmore.jserv;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 public final class Channel {
 
+    /**
+     * Member is a channel operator (+o)
+     */
+    public static final int STATUS_OP = 1;
+
+    /**
+     * Member has voice (+v)
+     */
+    public static final int STATUS_VOICE = 1 << 1;
+
+    /**
+     * Member is a half operator (+h)
+     */
+    public static final int STATUS_HALFOP = 1 << 2;
+
+    /**
+     * Member is exempt from bans
+     */
+    public static final int STATUS_EXEMPT = 1 << 3;
+
     /**
      * @param moderated the moderated to set
      */
@@ -17,50 +38,59 @@ public final class Channel {
     }
 
     private final String name;
-    private String modes;
-    private boolean moderated;
-    private String topic;
-    private final List<String> users;
-    private final List<String> op = new ArrayList<>();
-    private final List<String> voice = new ArrayList<>();
-    private final Map<String, Long> lastJoin = new HashMap<>();
-    private Long createdTimestamp;
+    private volatile String modes;
+    private volatile boolean moderated;
+    private volatile String topic;
+    // Changed by the reader thread only, read by the module threads too
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private volatile Long createdTimestamp;
     private static final Logger LOG = Logger.getLogger(Channel.class.getName());
 
-    public Channel(String name, String modes, String[] users) {
+    public Channel(String name, String modes) {
         this.name = name;
         this.modes = modes;
         this.moderated = modes.contains("m");
-        this.users = new ArrayList<>();
+    }
+
+    public Channel(String name, String modes, String[] users) {
+        this(name, modes);
+        long now = System.currentTimeMillis() / 1000;
         for (String nick : users) {
-            boolean voice = false, op = false;
+            int status = 0;
             String cleanNick = nick;
             if (nick.contains(":")) {
                 String[] elem = nick.split(":", 2);
                 cleanNick = elem[0];
-                for (char status : elem[1].toCharArray()) {
-                    switch (status) {
-                        case 'o': op = true; break;
-                        case 'v': voice = true; break;
-                    }
-                }
+                status = parseStatus(elem[1]);
             }
-            // Store the clean nickname (without mode suffixes) in the users list
-            this.users.add(cleanNick);
-            if (op) this.op.add(cleanNick);
-            if (voice) this.voice.add(cleanNick);
-            this.lastJoin.put(cleanNick, System.currentTimeMillis() / 1000);
+            // Store the clean nickname (without mode suffixes) as the member key
+            mergeUser(cleanNick, status, now);
         }
     }
 
+    /**
+     * Parses burst status flags like "ov"
+     *
+     * @param flags The flags after the ':'
+     * @return the status bits
+     */
+    public static int parseStatus(String flags) {
+        int status = 0;
+        for (int i = 0; i < flags.length(); i++) {
+            switch (flags.charAt(i)) {
+                case 'o': status |= STATUS_OP; break;
+                case 'v': status |= STATUS_VOICE; break;
+                case 'h': status |= STATUS_HALFOP; break;
+            }
+        }
+        return status;
+    }
+
     public String getName() { return name; }
     public String getModes() { return modes; }
     public boolean isModerated() { return moderated; }
     public String getTopic() { return topic; }
-    public List<String> getUsers() { return Collections.unmodifiableList(users); }
-    public List<String> getOp() { return Collections.unmodifiableList(op); }
-    public List<String> getVoice() { return Collections.unmodifiableList(voice); }
-    public Map<String, Long> getLastJoin() { return lastJoin; }
+    public Set<String> getUsers() { return Collections.unmodifiableSet(members.keySet()); }
     public Long getCreatedTimestamp() { return createdTimestamp; }
     public void setCreatedTimestamp(Long timestamp) { this.createdTimestamp = timestamp; }
 
@@ -78,12 +108,109 @@ public final class Channel {
         this.topic = topic;
     }
 
-    public void addUser(String user) { users.add(user); }
-    public void removeUser(String user) { users.remove(user); }
+    /**
+     * @param user The user's numeric
+     * @return true if the user is in the channel
+     */
+    public boolean hasUser(String user) { return members.containsKey(user); }
+
+    /**
+     * @return number of members
+     */
+    public int getUserCount() { return members.size(); }
+
+    public void addUser(String user) { members.putIfAbsent(user, new Member(0, 0)); }
+    public void removeUser(String user) { members.remove(user); }
+
+    /**
+     * Adds a member or adds status bits to an existing one
+     * An existing member keeps its join time.
+     *
+     * @param user The user's numeric
+     * @param status Status bits to add
+     * @param joinTime Join time in seconds, 0 if unknown
+     */
+    public void mergeUser(String user, int status, long joinTime) {
+        members.compute(user, (key, member) -> {
+            if (member == null) {
+                return new Member(status, joinTime);
+            }
+            member.status |= status;
+            return member;
+        });
+    }
+
+    /**
+     * @param user The user's numeric
+     * @return the status bits, 0 if the user is not in the channel
+     */
+    public int getStatus(String user) {
+        Member member = members.get(user);
+        return member != null ? member.status : 0;
+    }
+
+    /**
+     * @param user The user's numeric
+     * @param status Status bits to test
+     * @return true if the member has all of the bits
+     */
+    public boolean hasStatus(String user, int status) {
+        return (getStatus(user) & status) == status;
+    }
+
+    /**
+     * Sets or clears status bits of a member; ignored for non-members
+     *
+     * @param user The user's numeric
+     * @param status Status bits
+     * @param set true to set, false to clear
+     */
+    public void setStatus(String user, int status, boolean set) {
+        Member member = members.get(user);
+        if (member != null) {
+            member.status = set ? member.status | status : member.status & ~status;
+        }
+    }
+
+    public boolean isOp(String user) { return hasStatus(user, STATUS_OP); }
+    public void addOp(String user) { setStatus(user, STATUS_OP, true); }
+    public void removeOp(String user) { setStatus(user, STATUS_OP, false); }
 
-    public void addOp(String user) { op.add(user); }
-    public void removeOp(String user) { op.remove(user); }
+    public boolean hasVoice(String user) { return hasStatus(user, STATUS_VOICE); }
+    public void addVoice(String user) { setStatus(user, STATUS_VOICE, true); }
+    public void removeVoice(String user) { setStatus(user, STATUS_VOICE, false); }
 
-    public void addVoice(String user) { voice.add(user); }
-    public void removeVoice(String user) { voice.remove(user); }
+    /**
+     * @param user The user's numeric
+     * @return the join time in seconds, 0 if unknown
+     */
+    public long getJoinTime(String user) {
+        Member member = members.get(user);
+        return member != null ? member.joinTime : 0;
+    }
+
+    /**
+     * @param user The user's numeric
+     * @param joinTime Join time in seconds
+     */
+    public void setJoinTime(String user, long joinTime) {
+        Member member = members.get(user);
+        if (member != null) {
+            member.joinTime = joinTime;
+        }
+    }
+
+    /**
+     * Per-member state, kept primitive so big channels stay compact
+     */
+    private static final class Member {
+
+        private volatile int status;
+        private volatile long joinTime;
+
+        private Member(int status, long joinTime) {
+            this.status = status;
+            this.joinTime = joinTime;
+        }
+    }
 }
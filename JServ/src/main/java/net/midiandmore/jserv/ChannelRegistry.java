@@ -0,0 +1,221 @@
+/*
+ * Registered channels kept in memory
+ */
+package net.midiandmore.jserv;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The rows of chanserv.channels needed while handling joins and bursts.
+ * Database loads all of them at startup and keeps them current on its own
+ * writes, so a join never waits for a query. Unlike the account cache a
+ * missing entry is an answer: a loaded registry knows every registered
+ * channel. Other services may write the table too, so it is reloaded in the
+ * background from time to time.
+ *
+ * @author Andreas Pschorn
+ */
+public final class ChannelRegistry {
+
+    private volatile Map<String, Registration> channels = new ConcurrentHashMap<>();
+    // Same registrations by id, changed together with channels
+    private volatile Map<Long, Registration> byId = new ConcurrentHashMap<>();
+    private volatile long loaded;
+    private long changes;
+
+    /**
+     * One registered channel
+     *
+     * @param id Channel id
+     * @param name Name as stored
+     * @param created Registration time in seconds
+     * @param flags Channel flags
+     * @param forcemodes Forced modes
+     * @param chanlimit Channel limit
+     * @param suspendBy Suspender, 0 if not suspended
+     * @param suspendTime Start of the suspension
+     * @param suspendReason Suspension reason
+     */
+    public record Registration(long id, String name, long created, int flags, int forcemodes, int chanlimit,
+            long suspendBy, long suspendTime, String suspendReason) {
+
+        /**
+         * @return true if the channel is suspended
+         */
+        public boolean isSuspended() {
+            return suspendBy != 0;
+        }
+
+        /**
+         * @param column A column of {@link #COLUMNS}
+         * @return the value as text, like ResultSet.getString would return it
+         */
+        public String get(String column) {
+            return switch (column) {
+                case "id" -> Long.toString(id);
+                case "name" -> name;
+                case "created" -> Long.toString(created);
+                case "flags" -> Integer.toString(flags);
+                case "forcemodes" -> Integer.toString(forcemodes);
+                case "chanlimit" -> Integer.toString(chanlimit);
+                case "suspendby" -> Long.toString(suspendBy);
+                case "suspendtime" -> Long.toString(suspendTime);
+                case "suspendreason" -> suspendReason;
+                default -> throw new IllegalArgumentException("Not kept: " + column);
+            };
+        }
+
+        Registration withSuspension(long by, long time, String reason) {
+            return new Registration(id, name, created, flags, forcemodes, chanlimit, by, time, reason);
+        }
+    }
+
+    /**
+     * Columns of chanserv.channels kept in the registry
+     */
+    static final String COLUMNS = "id, name, created, flags, forcemodes, chanlimit, suspendby, suspendtime, suspendreason";
+
+    /**
+     * @param column A column name
+     * @return true if the column is served from the registry
+     */
+    public static boolean isKept(String column) {
+        return switch (column) {
+            case "id", "name", "created", "flags", "forcemodes", "chanlimit", "suspendby", "suspendtime", "suspendreason" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @param name The channel name
+     * @return the registry key
+     */
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return a counter of the changes, taken before a full load
+     */
+    public synchronized long getChanges() {
+        return changes;
+    }
+
+    /**
+     * Replaces the whole content after a full load. A load that raced with a
+     * change is dropped, it could be missing that change.
+     *
+     * @param registrations All rows of chanserv.channels
+     * @param changesBefore {@link #getChanges()} from before the load
+     * @return true if the content was replaced
+     */
+    public synchronized boolean replace(Collection<Registration> registrations, long changesBefore) {
+        if (changes != changesBefore) {
+            return false;
+        }
+        var fresh = new ConcurrentHashMap<String, Registration>(registrations.size() * 4 / 3 + 1);
+        var freshById = new ConcurrentHashMap<Long, Registration>(registrations.size() * 4 / 3 + 1);
+        for (var registration : registrations) {
+            fresh.put(key(registration.name()), registration);
+            freshById.put(registration.id(), registration);
+        }
+        byId = freshById;
+        channels = fresh;
+        loaded = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * @return true after the first full load
+     */
+    public boolean isLoaded() {
+        return loaded != 0;
+    }
+
+    /**
+     * @return time of the last full load in milliseconds, 0 if never loaded
+     */
+    public long getLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param name The channel name
+     * @return the registration or null if the channel is not registered
+     */
+    public Registration get(String name) {
+        return channels.get(key(name));
+    }
+
+    /**
+     * @param id The channel id
+     * @return the registration or null
+     */
+    public Registration get(long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @param registration A new or changed channel
+     */
+    public synchronized void put(Registration registration) {
+        changes++;
+        var previous = byId.put(registration.id(), registration);
+        if (previous != null && !key(previous.name()).equals(key(registration.name()))) {
+            // Renamed
+            channels.remove(key(previous.name()), previous);
+        }
+        var displaced = channels.put(key(registration.name()), registration);
+        if (displaced != null && displaced.id() != registration.id()) {
+            // Dropped and registered again under a new id
+            byId.remove(displaced.id(), displaced);
+        }
+    }
+
+    /**
+     * @param id The dropped channel id
+     */
+    public synchronized void remove(long id) {
+        changes++;
+        var registration = byId.remove(id);
+        if (registration != null) {
+            channels.remove(key(registration.name()), registration);
+        }
+    }
+
+    /**
+     * Sets or clears the suspension of a channel
+     *
+     * @param id The channel id
+     * @param by Suspender, 0 to unsuspend
+     * @param time Start of the suspension
+     * @param reason Suspension reason
+     */
+    public synchronized void suspend(long id, long by, long time, String reason) {
+        changes++;
+        var registration = byId.get(id);
+        if (registration != null) {
+            var suspended = registration.withSuspension(by, time, reason);
+            byId.put(id, suspended);
+            channels.replace(key(registration.name()), registration, suspended);
+        }
+    }
+
+    /**
+     * @return number of registered channels
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * @return a copy by lower case name
+     */
+    public Map<String, Registration> snapshot() {
+        return new HashMap<>(channels);
+    }
+}
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Logger;
 
 
@@ -116,6 +117,8 @@ public final class Config {
     private Properties operFile;
     private Properties helpServFile;
     private Properties statsServFile;
+    private volatile Settings settings;
+    private ConfigWatcher watcher;
          
     /**
      * Initiales the class
@@ -167,11 +170,73 @@ public final class Config {
      * Loads the config files in the Properties
      */
     private void loadConfig() {
-        setConfigFile(loadDataFromJSONasProperties("config.json", "name", "value"));
-        setHostFile(loadDataFromJSONasProperties("config-hostserv.json", "name", "value"));   
-        setSpamFile(loadDataFromJSONasProperties("config-spamscan.json", "name", "value"));   
-        setNickFile(loadDataFromJSONasProperties("config-nickserv.json", "name", "value"));   
-        setBadwordFile(loadDataFromJSONasProperties("badwords-spamscan.json", "name", "value")); 
+        // Everything is read first, so a broken file leaves the old values in place
+        var config = loadDataFromJSONasProperties("config.json", "name", "value");
+        var host = loadDataFromJSONasProperties("config-hostserv.json", "name", "value");
+        var spam = loadDataFromJSONasProperties("config-spamscan.json", "name", "value");
+        var nick = loadDataFromJSONasProperties("config-nickserv.json", "name", "value");
+        var badwords = loadDataFromJSONasProperties("badwords-spamscan.json", "name", "value");
+        var loaded = Settings.of(config, spam, badwords);
+        setConfigFile(config);
+        setHostFile(host);
+        setSpamFile(spam);
+        setNickFile(nick);
+        setBadwordFile(badwords);
+        settings = loaded;
+    }
+
+    /**
+     * Reloads the config files and swaps the settings snapshot.
+     * Connection values like host, port and numeric only take effect on the
+     * next connect.
+     */
+    public synchronized void reload() {
+        try {
+            loadConfig();
+            LOG.info("Configuration reloaded");
+        } catch (RuntimeException ex) {
+            LOG.warning("Configuration not reloaded: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the settings snapshot from the Properties in memory, after a
+     * command changed them
+     */
+    public synchronized void refreshSettings() {
+        settings = Settings.of(getConfigFile(), getSpamFile(), getBadwordFile());
+    }
+
+    /**
+     * Reloads the config files whenever one of them changes
+     */
+    public synchronized void startWatcher() {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watcher = new ConfigWatcher(this, Set.of("config.json", "config-hostserv.json",
+                    "config-spamscan.json", "config-nickserv.json", "badwords-spamscan.json"));
+        } catch (IOException ex) {
+            LOG.warning("Config files are not watched: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Stops reloading on changes
+     */
+    public synchronized void stopWatcher() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * @return the typed settings of the last load
+     */
+    public Settings getSettings() {
+        return settings;
     }
 
     /**
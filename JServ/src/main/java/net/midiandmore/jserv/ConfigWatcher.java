@@ -0,0 +1,98 @@
+/*
+ * Reloads the configuration when its files change
+ */
+package net.midiandmore.jserv;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the working directory for changes to the configuration files and
+ * lets Config reload them. Editors often write a file in several steps, so
+ * events are collected for a short quiet period before reloading.
+ *
+ * @author Andreas Pschorn
+ */
+public final class ConfigWatcher implements Runnable {
+
+    private static final long QUIET_PERIOD = 500L;
+
+    private final Config config;
+    private final Set<String> files;
+    private final WatchService watcher;
+    private final Thread thread;
+
+    /**
+     * Starts watching
+     *
+     * @param config The config to reload
+     * @param files Names of the watched files in the working directory
+     * @throws IOException if the directory can not be watched
+     */
+    public ConfigWatcher(Config config, Set<String> files) throws IOException {
+        this.config = config;
+        this.files = files;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        Path.of("").toAbsolutePath().register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this, "ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                var key = watcher.take();
+                boolean changed = collect(key);
+                // Wait until the writes have settled
+                while ((key = watcher.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= collect(key);
+                }
+                if (changed) {
+                    config.reload();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Stopped
+        } catch (RuntimeException ex) {
+            LOG.log(Level.SEVERE, "Config watcher stopped", ex);
+        }
+    }
+
+    private boolean collect(WatchKey key) {
+        boolean changed = false;
+        for (var event : key.pollEvents()) {
+            if (event.context() instanceof Path path && files.contains(path.getFileName().toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching
+     */
+    public void close() {
+        try {
+            watcher.close();
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Failed to close config watcher", ex);
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(ConfigWatcher.class.getName());
+}
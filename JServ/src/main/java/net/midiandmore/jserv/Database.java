@@ -11,8 +11,10 @@ import java.security.NoSuchAlgorithmException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Random;
@@ -24,22 +26,6 @@ import java.util.logging.Logger;
  */
 public final class Database {
 
-    private static final String RECONNECT_MSG = "Database access error, trying reconnect: ";
-
-    /**
-     * Checks if the connection is valid and tries to reconnect if necessary.
-     */
-    private void ensureConnection() {
-        try {
-            if (dataSource == null || dataSource.isClosed()) {
-                initializeConnectionPool();
-            }
-        } catch (Exception e) {
-            LOG.warning("Connection pool check failed: " + e.getMessage());
-            initializeConnectionPool();
-        }
-    }
-
     /**
      * Initializes the HikariCP connection pool
      */
@@ -81,6 +67,80 @@ public final class Database {
         }
     }
 
+    /**
+     * Opens a connection outside the pool, for sessions that have to stay
+     * the same like a LISTEN
+     *
+     * @return a new connection, the caller closes it
+     * @throws SQLException if it can not be opened
+     */
+    Connection openDirectConnection() throws SQLException {
+        var config = getMi().getConfig().getConfigFile();
+        var props = new Properties();
+        props.setProperty("user", (String) config.get("dbuser"));
+        props.setProperty("password", (String) config.get("dbpassword"));
+        if (config.get("dbssl") != null) {
+            props.setProperty("ssl", config.get("dbssl").toString());
+        }
+        props.setProperty("ApplicationName", "JServ-ChangeFeed");
+        return DriverManager.getConnection("jdbc:postgresql://%s/%s".formatted(config.get("dbhost"), config.get("db")), props);
+    }
+
+    /**
+     * Starts listening for changes made by other programs, unless
+     * changefeed is false in the config
+     */
+    public void startChangeFeed() {
+        var enabled = getMi().getConfig().getConfigFile().getProperty("changefeed", "true").trim();
+        if (!"true".equalsIgnoreCase(enabled) || changeFeed != null) {
+            return;
+        }
+        changeFeed = new ChangeFeed(this);
+        changeFeed.addListener(USER_TABLE, new ChangeFeed.Listener() {
+            @Override
+            public void onChange(ChangeFeed.Change change) {
+                accountCache.invalidate(change.key());
+                accountCache.invalidate(change.oldKey());
+            }
+
+            @Override
+            public void onReset() {
+                accountCache.clear();
+            }
+        });
+        changeFeed.addListener("hostserv.hosts", change -> {
+            // Keyed by uid, the vhost is part of the account entry
+            for (var uid : new String[] {change.key(), change.oldKey()}) {
+                if (uid != null) {
+                    accountCache.invalidateId(Integer.parseInt(uid));
+                }
+            }
+        });
+        changeFeed.addListener(CHANNEL_TABLE, new ChangeFeed.Listener() {
+            @Override
+            public void onChange(ChangeFeed.Change change) {
+                if (change.oldKey() != null && !change.oldKey().equals(change.key())) {
+                    channelRegistry.remove(Long.parseLong(change.oldKey()));
+                }
+                if (change.key() != null) {
+                    loadChannel(Long.parseLong(change.key()));
+                }
+            }
+
+            @Override
+            public void onReset() {
+                loadChannelRegistry();
+            }
+        });
+    }
+
+    /**
+     * @return the change feed or null if it is not running
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
     /**
      * Gets a connection from the pool
      * @return Database connection
@@ -97,6 +157,11 @@ public final class Database {
      * Closes the connection pool
      */
     public void shutdown() {
+        queries.logStats(10);
+        if (changeFeed != null) {
+            changeFeed.close();
+            changeFeed = null;
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             LOG.info("Connection pool closed");
@@ -115,31 +180,470 @@ public final class Database {
 
     private JServ mi;
     private HikariDataSource dataSource;
+    private final AccountCache accountCache;
+    private final ChannelRegistry channelRegistry = new ChannelRegistry();
+    private ChangeFeed changeFeed;
+    private final QueryExecutor queries = new QueryExecutor(this);
 
     protected Database(JServ mi) {
         setMi(mi);
+        int cacheSize = 10000;
+        try {
+            cacheSize = Integer.parseInt(mi.getConfig().getConfigFile().getProperty("accountcachesize", "10000").trim());
+        } catch (NumberFormatException ex) {
+            LOG.warning("Invalid accountcachesize, using " + cacheSize);
+        }
+        // Other services write chanserv.users too, so entries do not live forever
+        accountCache = new AccountCache(cacheSize, 300000L, 30000L);
         initializeConnectionPool();
         initializeAllSchemas();
+        loadChannelRegistry();
+    }
+
+    /**
+     * @return the query executor
+     */
+    public QueryExecutor getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return the registered channels
+     */
+    public ChannelRegistry getChannelRegistry() {
+        return channelRegistry;
+    }
+
+    /**
+     * Reloads the registered channels if the last load is older than maxAge,
+     * picks up changes made by other services
+     *
+     * @param maxAge Age in milliseconds
+     */
+    public void refreshChannelRegistry(long maxAge) {
+        if (System.currentTimeMillis() - channelRegistry.getLoaded() >= maxAge) {
+            loadChannelRegistry();
+        }
+    }
+
+    /**
+     * Reads all of chanserv.channels into the registry. If it fails, a
+     * registry that was never loaded keeps getChannel on the database.
+     */
+    public void loadChannelRegistry() {
+        long changes = channelRegistry.getChanges();
+        try {
+            var list = queries.query("SELECT " + ChannelRegistry.COLUMNS + " FROM " + CHANNEL_TABLE,
+                    QueryExecutor.Binder.NONE, Database::readRegistration);
+            if (channelRegistry.replace(list, changes)) {
+                LOG.fine("Loaded " + list.size() + " registered channels");
+            }
+        } catch (SQLException ex) {
+            LOG.warning("Failed to load registered channels: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Reloads one channel of the registry
+     *
+     * @param id The channel id
+     */
+    private void loadChannel(long id) {
+        try {
+            var registration = queries.queryFirst("SELECT " + ChannelRegistry.COLUMNS + " FROM " + CHANNEL_TABLE + " WHERE id = ?",
+                    statement -> statement.setLong(1, id), Database::readRegistration);
+            if (registration != null) {
+                channelRegistry.put(registration);
+            } else {
+                channelRegistry.remove(id);
+            }
+        } catch (SQLException ex) {
+            LOG.warning("Failed to load channel " + id + ": " + ex.getMessage());
+        }
+    }
+
+    private static ChannelRegistry.Registration readRegistration(ResultSet resultset) throws SQLException {
+        return new ChannelRegistry.Registration(
+                resultset.getLong("id"),
+                resultset.getString("name"),
+                resultset.getLong("created"),
+                resultset.getInt("flags"),
+                resultset.getInt("forcemodes"),
+                resultset.getInt("chanlimit"),
+                resultset.getLong("suspendby"),
+                resultset.getLong("suspendtime"),
+                resultset.getString("suspendreason"));
+    }
+
+    private static AccountCache.Account readAccount(ResultSet resultset) throws SQLException {
+        return new AccountCache.Account(
+                resultset.getInt("id"),
+                resultset.getString("username"),
+                resultset.getInt("flags"),
+                resultset.getString("language"),
+                resultset.getString("suspendby"),
+                resultset.getLong("suspendexp"),
+                resultset.getLong("suspendtime"),
+                resultset.getString("suspendreason"),
+                null, false, System.currentTimeMillis());
+    }
+
+    private static ChanAccess readChanAccess(ResultSet resultset) throws SQLException {
+        return new ChanAccess(
+                resultset.getString("channel"),
+                resultset.getString("username"),
+                resultset.getInt("flags"));
+    }
+
+    private static Gline readGline(ResultSet resultset) throws SQLException {
+        return new Gline(
+                resultset.getString("mask"),
+                resultset.getString("reason"),
+                resultset.getString("setby"),
+                resultset.getLong("created"),
+                resultset.getLong("expires"));
+    }
+
+    /**
+     * A row of chanserv.chanusers
+     *
+     * @param flags Channel flags of the user
+     * @param changeTime Last change of the flags
+     * @param useTime Last use
+     * @param info Info line
+     */
+    public record ChanUser(int flags, long changeTime, long useTime, String info) {
+    }
+
+    /**
+     * Access of an account on a channel
+     *
+     * @param channel Channel name, lower case
+     * @param username Account name
+     * @param flags Channel flags of the account
+     */
+    public record ChanAccess(String channel, String username, int flags) {
+    }
+
+    /**
+     * A row of operserv.glines
+     *
+     * @param mask ident@host mask
+     * @param reason Ban reason
+     * @param setBy Oper account who set it
+     * @param created Creation time in seconds
+     * @param expires Expiry time in seconds, 0 if permanent
+     */
+    public record Gline(String mask, String reason, String setBy, long created, long expires) {
+    }
+
+    /**
+     * An active row of chanserv.bans
+     *
+     * @param banId Ban id
+     * @param hostmask Ban mask
+     * @param expiry Expiry time in seconds, 0 if permanent
+     * @param reason Ban reason
+     * @param setBy Account that set the ban, null if it is gone
+     */
+    public record ChannelBan(long banId, String hostmask, long expiry, String reason, String setBy) {
+    }
+
+    /**
+     * @return the account cache
+     */
+    public AccountCache getAccountCache() {
+        return accountCache;
+    }
+
+    /**
+     * Account row from the cache, loaded from chanserv.users on a miss
+     *
+     * @param nick The account name
+     * @return the account or null if it does not exist
+     */
+    public AccountCache.Account getAccount(String nick) {
+        if (nick == null || nick.isBlank()) {
+            return null;
+        }
+        var account = accountCache.get(nick);
+        if (account == null) {
+            var loaded = loadAccounts(java.util.List.of(nick));
+            account = loaded != null ? loaded.get(AccountCache.key(nick)) : null;
+            return account;
+        }
+        return AccountCache.isMissing(account) ? null : account;
+    }
+
+    /**
+     * Loads accounts that are not cached yet with one query, e.g. for all
+     * users of a netburst
+     *
+     * @param nicks Account names
+     */
+    public void preloadAccounts(Collection<String> nicks) {
+        var missing = new HashSet<String>();
+        for (var nick : nicks) {
+            if (nick != null && !nick.isBlank() && accountCache.get(nick) == null) {
+                missing.add(nick);
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadAccounts(missing);
+        }
+    }
+
+    /**
+     * Reads accounts and stores them in the cache, names without a row are
+     * remembered as missing
+     *
+     * @param nicks Account names
+     * @return the found accounts by cache key, null on a database error
+     */
+    private HashMap<String, AccountCache.Account> loadAccounts(Collection<String> nicks) {
+        var keys = new HashSet<String>();
+        for (var nick : nicks) {
+            keys.add(AccountCache.key(nick));
+        }
+        // A write landing between the query and the put must not be overwritten by the older row
+        long changesBefore = accountCache.getChanges();
+        try {
+            var rows = queries.query("SELECT " + AccountCache.COLUMNS + " FROM " + USER_TABLE + " WHERE LOWER(username) = ANY(?)",
+                    statement -> statement.setArray(1, statement.getConnection().createArrayOf("text", keys.toArray())),
+                    Database::readAccount);
+            var result = new HashMap<String, AccountCache.Account>();
+            for (var account : rows) {
+                result.put(AccountCache.key(account.username()), account);
+            }
+            for (var key : keys) {
+                accountCache.put(key, result.get(key), changesBefore);
+            }
+            return result;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to load accounts: " + ex.getMessage());
+            return null;
+        }
     }
     
     /**
      * Initializes all database schemas
      */
     private void initializeAllSchemas() {
-        try (Connection conn = getConnection()) {
-            initializeA4StatsSchema(conn);
-            initializeChanServSchema(conn);
-            initializeCommunityForumSchema(conn);
-            initializeFakeUsersSchema(conn);
-            initializeHostServSchema(conn);
-            initializeNickServSchema(conn);
-            initializeNoperServSchema(conn);
-            initializeSpamScanSchema(conn);
-            initializePublicSchema(conn);
-            LOG.info("All database schemas initialized successfully");
+        try {
+            queries.execute("initializeAllSchemas", conn -> {
+                initializeA4StatsSchema(conn);
+                initializeChanServSchema(conn);
+                initializeCommunityForumSchema(conn);
+                initializeFakeUsersSchema(conn);
+                initializeHostServSchema(conn);
+                initializeNickServSchema(conn);
+                initializeNoperServSchema(conn);
+                initializeSpamScanSchema(conn);
+                initializePublicSchema(conn);
+                LOG.info("All database schemas initialized successfully");
+                applyMigrations(conn);
+                return null;
+            });
         } catch (SQLException ex) {
             LOG.severe("Failed to initialize database schemas: " + ex.getMessage());
-            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * A numbered schema change, applied once
+     */
+    private record Migration(int version, String description, String... statements) {
+    }
+
+    /**
+     * Schema changes on top of the created schemas, in version order.
+     * Never edit an entry that has been released, add a new one instead.
+     */
+    private static final Migration[] MIGRATIONS = {
+        new Migration(1, "Case-insensitive lookup indexes",
+            indexIfTableExists("chanserv.users", "users_username_lower_index", "LOWER(username)"),
+            indexIfTableExists("chanserv.users", "users_email_lower_index", "LOWER(email)"),
+            indexIfTableExists("chanserv.channels", "channels_name_lower_index", "LOWER(name)"),
+            indexIfTableExists("nickserv.reserved_nicks", "reserved_nicks_nickname_lower_index", "LOWER(nickname)"),
+            indexIfTableExists("nickserv.reserved_nicks", "reserved_nicks_account_lower_index", "LOWER(account)"),
+            indexIfTableExists("hostserv.hosts", "hosts_uid_index", "uid"),
+            indexIfTableExists("spamscan.channels", "spamscan_channels_channel_lower_index", "LOWER(channel)"),
+            indexIfTableExists("spamscan.lax_channels", "spamscan_lax_channels_channel_lower_index", "LOWER(channel)")),
+        new Migration(2, "Change notifications for cached tables",
+            """
+            CREATE OR REPLACE FUNCTION public.jserv_notify_change() RETURNS trigger AS $$
+            DECLARE
+                new_key text;
+                old_key text;
+            BEGIN
+                IF TG_OP <> 'DELETE' THEN
+                    new_key := to_jsonb(NEW) ->> TG_ARGV[0];
+                END IF;
+                IF TG_OP <> 'INSERT' THEN
+                    old_key := to_jsonb(OLD) ->> TG_ARGV[0];
+                END IF;
+                PERFORM pg_notify('%s', json_build_object(
+                    'table', TG_TABLE_SCHEMA || '.' || TG_TABLE_NAME,
+                    'op', TG_OP, 'key', new_key, 'old', old_key)::text);
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """.formatted(ChangeFeed.CHANNEL),
+            notifyIfTableExists("chanserv.users", "username"),
+            notifyIfTableExists("chanserv.channels", "id"),
+            notifyIfTableExists("chanserv.chanusers", "channelid"),
+            notifyIfTableExists("hostserv.hosts", "uid")),
+        new Migration(3, "Notify only changes of cached columns",
+            // Nothing caches channel access yet
+            ifTableExists("chanserv.chanusers", "DROP TRIGGER IF EXISTS jserv_notify_change ON chanserv.chanusers"),
+            notifyIfTableExists("chanserv.users", "username", AccountCache.COLUMNS),
+            notifyIfTableExists("chanserv.channels", "id", ChannelRegistry.COLUMNS))
+    };
+
+    /**
+     * The current indexes and triggers of the tables the migrations touch.
+     * The migrations skip tables that do not exist yet, so the places that
+     * create these tables later run them too.
+     */
+    private static final Map<String, String[]> TABLE_OBJECTS = Map.of(
+        "chanserv.users", new String[] {
+            indexIfTableExists("chanserv.users", "users_username_lower_index", "LOWER(username)"),
+            indexIfTableExists("chanserv.users", "users_email_lower_index", "LOWER(email)"),
+            notifyIfTableExists("chanserv.users", "username", AccountCache.COLUMNS)},
+        "chanserv.channels", new String[] {
+            indexIfTableExists("chanserv.channels", "channels_name_lower_index", "LOWER(name)"),
+            notifyIfTableExists("chanserv.channels", "id", ChannelRegistry.COLUMNS)},
+        "nickserv.reserved_nicks", new String[] {
+            indexIfTableExists("nickserv.reserved_nicks", "reserved_nicks_nickname_lower_index", "LOWER(nickname)"),
+            indexIfTableExists("nickserv.reserved_nicks", "reserved_nicks_account_lower_index", "LOWER(account)")},
+        "hostserv.hosts", new String[] {
+            indexIfTableExists("hostserv.hosts", "hosts_uid_index", "uid"),
+            notifyIfTableExists("hostserv.hosts", "uid")},
+        "spamscan.channels", new String[] {
+            indexIfTableExists("spamscan.channels", "spamscan_channels_channel_lower_index", "LOWER(channel)")},
+        "spamscan.lax_channels", new String[] {
+            indexIfTableExists("spamscan.lax_channels", "spamscan_lax_channels_channel_lower_index", "LOWER(channel)")}
+    );
+
+    /**
+     * Creates the indexes and triggers of {@link #TABLE_OBJECTS} after a
+     * table was created
+     *
+     * @param tables Schema qualified tables
+     */
+    /**
+     * Runs statements without parameters in order on one connection
+     */
+    private void executeStatements(String name, String... sqls) throws SQLException {
+        queries.execute(name, conn -> {
+            try (var statement = conn.createStatement()) {
+                for (var sql : sqls) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void ensureTableObjects(String... tables) {
+        try {
+            queries.execute("ensureTableObjects", conn -> {
+                try (var statement = conn.createStatement()) {
+                    for (var table : tables) {
+                        for (var sql : TABLE_OBJECTS.get(table)) {
+                            statement.execute(sql);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to create indexes and triggers of " + String.join(", ", tables) + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Tables of some schemas are created later by the modules, those create
+     * the index themselves
+     */
+    private static String indexIfTableExists(String table, String index, String expression) {
+        return ifTableExists(table, "CREATE INDEX IF NOT EXISTS " + index + " ON " + table + " USING btree (" + expression + ")");
+    }
+
+    private static String notifyIfTableExists(String table, String keyColumn) {
+        return ifTableExists(table, "DROP TRIGGER IF EXISTS jserv_notify_change ON " + table + "; "
+                + "CREATE TRIGGER jserv_notify_change AFTER INSERT OR UPDATE OR DELETE ON " + table
+                + " FOR EACH ROW EXECUTE PROCEDURE public.jserv_notify_change('" + keyColumn + "')");
+    }
+
+    /**
+     * Like {@link #notifyIfTableExists(String, String)}, but updates only
+     * notify if one of the columns changed. Writes like lastauth on every
+     * login would otherwise evict the entry that was just written through.
+     */
+    private static String notifyIfTableExists(String table, String keyColumn, String columns) {
+        var oldRow = new StringBuilder();
+        var newRow = new StringBuilder();
+        for (var column : columns.split(",")) {
+            oldRow.append(oldRow.isEmpty() ? "" : ", ").append("OLD.").append(column.trim());
+            newRow.append(newRow.isEmpty() ? "" : ", ").append("NEW.").append(column.trim());
+        }
+        return ifTableExists(table, "DROP TRIGGER IF EXISTS jserv_notify_change ON " + table + "; "
+                + "DROP TRIGGER IF EXISTS jserv_notify_update ON " + table + "; "
+                + "CREATE TRIGGER jserv_notify_change AFTER INSERT OR DELETE ON " + table
+                + " FOR EACH ROW EXECUTE PROCEDURE public.jserv_notify_change('" + keyColumn + "'); "
+                + "CREATE TRIGGER jserv_notify_update AFTER UPDATE ON " + table
+                + " FOR EACH ROW WHEN ((" + oldRow + ") IS DISTINCT FROM (" + newRow + "))"
+                + " EXECUTE PROCEDURE public.jserv_notify_change('" + keyColumn + "')");
+    }
+
+    private static String ifTableExists(String table, String statement) {
+        return "DO $$ BEGIN IF to_regclass('" + table + "') IS NOT NULL THEN "
+                + statement + "; END IF; END $$";
+    }
+
+    /**
+     * Applies the migrations that are missing in public.jserv_schema_version.
+     * Every migration runs in its own transaction under an advisory lock, so
+     * two instances starting at once do not apply it twice.
+     */
+    private void applyMigrations(Connection conn) throws SQLException {
+        try (var statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS public.jserv_schema_version ("
+                    + "version integer PRIMARY KEY, description text, applied_at bigint NOT NULL)");
+        }
+        for (var migration : MIGRATIONS) {
+            conn.setAutoCommit(false);
+            try (var lock = conn.createStatement();
+                 var check = conn.prepareStatement("SELECT 1 FROM public.jserv_schema_version WHERE version = ?")) {
+                lock.execute("SELECT pg_advisory_xact_lock(hashtext('jserv_schema_version'))");
+                check.setInt(1, migration.version());
+                try (var rs = check.executeQuery()) {
+                    if (rs.next()) {
+                        conn.commit();
+                        continue;
+                    }
+                }
+                LOG.info("Applying schema migration " + migration.version() + ": " + migration.description());
+                try (var statement = conn.createStatement()) {
+                    for (var sql : migration.statements()) {
+                        statement.execute(sql);
+                    }
+                }
+                try (var insert = conn.prepareStatement(
+                        "INSERT INTO public.jserv_schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                    insert.setInt(1, migration.version());
+                    insert.setString(2, migration.description());
+                    insert.setLong(3, getCurrentTime());
+                    insert.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
@@ -1110,30 +1614,22 @@ public final class Database {
         if (!isValidUserColumn(key)) {
             throw new IllegalArgumentException("Invalid key: " + key);
         }
-        long flag = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT " + key + " FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?)")) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        flag = resultset.getLong(key);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
+        switch (key) {
+            case "id", "flags", "suspendexp", "suspendtime" -> {
+                var account = getAccount(nick);
+                return account != null ? Long.parseLong(account.get(key)) : 0;
             }
-            tries++;
+            default -> {
+            }
+        }
+        try {
+            Long value = queries.queryFirst("SELECT " + key + " FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?)",
+                    statement -> statement.setString(1, nick), resultset -> resultset.getLong(key));
+            return value != null ? value : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read " + key + " of " + nick + ": " + ex.getMessage());
+            return 0;
         }
-        return flag;
     }
 
     /**
@@ -1147,30 +1643,17 @@ public final class Database {
         if (!isValidUserColumn(key)) {
             throw new IllegalArgumentException("Invalid key: " + key);
         }
-        String flag = null;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT " + key + " FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?)")) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        flag = resultset.getString(key);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        if (AccountCache.isCached(key)) {
+            var account = getAccount(nick);
+            return account != null ? account.get(key) : null;
+        }
+        try {
+            return queries.queryFirst("SELECT " + key + " FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?)",
+                    statement -> statement.setString(1, nick), resultset -> resultset.getString(key));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read " + key + " of " + nick + ": " + ex.getMessage());
+            return null;
         }
-        return flag;
     }
 
     /**
@@ -1181,30 +1664,14 @@ public final class Database {
      * @return The data
      */
     public String getAccountHistory(String key, int userId) {
-        String flag = null;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT " + key + " FROM chanserv.accounthistory WHERE userID = ?;")) {
-                statement.setInt(1, userId);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        flag = resultset.getString(key);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            var values = queries.query("SELECT " + key + " FROM chanserv.accounthistory WHERE userID = ?;",
+                    statement -> statement.setInt(1, userId), resultset -> resultset.getString(key));
+            return values.isEmpty() ? null : values.get(values.size() - 1);
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read account history of " + userId + ": " + ex.getMessage());
+            return null;
         }
-        return flag;
     }
 
     /**
@@ -1224,24 +1691,15 @@ public final class Database {
         if (!isValidUserColumn(key)) {
             throw new IllegalArgumentException("Invalid key: " + key);
         }
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("UPDATE " + USER_TABLE + " SET " + key + " = ? WHERE LOWER(username) = LOWER(?)")) {
-                statement.setString(1, data);
-                statement.setString(2, nick);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("UPDATE " + USER_TABLE + " SET " + key + " = ? WHERE LOWER(username) = LOWER(?)",
+                    statement -> {
+                        statement.setString(1, data);
+                        statement.setString(2, nick);
+                    });
+            accountCache.update(nick, key, data);
+        } catch (SQLException ex) {
+            LOG.warning("Failed to update " + key + " of " + nick + ": " + ex.getMessage());
         }
     }
 
@@ -1253,23 +1711,11 @@ public final class Database {
      * @return The data
      */
     public void deleteAccountHistory(int userId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("DELETE FROM chanserv.accounthistory WHERE userID = ?;")) {
-                statement.setInt(1, userId);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM chanserv.accounthistory WHERE userID = ?;",
+                    statement -> statement.setInt(1, userId));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to delete account history of " + userId + ": " + ex.getMessage());
         }
     }
 
@@ -1284,24 +1730,15 @@ public final class Database {
         if (!isValidUserColumn(key)) {
             throw new IllegalArgumentException("Invalid key: " + key);
         }
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("UPDATE " + USER_TABLE + " SET " + key + " = ? WHERE LOWER(username) = LOWER(?)")) {
-                statement.setLong(1, data);
-                statement.setString(2, nick);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("UPDATE " + USER_TABLE + " SET " + key + " = ? WHERE LOWER(username) = LOWER(?)",
+                    statement -> {
+                        statement.setLong(1, data);
+                        statement.setString(2, nick);
+                    });
+            accountCache.update(nick, key, String.valueOf(data));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to update " + key + " of " + nick + ": " + ex.getMessage());
         }
     }
 
@@ -1312,7 +1749,7 @@ public final class Database {
      * @return If true or false
      */
     public boolean isRegistered(String nick) {
-        return getData("username", nick) != null;
+        return getAccount(nick) != null;
     }
 
     /**
@@ -1326,112 +1763,41 @@ public final class Database {
             return false;
         }
         
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                     "SELECT COUNT(*) FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)")) {
-                statement.setString(1, email.trim());
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getInt(1) > 0;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer count = queries.queryFirst("SELECT COUNT(*) FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)",
+                    statement -> statement.setString(1, email.trim()), resultset -> resultset.getInt(1));
+            return count != null && count > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check email " + email + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     public int getIndex() {
-        int index = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT id FROM " + USER_TABLE + " ORDER BY id DESC;")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        index = resultset.getInt(1);
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer index = queries.queryFirst("SELECT id FROM " + USER_TABLE + " ORDER BY id DESC;",
+                    QueryExecutor.Binder.NONE, resultset -> resultset.getInt(1));
+            return index != null ? index : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read the highest user id: " + ex.getMessage());
+            return 0;
         }
-        return index;
     }
 
     public int getNumeric() {
-        int index = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT numeric FROM chanserv.authhistory ORDER BY numeric DESC;")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        index = resultset.getInt(1);
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer index = queries.queryFirst("SELECT numeric FROM chanserv.authhistory ORDER BY numeric DESC;",
+                    QueryExecutor.Binder.NONE, resultset -> resultset.getInt(1));
+            return index != null ? index : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read the highest auth numeric: " + ex.getMessage());
+            return 0;
         }
-        return index;
     }
 
     public int getUserId(String nick) {
-        int index = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT id FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?);")) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        index = resultset.getInt(1);
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
-        }
-        return index;
+        var account = getAccount(nick);
+        return account != null ? account.id() : 0;
     }
 
     /**
@@ -1442,42 +1808,21 @@ public final class Database {
      */
     public boolean isMail(String email) {
 
-        boolean flag = false;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT * FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)")) {
-                statement.setString(1, email);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        flag = true;
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT 1 FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)",
+                    statement -> statement.setString(1, email), resultset -> Boolean.TRUE) != null;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check email " + email + ": " + ex.getMessage());
+            return false;
         }
-        return flag;
     }
 
     public void addUser(String nick, String email) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                int index = getIndex() + 1;
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO " + USER_TABLE + " (username, created, lastauth, lastemailchng, flags, password, email, "
+        int index = getIndex() + 1;
+        try {
+            queries.execute("addUser", conn -> {
+                try (var statement = conn.prepareStatement("INSERT INTO " + USER_TABLE + " (username, created, lastauth, lastemailchng, flags, password, email, "
                         + "lastemail, lastpasschng, id, language, suspendby, suspendexp, suspendtime, lockuntil, lastuserhost, suspendreason, comment, info)"
                         + " VALUES (?,?,?,?,?,?,?,'',?,?,0,0,0,0,0,'','','','');")) {
                     statement.setString(1, nick);
@@ -1491,24 +1836,18 @@ public final class Database {
                     statement.setInt(9, index);
                     statement.executeUpdate();
                 }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO chanserv.email (userid, emailtype, prevemail) VALUES (?,?,LOWER(?));")) {
+                try (var statement = conn.prepareStatement("INSERT INTO chanserv.email (userid, emailtype, prevemail) VALUES (?,?,LOWER(?));")) {
                     statement.setInt(1, index);
                     statement.setInt(2, 1);
                     statement.setString(3, email);
                     statement.executeUpdate();
                 }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                return null;
+            });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add user " + nick + ": " + ex.getMessage());
         }
+        accountCache.invalidate(nick);
     }
 
     /**
@@ -1519,29 +1858,18 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean addEmail(int userId, int emailType, String email) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                    "INSERT INTO chanserv.email (userid, emailtype, prevemail) VALUES (?,?,LOWER(?))")) {
-                statement.setInt(1, userId);
-                statement.setInt(2, emailType);
-                statement.setString(3, email);
-                statement.executeUpdate();
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.warning("Failed to add email entry: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("INSERT INTO chanserv.email (userid, emailtype, prevemail) VALUES (?,?,LOWER(?))",
+                    statement -> {
+                        statement.setInt(1, userId);
+                        statement.setInt(2, emailType);
+                        statement.setString(3, email);
+                    });
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add email entry: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -1552,201 +1880,109 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean addUser(String username, String password, int flags) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                int index = getIndex() + 1;
-                long now = getCurrentTime();
-                String hashedPassword = hashPassword(password, now);
-                
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                        "INSERT INTO " + USER_TABLE + " " +
-                        "(username, created, lastauth, lastemailchng, flags, pwd, email, " +
-                        "lastemail, lastpasschng, id, language, suspendby, suspendexp, suspendtime, " +
-                        "lockuntil, lastuserhost, suspendreason, comment, info) " +
-                        "VALUES (?,?,?,?,?,?,?,'',?,?,0,0,0,0,0,'','','','')")) {
-                    statement.setString(1, username);
-                    statement.setLong(2, now);
-                    statement.setLong(3, 0);
-                    statement.setLong(4, 0);
-                    statement.setInt(5, flags);
-                    statement.setString(6, hashedPassword);
-                    statement.setString(7, "");  // No email for admin registration
-                    statement.setLong(8, now);
-                    statement.setInt(9, index);
-                    statement.executeUpdate();
-                }
-                LOG.info("User added: " + username + " with flags: " + flags);
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to add user: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        int index = getIndex() + 1;
+        long now = getCurrentTime();
+        String hashedPassword = hashPassword(password, now);
+        try {
+            queries.update(
+                    "INSERT INTO " + USER_TABLE + " " +
+                    "(username, created, lastauth, lastemailchng, flags, pwd, email, " +
+                    "lastemail, lastpasschng, id, language, suspendby, suspendexp, suspendtime, " +
+                    "lockuntil, lastuserhost, suspendreason, comment, info) " +
+                    "VALUES (?,?,?,?,?,?,?,'',?,?,0,0,0,0,0,'','','','')",
+                    statement -> {
+                        statement.setString(1, username);
+                        statement.setLong(2, now);
+                        statement.setLong(3, 0);
+                        statement.setLong(4, 0);
+                        statement.setInt(5, flags);
+                        statement.setString(6, hashedPassword);
+                        statement.setString(7, "");  // No email for admin registration
+                        statement.setLong(8, now);
+                        statement.setInt(9, index);
+                    });
+        } catch (SQLException ex) {
+            LOG.severe("Failed to add user: " + ex.getMessage());
+            return false;
         }
-        return false;
+        accountCache.invalidate(username);
+        LOG.info("User added: " + username + " with flags: " + flags);
+        return true;
     }
 
     public String getHost(String nick) {
 
-        long index = getUserId(nick);
-        String host = null;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT ident,host FROM hostserv.hosts WHERE uid = ?;")) {
-                statement.setLong(1, index);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        host = "%s@%s".formatted(resultset.getString("ident"), resultset.getString("host"));
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        var account = getAccount(nick);
+        if (account == null) {
+            return null;
+        }
+        if (account.vhostLoaded()) {
+            return account.vhost();
+        }
+        long index = account.id();
+        try {
+            String host = queries.queryFirst("SELECT ident,host FROM hostserv.hosts WHERE uid = ?;",
+                    statement -> statement.setLong(1, index),
+                    resultset -> "%s@%s".formatted(resultset.getString("ident"), resultset.getString("host")));
+            accountCache.updateVhost(nick, host);
+            return host;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read the host of " + nick + ": " + ex.getMessage());
+            return null;
         }
-        return host;
     }
 
     public long getHostTimestamp(String nick) {
 
         long index = getUserId(nick);
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT timestamp FROM hostserv.hosts WHERE uid = ?;")) {
-                statement.setLong(1, index);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        return resultset.getLong("timestamp");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Long timestamp = queries.queryFirst("SELECT timestamp FROM hostserv.hosts WHERE uid = ?;",
+                    statement -> statement.setLong(1, index), resultset -> resultset.getLong("timestamp"));
+            return timestamp != null ? timestamp : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read the host timestamp of " + nick + ": " + ex.getMessage());
+            return 0;
         }
-        return 0;
     }
 
     public void addHost(String nick, String ident, String host) {
 
         int index = getUserId(nick);
-        boolean isHost = false;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT uid FROM hostserv.hosts WHERE uid = ?;")) {
-                statement.setLong(1, index);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        isHost = true;
-                        break;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
-        }
-        if (!isHost) {
-            tries = 0;
-            while (tries < 2) {
-                ensureConnection();
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO hostserv.hosts (uid, ident, host, timestamp) VALUES (?,?,?,?);")) {
-                    statement.setInt(1, index);
-                    statement.setString(2, ident);
-                    statement.setString(3, host);
-                    statement.setLong(4, getCurrentTime());
-                    statement.executeUpdate();
-                    break;
-                } catch (SQLException ex) {
-                    if (tries == 0) {
-                        LOG.warning(RECONNECT_MSG + ex.getMessage());
-                        initializeConnectionPool();
-                    } else {
-                        ex.printStackTrace();
-                    }
-                }
-                tries++;
-            }
-        } else {
-            tries = 0;
-            while (tries < 2) {
-                ensureConnection();
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("UPDATE hostserv.hosts SET ident = ?, host = ?, timestamp = ? WHERE uid = ?")) {
-                    statement.setString(1, ident);
-                    statement.setString(2, host);
-                    statement.setLong(3, getCurrentTime());
-                    statement.setInt(4, index);
-                    statement.executeUpdate();
-                    break;
-                } catch (SQLException ex) {
-                    if (tries == 0) {
-                        LOG.warning(RECONNECT_MSG + ex.getMessage());
-                        initializeConnectionPool();
-                    } else {
-                        ex.printStackTrace();
-                    }
-                }
-                tries++;
-            }
+        try {
+            int updated = queries.update("UPDATE hostserv.hosts SET ident = ?, host = ?, timestamp = ? WHERE uid = ?",
+                    statement -> {
+                        statement.setString(1, ident);
+                        statement.setString(2, host);
+                        statement.setLong(3, getCurrentTime());
+                        statement.setInt(4, index);
+                    });
+            if (updated == 0) {
+                queries.update("INSERT INTO hostserv.hosts (uid, ident, host, timestamp) VALUES (?,?,?,?);",
+                        statement -> {
+                            statement.setInt(1, index);
+                            statement.setString(2, ident);
+                            statement.setString(3, host);
+                            statement.setLong(4, getCurrentTime());
+                        });
+            }
+            accountCache.updateVhost(nick, "%s@%s".formatted(ident, host));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to set the host of " + nick + ": " + ex.getMessage());
         }
     }
     
     public boolean removeHost(String nick) {
 
         int index = getUserId(nick);
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("DELETE FROM hostserv.hosts WHERE uid = ?;")) {
-                statement.setInt(1, index);
-                return statement.executeUpdate() > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            boolean removed = queries.update("DELETE FROM hostserv.hosts WHERE uid = ?;",
+                    statement -> statement.setInt(1, index)) > 0;
+            accountCache.updateVhost(nick, null);
+            return removed;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove the host of " + nick + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     private long numericToLong(String numeric, int numericlen) {
@@ -1762,81 +1998,40 @@ public final class Database {
 
     public void addAuthHistory(String auth, String nick, String username, String host, String numeric) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO chanserv.authhistory (userid, nick, username, host, authtime, disconnecttime, numeric)"
-                    + " VALUES (?,?,?,?,?,?,?);")) {
-                statement.setInt(1, getUserId(auth));
-                statement.setString(2, nick);
-                statement.setString(3, username);
-                statement.setString(4, host);
-                statement.setLong(5, getCurrentTime());
-                statement.setLong(6, 0);
-                statement.setLong(7, numericToLong(numeric, 5));
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        int userId = getUserId(auth);
+        try {
+            queries.update("INSERT INTO chanserv.authhistory (userid, nick, username, host, authtime, disconnecttime, numeric)"
+                    + " VALUES (?,?,?,?,?,?,?);",
+                    statement -> {
+                        statement.setInt(1, userId);
+                        statement.setString(2, nick);
+                        statement.setString(3, username);
+                        statement.setString(4, host);
+                        statement.setLong(5, getCurrentTime());
+                        statement.setLong(6, 0);
+                        statement.setLong(7, numericToLong(numeric, 5));
+                    });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add auth history for " + auth + ": " + ex.getMessage());
         }
     }
 
     public void submitNewPassword(String email) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT id FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)")) {
-                statement.setString(1, email);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        submitPassword(email, resultset.getInt(1), 2);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
+        try {
+            var ids = queries.query("SELECT id FROM " + USER_TABLE + " WHERE LOWER(email) = LOWER(?)",
+                    statement -> statement.setString(1, email), resultset -> resultset.getInt(1));
+            for (var id : ids) {
+                submitPassword(email, id, 2);
             }
-            tries++;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to look up accounts of " + email + ": " + ex.getMessage());
         }
     }
 
     protected void submitPassword(String email, int index, int type) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO chanserv.email (userid, emailtype, prevemail) VALUES (?,?,LOWER(?));")) {
-                statement.setInt(1, index);
-                statement.setInt(2, type);
-                statement.setString(3, email);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
-        }
+        addEmail(index, type, email);
     }
 
     protected String createRandomId() {
@@ -1855,143 +2050,51 @@ public final class Database {
     }
 
     public void setAccountHistory(int id, String oldPassword, String newPassword, String oldMail, String newMail) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO chanserv.accounthistory (userID, changetime, authtime, oldpassword, newpassword, oldemail, newemail) VALUES (?, ?, ?, ?, ?, LOWER(?), LOWER(?));")) {
-                statement.setInt(1, id);
-                statement.setLong(2, getCurrentTime());
-                statement.setLong(3, getCurrentTime());
-                statement.setString(4, oldPassword);
-                statement.setString(5, newPassword);
-                statement.setString(6, oldMail);
-                statement.setString(7, newMail);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long now = getCurrentTime();
+        try {
+            queries.update("INSERT INTO chanserv.accounthistory (userID, changetime, authtime, oldpassword, newpassword, oldemail, newemail) VALUES (?, ?, ?, ?, ?, LOWER(?), LOWER(?));",
+                    statement -> {
+                        statement.setInt(1, id);
+                        statement.setLong(2, now);
+                        statement.setLong(3, now);
+                        statement.setString(4, oldPassword);
+                        statement.setString(5, newPassword);
+                        statement.setString(6, oldMail);
+                        statement.setString(7, newMail);
+                    });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to write account history of " + id + ": " + ex.getMessage());
         }
     }
 
     /**
      * Fetching userdata
      *
-     * @return The data as array list
+     * @return All accounts
      */
-    public ArrayList<String[]> getData() {
-
-        var list = new ArrayList<String[]>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT * FROM " + USER_TABLE)) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        var dat = new String[19];
-                        dat[0] = resultset.getString("id");
-                        dat[1] = resultset.getString("username");
-                        dat[2] = resultset.getString("created");
-                        dat[3] = resultset.getString("lastauth");
-                        dat[4] = resultset.getString("lastemailchng");
-                        dat[5] = resultset.getString("flags");
-                        dat[6] = resultset.getString("language");
-                        dat[7] = resultset.getString("suspendby");
-                        dat[8] = resultset.getString("suspendexp");
-                        dat[9] = resultset.getString("suspendtime");
-                        dat[10] = resultset.getString("lockuntil");
-                        dat[11] = resultset.getString("password");
-                        dat[12] = resultset.getString("email");
-                        dat[13] = resultset.getString("lastemail");
-                        dat[14] = resultset.getString("lastuserhost");
-                        dat[15] = resultset.getString("suspendreason");
-                        dat[16] = resultset.getString("comment");
-                        dat[17] = resultset.getString("info");
-                        dat[18] = resultset.getString("lastpasschng");
-                        list.add(dat);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+    public ArrayList<AccountCache.Account> getData() {
+        try {
+            return new ArrayList<>(queries.query("SELECT " + AccountCache.COLUMNS + " FROM " + USER_TABLE,
+                    QueryExecutor.Binder.NONE, Database::readAccount));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read users: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return list;
     }
 
     /**
-     * Fetching userdata
+     * Fetching channels
      *
-     * @return The data as array list
+     * @return All registered channels
      */
-    public ArrayList<String[]> getChannels() {
-
-        var list = new ArrayList<String[]>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT * FROM " + CHANNEL_TABLE)) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        var dat = new String[28];
-                        dat[0] = resultset.getString("id");
-                        dat[1] = resultset.getString("name").toLowerCase();
-                        dat[2] = resultset.getString("forcemodes");
-                        dat[3] = resultset.getString("denymodes");
-                        dat[4] = resultset.getString("chanlimit");
-                        dat[5] = resultset.getString("flags");
-                        dat[6] = resultset.getString("autolimit");
-                        dat[7] = resultset.getString("banstyle");
-                        dat[8] = resultset.getString("created");
-                        dat[9] = resultset.getString("lastactive");
-                        dat[10] = resultset.getString("statsreset");
-                        dat[11] = resultset.getString("banduration");
-                        dat[12] = resultset.getString("founder");
-                        dat[13] = resultset.getString("addedby");
-                        dat[14] = resultset.getString("suspendby");
-                        dat[15] = resultset.getString("suspendtime");
-                        dat[16] = resultset.getString("chantype");
-                        dat[17] = resultset.getString("totaljoins");
-                        dat[18] = resultset.getString("tripjoins");
-                        dat[19] = resultset.getString("maxusers");
-                        dat[20] = resultset.getString("tripusers");
-                        dat[21] = resultset.getString("welcome");
-                        dat[22] = resultset.getString("topic");
-                        dat[23] = resultset.getString("chankey");
-                        dat[24] = resultset.getString("suspendreason");
-                        dat[25] = resultset.getString("topic");
-                        dat[26] = resultset.getString("comment");
-                        dat[27] = resultset.getString("lasttimestamp");
-                        list.add(dat);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+    public ArrayList<ChannelRegistry.Registration> getChannels() {
+        try {
+            return new ArrayList<>(queries.query("SELECT " + ChannelRegistry.COLUMNS + " FROM " + CHANNEL_TABLE,
+                    QueryExecutor.Binder.NONE, Database::readRegistration));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read channels: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return list;
     }
 
     /**
@@ -2001,67 +2104,42 @@ public final class Database {
      */
     public String getChannel(String key, String name) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT " + key + " FROM " + CHANNEL_TABLE + " WHERE LOWER(name) = LOWER(?)")) {
-                statement.setString(1, name);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        return resultset.getString(key);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        if (channelRegistry.isLoaded() && ChannelRegistry.isKept(key)) {
+            var registration = channelRegistry.get(name);
+            return registration != null ? registration.get(key) : null;
+        }
+        try {
+            return queries.queryFirst("SELECT " + key + " FROM " + CHANNEL_TABLE + " WHERE LOWER(name) = LOWER(?)",
+                    statement -> statement.setString(1, name), resultset -> resultset.getString(key));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read " + key + " of channel " + name + ": " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
-     * Fetching userdata
+     * Fetching the access entry of an account on a channel
      *
-     * @return The data as array list
+     * @param id Account id
+     * @param chanid Channel id
+     * @return The entry, null if there is none
      */
-    public String[] getChanUser(long id, long chanid) {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT * FROM chanserv.chanusers WHERE userid=? AND channelid=?")) {
-                statement.setLong(1, id);
-                statement.setLong(2, chanid);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        var dat = new String[4];
-                        dat[0] = resultset.getString("flags");
-                        dat[1] = resultset.getString("changetime");
-                        dat[2] = resultset.getString("usetime");
-                        dat[3] = resultset.getString("info");
-                        return dat;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+    public ChanUser getChanUser(long id, long chanid) {
+        try {
+            return queries.queryFirst("SELECT flags, changetime, usetime, info FROM chanserv.chanusers WHERE userid=? AND channelid=?",
+                    statement -> {
+                        statement.setLong(1, id);
+                        statement.setLong(2, chanid);
+                    },
+                    resultset -> new ChanUser(
+                            resultset.getInt("flags"),
+                            resultset.getLong("changetime"),
+                            resultset.getLong("usetime"),
+                            resultset.getString("info")));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read channel user: " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
@@ -2070,175 +2148,75 @@ public final class Database {
      * @return The data
      */
     protected ArrayList<String> getSpamScanChannels() {
-        var dat = new ArrayList<String>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT channel FROM spamscan.channels")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        var data = resultset.getString("channel");
-                        dat.add(data);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return new ArrayList<>(queries.query("SELECT channel FROM spamscan.channels", QueryExecutor.Binder.NONE,
+                    resultset -> resultset.getString("channel")));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read SpamScan channels: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return dat;
     }
 
     protected int getSpamScanIdCount() {
-        int dat = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT COUNT(*) FROM spamscan.id")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        dat = resultset.getInt(1);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer count = queries.queryFirst("SELECT COUNT(*) FROM spamscan.id", QueryExecutor.Binder.NONE,
+                    resultset -> resultset.getInt(1));
+            return count != null ? count : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to count SpamScan ids: " + ex.getMessage());
+            return 0;
         }
-        return dat;
     }
 
     /**
      * Create schema
      */
     protected void createSchema() {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS spamscan;")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS hostserv")) {
-                    statement.executeUpdate();
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            executeStatements("createSchema",
+                    "CREATE SCHEMA IF NOT EXISTS spamscan",
+                    "CREATE SCHEMA IF NOT EXISTS hostserv");
+        } catch (SQLException ex) {
+            LOG.warning("Failed to create schemas: " + ex.getMessage());
         }
     }
 
     protected void addId(String reason) {
 
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO spamscan.id (reason, created_at) VALUES (?, ?);")) {
-                statement.setString(1, reason);
-                statement.setLong(2, getCurrentTime());
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("INSERT INTO spamscan.id (reason, created_at) VALUES (?, ?);",
+                    statement -> {
+                        statement.setString(1, reason);
+                        statement.setLong(2, getCurrentTime());
+                    });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add SpamScan id: " + ex.getMessage());
         }
     }
 
     protected void addChan(String channel) {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO spamscan.channels (channel) VALUES (?);")) {
-                statement.setString(1, channel);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("INSERT INTO spamscan.channels (channel) VALUES (?);", statement -> statement.setString(1, channel));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add SpamScan channel " + channel + ": " + ex.getMessage());
         }
     }
 
     protected boolean isSpamScanChannel(String channel) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT 1 FROM spamscan.channels WHERE LOWER(channel) = LOWER(?);")) {
-                statement.setString(1, channel);
-                try (var resultset = statement.executeQuery()) {
-                    return resultset.next();
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT 1 FROM spamscan.channels WHERE LOWER(channel) = LOWER(?);",
+                    statement -> statement.setString(1, channel), resultset -> Boolean.TRUE) != null;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check SpamScan channel " + channel + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     protected void removeChan(String channel) {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("DELETE FROM spamscan.channels WHERE LOWER(channel) = LOWER(?);")) {
-                statement.setString(1, channel);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM spamscan.channels WHERE LOWER(channel) = LOWER(?);", statement -> statement.setString(1, channel));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove SpamScan channel " + channel + ": " + ex.getMessage());
         }
     }
 
@@ -2246,50 +2224,20 @@ public final class Database {
      * Create table
      */
     protected void createTable() {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS spamscan.channels (id SERIAL PRIMARY KEY, channel VARCHAR(255));")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS spamscan.lax_channels (id SERIAL PRIMARY KEY, channel VARCHAR(255));")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS spamscan.id (id SERIAL PRIMARY KEY, reason VARCHAR(255), created_at BIGINT NOT NULL DEFAULT EXTRACT(EPOCH FROM NOW())::BIGINT);")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS spamscan.kill_tracking (id SERIAL PRIMARY KEY, userhost VARCHAR(255) UNIQUE NOT NULL, kill_count INTEGER DEFAULT 1, first_kill BIGINT, last_kill BIGINT, glined BOOLEAN DEFAULT FALSE);")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS hostserv.hosts (uid INTEGER, ident VARCHAR(10), host VARCHAR(63), timestamp INTEGER);")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS operserv;")) {
-                    statement.executeUpdate();
-                }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE TABLE IF NOT EXISTS operserv.glines (id SERIAL PRIMARY KEY, mask VARCHAR(255) UNIQUE NOT NULL, reason VARCHAR(500), setby VARCHAR(16) NOT NULL, created BIGINT NOT NULL, expires BIGINT);")) {
-                    statement.executeUpdate();
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            executeStatements("createTable",
+                    "CREATE TABLE IF NOT EXISTS spamscan.channels (id SERIAL PRIMARY KEY, channel VARCHAR(255))",
+                    "CREATE TABLE IF NOT EXISTS spamscan.lax_channels (id SERIAL PRIMARY KEY, channel VARCHAR(255))",
+                    "CREATE TABLE IF NOT EXISTS spamscan.id (id SERIAL PRIMARY KEY, reason VARCHAR(255), created_at BIGINT NOT NULL DEFAULT EXTRACT(EPOCH FROM NOW())::BIGINT)",
+                    "CREATE TABLE IF NOT EXISTS spamscan.kill_tracking (id SERIAL PRIMARY KEY, userhost VARCHAR(255) UNIQUE NOT NULL, kill_count INTEGER DEFAULT 1, first_kill BIGINT, last_kill BIGINT, glined BOOLEAN DEFAULT FALSE)",
+                    "CREATE TABLE IF NOT EXISTS hostserv.hosts (uid INTEGER, ident VARCHAR(10), host VARCHAR(63), timestamp INTEGER)",
+                    "CREATE SCHEMA IF NOT EXISTS operserv",
+                    "CREATE TABLE IF NOT EXISTS operserv.glines (id SERIAL PRIMARY KEY, mask VARCHAR(255) UNIQUE NOT NULL, reason VARCHAR(500), setby VARCHAR(16) NOT NULL, created BIGINT NOT NULL, expires BIGINT)");
+        } catch (SQLException ex) {
+            LOG.warning("Failed to create SpamScan, HostServ and OperServ tables: " + ex.getMessage());
+            return;
         }
+        ensureTableObjects("spamscan.channels", "spamscan.lax_channels", "hostserv.hosts");
     }
 
     /**
@@ -2297,38 +2245,28 @@ public final class Database {
      * Adds it automatically if missing
      */
     protected void ensureCreatedAtColumn() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
+        try {
+            queries.execute("ensureCreatedAtColumn", conn -> {
                 // Check if column exists
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                     "SELECT column_name FROM information_schema.columns " +
                     "WHERE table_schema = 'spamscan' AND table_name = 'id' AND column_name = 'created_at';"
-                )) {
-                    try (var resultset = statement.executeQuery()) {
-                        if (!resultset.next()) {
-                            // Column doesn't exist, add it
-                            try (var alterStatement = conn.prepareStatement(
-                                "ALTER TABLE spamscan.id ADD COLUMN created_at BIGINT NOT NULL DEFAULT EXTRACT(EPOCH FROM NOW())::BIGINT;"
-                            )) {
-                                alterStatement.executeUpdate();
-                                LOG.info("Added created_at column to spamscan.id table");
-                            }
+                );
+                     var resultset = statement.executeQuery()) {
+                    if (!resultset.next()) {
+                        // Column doesn't exist, add it
+                        try (var alterStatement = conn.prepareStatement(
+                            "ALTER TABLE spamscan.id ADD COLUMN created_at BIGINT NOT NULL DEFAULT EXTRACT(EPOCH FROM NOW())::BIGINT;"
+                        )) {
+                            alterStatement.executeUpdate();
+                            LOG.info("Added created_at column to spamscan.id table");
                         }
                     }
                 }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                return null;
+            });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add created_at column: " + ex.getMessage());
         }
     }
 
@@ -2337,20 +2275,16 @@ public final class Database {
      * Creates schema and tables: users, channels, chanusers, bans, email
      */
     public void ensureChanServTables() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
+        try {
+            queries.execute("ensureChanServTables", conn -> {
                 // Create chanserv schema
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS chanserv;")) {
+                try (var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS chanserv;")) {
                     statement.executeUpdate();
                     LOG.info("ChanServ schema ensured");
                 }
 
                 // Create users table
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE TABLE IF NOT EXISTS chanserv.users (" +
                         "id INTEGER PRIMARY KEY, " +
                         "username VARCHAR(30) UNIQUE NOT NULL, " +
@@ -2381,8 +2315,7 @@ public final class Database {
                 }
 
                 // Ensure pwd column exists (for existing tables)
-                try (Connection conn = getConnection();
-                     var checkStmt = conn.prepareStatement(
+                try (var checkStmt = conn.prepareStatement(
                         "SELECT column_name FROM information_schema.columns " +
                         "WHERE table_schema = 'chanserv' AND table_name = 'users' AND column_name = 'pwd'")) {
                     try (var rs = checkStmt.executeQuery()) {
@@ -2397,8 +2330,7 @@ public final class Database {
                 }
 
                 // Ensure new_pwd column exists (for existing tables)
-                try (Connection conn = getConnection();
-                     var checkStmt = conn.prepareStatement(
+                try (var checkStmt = conn.prepareStatement(
                         "SELECT column_name FROM information_schema.columns " +
                         "WHERE table_schema = 'chanserv' AND table_name = 'users' AND column_name = 'new_pwd'")) {
                     try (var rs = checkStmt.executeQuery()) {
@@ -2413,8 +2345,7 @@ public final class Database {
                 }
 
                 // Ensure reset_token column exists (for existing tables)
-                try (Connection conn = getConnection();
-                     var checkStmt = conn.prepareStatement(
+                try (var checkStmt = conn.prepareStatement(
                         "SELECT column_name FROM information_schema.columns " +
                         "WHERE table_schema = 'chanserv' AND table_name = 'users' AND column_name = 'reset_token'")) {
                     try (var rs = checkStmt.executeQuery()) {
@@ -2429,8 +2360,7 @@ public final class Database {
                 }
 
                 // Ensure generated_pwd column exists (for existing tables)
-                try (Connection conn = getConnection();
-                     var checkStmt = conn.prepareStatement(
+                try (var checkStmt = conn.prepareStatement(
                         "SELECT column_name FROM information_schema.columns " +
                         "WHERE table_schema = 'chanserv' AND table_name = 'users' AND column_name = 'generated_pwd'")) {
                     try (var rs = checkStmt.executeQuery()) {
@@ -2445,8 +2375,7 @@ public final class Database {
                 }
 
                 // Ensure password column is nullable (for migration from old schema)
-                try (Connection conn = getConnection();
-                     var checkStmt = conn.prepareStatement(
+                try (var checkStmt = conn.prepareStatement(
                         "SELECT is_nullable FROM information_schema.columns " +
                         "WHERE table_schema = 'chanserv' AND table_name = 'users' AND column_name = 'password'")) {
                     try (var rs = checkStmt.executeQuery()) {
@@ -2460,12 +2389,8 @@ public final class Database {
                     }
                 }
 
-                // Migrate old passwords to new secure format
-                migratePasswordsToSecure();
-
                 // Create channels table
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE TABLE IF NOT EXISTS chanserv.channels (" +
                         "id INTEGER PRIMARY KEY, " +
                         "name VARCHAR(64) UNIQUE NOT NULL, " +
@@ -2500,28 +2425,26 @@ public final class Database {
                 }
 
                 // Ensure additional columns exist (for existing tables)
-                try (Connection conn = getConnection()) {
-                    String[] additionalColumns = {
-                        "welcome VARCHAR(500)",
-                        "topic VARCHAR(500)",
-                        "chankey VARCHAR(255)",
-                        "comment VARCHAR(500)",
-                        "lasttimestamp BIGINT"
-                    };
-                    
-                    for (String colDef : additionalColumns) {
-                        String colName = colDef.split(" ")[0];
-                        try (var checkStmt = conn.prepareStatement(
-                                "SELECT column_name FROM information_schema.columns " +
-                                "WHERE table_schema = 'chanserv' AND table_name = 'channels' AND column_name = ?")) {
-                            checkStmt.setString(1, colName);
-                            try (var rs = checkStmt.executeQuery()) {
-                                if (!rs.next()) {
-                                    try (var alterStmt = conn.prepareStatement(
-                                            "ALTER TABLE chanserv.channels ADD COLUMN " + colDef)) {
-                                        alterStmt.executeUpdate();
-                                        LOG.info("Added " + colName + " column to chanserv.channels");
-                                    }
+                String[] additionalColumns = {
+                    "welcome VARCHAR(500)",
+                    "topic VARCHAR(500)",
+                    "chankey VARCHAR(255)",
+                    "comment VARCHAR(500)",
+                    "lasttimestamp BIGINT"
+                };
+                
+                for (String colDef : additionalColumns) {
+                    String colName = colDef.split(" ")[0];
+                    try (var checkStmt = conn.prepareStatement(
+                            "SELECT column_name FROM information_schema.columns " +
+                            "WHERE table_schema = 'chanserv' AND table_name = 'channels' AND column_name = ?")) {
+                        checkStmt.setString(1, colName);
+                        try (var rs = checkStmt.executeQuery()) {
+                            if (!rs.next()) {
+                                try (var alterStmt = conn.prepareStatement(
+                                        "ALTER TABLE chanserv.channels ADD COLUMN " + colDef)) {
+                                    alterStmt.executeUpdate();
+                                    LOG.info("Added " + colName + " column to chanserv.channels");
                                 }
                             }
                         }
@@ -2529,8 +2452,7 @@ public final class Database {
                 }
 
                 // Create chanusers table (channel access list)
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE TABLE IF NOT EXISTS chanserv.chanusers (" +
                         "userid INTEGER NOT NULL, " +
                         "channelid INTEGER NOT NULL, " +
@@ -2545,8 +2467,7 @@ public final class Database {
                 }
 
                 // Create bans table
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE TABLE IF NOT EXISTS chanserv.bans (" +
                         "banid SERIAL PRIMARY KEY, " +
                         "channelid INTEGER NOT NULL, " +
@@ -2560,8 +2481,7 @@ public final class Database {
                 }
 
                 // Create email table (for email change tracking)
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE TABLE IF NOT EXISTS chanserv.email (" +
                         "userid INTEGER NOT NULL, " +
                         "emailtype INTEGER NOT NULL DEFAULT 1, " +
@@ -2573,29 +2493,25 @@ public final class Database {
                 }
 
                 // Create indexes for performance
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE INDEX IF NOT EXISTS idx_chanusers_channelid ON chanserv.chanusers(channelid);")) {
                     statement.executeUpdate();
                 }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE INDEX IF NOT EXISTS idx_bans_channelid ON chanserv.bans(channelid);")) {
                     statement.executeUpdate();
                 }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE INDEX IF NOT EXISTS idx_channels_name ON chanserv.channels(name);")) {
                     statement.executeUpdate();
                 }
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+                try (var statement = conn.prepareStatement(
                         "CREATE INDEX IF NOT EXISTS idx_users_username ON chanserv.users(username);")) {
                     statement.executeUpdate();
                 }
 
                 // Migrate banid column to SERIAL if it's not already
-                try (Connection conn = getConnection()) {
+                try {
                     // Check if bans table exists and if banid has a sequence
                     try (var checkStmt = conn.prepareStatement(
                             "SELECT pg_get_serial_sequence('chanserv.bans', 'banid') as seq_name")) {
@@ -2648,42 +2564,26 @@ public final class Database {
                     LOG.warning("Could not check/migrate banid column: " + ex.getMessage());
                 }
 
-                LOG.info("ChanServ database schema and tables successfully ensured");
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to create ChanServ tables: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                return null;
+            });
+        } catch (SQLException ex) {
+            LOG.severe("Failed to create ChanServ tables: " + ex.getMessage());
+            return;
         }
+        // Migrate old passwords to new secure format
+        migratePasswordsToSecure();
+        ensureTableObjects("chanserv.users", "chanserv.channels");
+        LOG.info("ChanServ database schema and tables successfully ensured");
     }
 
     /**
      * Commits
      */
     protected void commit() {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("COMMIT")) {
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("COMMIT", QueryExecutor.Binder.NONE);
+        } catch (SQLException ex) {
+            LOG.warning("Failed to commit: " + ex.getMessage());
         }
     }
 
@@ -2709,31 +2609,9 @@ public final class Database {
      * @return The data
      */
     protected int getFlags(String nick) {
-
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT flags FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?);")) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        return resultset.getInt("flags");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
-        }
-        return 0;
-    }
+        var account = getAccount(nick);
+        return account != null ? account.flags() : 0;
+    }
 
     /**
      * Fetching flags
@@ -2743,26 +2621,11 @@ public final class Database {
     protected HashMap<String, Integer> getFlags() {
 
         var dat = new HashMap<String, Integer>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT flags, username FROM " + USER_TABLE + " WHERE flags > 4;")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        dat.put(resultset.getString("username"), resultset.getInt("flags"));
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.query("SELECT flags, username FROM " + USER_TABLE + " WHERE flags > 4;", QueryExecutor.Binder.NONE,
+                    resultset -> dat.put(resultset.getString("username"), resultset.getInt("flags")));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read account flags: " + ex.getMessage());
         }
         return dat;
     }
@@ -2774,30 +2637,13 @@ public final class Database {
      */
     protected String getTimestamp(String nick) {
 
-        String dat = null;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT lastauth FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?);")) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        dat = resultset.getString("lastauth");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT lastauth FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?);",
+                    statement -> statement.setString(1, nick), resultset -> resultset.getString("lastauth"));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read lastauth of " + nick + ": " + ex.getMessage());
+            return null;
         }
-        return dat;
     }
 
     /**
@@ -2832,29 +2678,13 @@ public final class Database {
             throw new IllegalArgumentException("Invalid key: " + field);
         }
         String sql = "SELECT " + actualField + " FROM " + USER_TABLE + " WHERE LOWER(username) = LOWER(?)";
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(sql)) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getString(actualField);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    System.out.println("Database access error, trying reconnect: " + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("SQL error: " + ex.getMessage());
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst(sql, statement -> statement.setString(1, nick),
+                    resultset -> resultset.getString(actualField));
+        } catch (SQLException ex) {
+            LOG.severe("SQL error: " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     public Optional<String> getUserFieldOptional(String field, String nick) {
@@ -2866,47 +2696,22 @@ public final class Database {
      * Ensures the nick reservation table exists in the database
      */
     public void ensureNickReservationTableExists() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                // Create schema if not exists
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS nickserv;")) {
-                    statement.executeUpdate();
-                }
-                
-                // Create reserved_nicks table
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+        try {
+            executeStatements("ensureNickReservationTableExists",
+                    "CREATE SCHEMA IF NOT EXISTS nickserv",
                     "CREATE TABLE IF NOT EXISTS nickserv.reserved_nicks (" +
                     "nickname VARCHAR(30) PRIMARY KEY, " +
                     "account VARCHAR(30) NOT NULL, " +
                     "reserved_time BIGINT NOT NULL, " +
-                    "last_seen BIGINT NOT NULL);"
-                )) {
-                    statement.executeUpdate();
-                }
-                
-                // Create index for account lookups
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                    "CREATE INDEX IF NOT EXISTS idx_reserved_account " +
-                    "ON nickserv.reserved_nicks(account);"
-                )) {
-                    statement.executeUpdate();
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                    "last_seen BIGINT NOT NULL)",
+                    // Index for account lookups
+                    "CREATE INDEX IF NOT EXISTS idx_reserved_account ON nickserv.reserved_nicks(account)");
+        } catch (SQLException ex) {
+            LOG.warning("Failed to create nickserv.reserved_nicks: " + ex.getMessage());
+            return;
         }
+        // Lookups are case-insensitive
+        ensureTableObjects("nickserv.reserved_nicks");
     }
 
     /**
@@ -2917,33 +2722,23 @@ public final class Database {
      * @return true if reservation was successful, false if nick already reserved
      */
     public boolean reserveNick(String nick, String account) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+        long currentTime = System.currentTimeMillis() / 1000;
+        try {
+            int rows = queries.update(
                 "INSERT INTO nickserv.reserved_nicks (nickname, account, reserved_time, last_seen) " +
                 "VALUES (LOWER(?), LOWER(?), ?, ?) " +
-                "ON CONFLICT (nickname) DO NOTHING;"
-            )) {
-                long currentTime = System.currentTimeMillis() / 1000;
-                statement.setString(1, nick);
-                statement.setString(2, account);
-                statement.setLong(3, currentTime);
-                statement.setLong(4, currentTime);
-                int rows = statement.executeUpdate();
-                return rows > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                "ON CONFLICT (nickname) DO NOTHING;",
+                statement -> {
+                    statement.setString(1, nick);
+                    statement.setString(2, account);
+                    statement.setLong(3, currentTime);
+                    statement.setLong(4, currentTime);
+                });
+            return rows > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to reserve nick " + nick + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -2953,27 +2748,13 @@ public final class Database {
      * @return true if unreservation was successful
      */
     public boolean unreserveNick(String nick) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);"
-            )) {
-                statement.setString(1, nick);
-                int rows = statement.executeUpdate();
-                return rows > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("DELETE FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);",
+                    statement -> statement.setString(1, nick)) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to unreserve nick " + nick + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -2983,28 +2764,13 @@ public final class Database {
      * @return true if the nickname is reserved
      */
     public boolean isNickReserved(String nick) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT 1 FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);"
-            )) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    return resultset.next();
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT 1 FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);",
+                    statement -> statement.setString(1, nick), resultset -> Boolean.TRUE) != null;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check reserved nick " + nick + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3014,31 +2780,13 @@ public final class Database {
      * @return The account name that owns the reservation, or null if not reserved
      */
     public String getReservedAccount(String nick) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT account FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);"
-            )) {
-                statement.setString(1, nick);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getString("account");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT account FROM nickserv.reserved_nicks WHERE LOWER(nickname) = LOWER(?);",
+                    statement -> statement.setString(1, nick), resultset -> resultset.getString("account"));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read reserved nick " + nick + ": " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
@@ -3048,32 +2796,14 @@ public final class Database {
      * @return List of reserved nicknames
      */
     public ArrayList<String> getReservedNicks(String account) {
-        var list = new ArrayList<String>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT nickname FROM nickserv.reserved_nicks WHERE LOWER(account) = LOWER(?) ORDER BY nickname;"
-            )) {
-                statement.setString(1, account);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        list.add(resultset.getString("nickname"));
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return new ArrayList<>(queries.query(
+                    "SELECT nickname FROM nickserv.reserved_nicks WHERE LOWER(account) = LOWER(?) ORDER BY nickname;",
+                    statement -> statement.setString(1, account), resultset -> resultset.getString("nickname")));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read reserved nicks of " + account + ": " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return list;
     }
 
     /**
@@ -3082,27 +2812,15 @@ public final class Database {
      * @param nick The nickname
      */
     public void updateReservedNickLastSeen(String nick) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE nickserv.reserved_nicks SET last_seen = ? WHERE LOWER(nickname) = LOWER(?);"
-            )) {
-                long currentTime = System.currentTimeMillis() / 1000;
-                statement.setLong(1, currentTime);
-                statement.setString(2, nick);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long currentTime = System.currentTimeMillis() / 1000;
+        try {
+            queries.update("UPDATE nickserv.reserved_nicks SET last_seen = ? WHERE LOWER(nickname) = LOWER(?);",
+                    statement -> {
+                        statement.setLong(1, currentTime);
+                        statement.setString(2, nick);
+                    });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to update reserved nick " + nick + ": " + ex.getMessage());
         }
     }
 
@@ -3113,69 +2831,31 @@ public final class Database {
      * @return Number of reserved nicknames
      */
     public int countReservedNicks(String account) {
-        int count = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT COUNT(*) FROM nickserv.reserved_nicks WHERE LOWER(account) = LOWER(?);"
-            )) {
-                statement.setString(1, account);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        count = resultset.getInt(1);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer count = queries.queryFirst("SELECT COUNT(*) FROM nickserv.reserved_nicks WHERE LOWER(account) = LOWER(?);",
+                    statement -> statement.setString(1, account), resultset -> resultset.getInt(1));
+            return count != null ? count : 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to count reserved nicks of " + account + ": " + ex.getMessage());
+            return 0;
         }
-        return count;
     }
 
     /**
      * Ensures the NickServ failed_attempts table exists in the database
      */
     public void ensureFailedAttemptsTableExists() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                // Create schema if not exists
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("CREATE SCHEMA IF NOT EXISTS nickserv;")) {
-                    statement.executeUpdate();
-                }
-                
-                // Create failed_attempts table for G-Line tracking
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+        try {
+            executeStatements("ensureFailedAttemptsTableExists",
+                    "CREATE SCHEMA IF NOT EXISTS nickserv",
+                    // failed_attempts table for G-Line tracking
                     "CREATE TABLE IF NOT EXISTS nickserv.failed_attempts (" +
                     "userhost VARCHAR(255) PRIMARY KEY, " +
                     "attempts INT NOT NULL DEFAULT 0, " +
                     "last_attempt BIGINT NOT NULL, " +
-                    "glined_until BIGINT DEFAULT 0);"
-                )) {
-                    statement.executeUpdate();
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                    "glined_until BIGINT DEFAULT 0)");
+        } catch (SQLException ex) {
+            LOG.warning("Failed to create nickserv.failed_attempts: " + ex.getMessage());
         }
     }
 
@@ -3186,30 +2866,19 @@ public final class Database {
      * @param currentTime Current Unix timestamp
      */
     public void trackFailedAttempt(String userHost, long currentTime) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+        try {
+            queries.update(
                 "INSERT INTO nickserv.failed_attempts (userhost, attempts, last_attempt) " +
                 "VALUES (?, 1, ?) " +
                 "ON CONFLICT (userhost) DO UPDATE " +
                 "SET attempts = nickserv.failed_attempts.attempts + 1, " +
-                "    last_attempt = EXCLUDED.last_attempt;"
-            )) {
-                statement.setString(1, userHost);
-                statement.setLong(2, currentTime);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                "    last_attempt = EXCLUDED.last_attempt;",
+                statement -> {
+                    statement.setString(1, userHost);
+                    statement.setLong(2, currentTime);
+                });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to track failed attempt of " + userHost + ": " + ex.getMessage());
         }
     }
 
@@ -3220,34 +2889,14 @@ public final class Database {
      * @return Array with [attempts, glined_until] or null if not found
      */
     public long[] getFailedAttempts(String userHost) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT attempts, glined_until FROM nickserv.failed_attempts WHERE userhost = ?;"
-            )) {
-                statement.setString(1, userHost);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        long[] result = new long[2];
-                        result[0] = resultset.getLong("attempts");
-                        result[1] = resultset.getLong("glined_until");
-                        return result;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT attempts, glined_until FROM nickserv.failed_attempts WHERE userhost = ?;",
+                    statement -> statement.setString(1, userHost),
+                    resultset -> new long[] {resultset.getLong("attempts"), resultset.getLong("glined_until")});
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read failed attempts of " + userHost + ": " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
@@ -3257,26 +2906,14 @@ public final class Database {
      * @param glineUntil Unix timestamp when G-Line expires
      */
     public void setGLineExpiration(String userHost, long glineUntil) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE nickserv.failed_attempts SET glined_until = ? WHERE userhost = ?;"
-            )) {
-                statement.setLong(1, glineUntil);
-                statement.setString(2, userHost);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("UPDATE nickserv.failed_attempts SET glined_until = ? WHERE userhost = ?;",
+                    statement -> {
+                        statement.setLong(1, glineUntil);
+                        statement.setString(2, userHost);
+                    });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to set G-Line expiration of " + userHost + ": " + ex.getMessage());
         }
     }
     
@@ -3285,25 +2922,11 @@ public final class Database {
      * Called when user successfully authenticates
      */
     public void clearFailedAttempts(String userHost) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM nickserv.failed_attempts WHERE userhost = ?;"
-            )) {
-                statement.setString(1, userHost);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM nickserv.failed_attempts WHERE userhost = ?;",
+                    statement -> statement.setString(1, userHost));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to clear failed attempts of " + userHost + ": " + ex.getMessage());
         }
     }
     
@@ -3313,23 +2936,10 @@ public final class Database {
      * @param channel The channel name to add
      */
     protected void addLaxChannel(String channel) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("INSERT INTO spamscan.lax_channels (channel) VALUES (?);")) {
-                statement.setString(1, channel);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("INSERT INTO spamscan.lax_channels (channel) VALUES (?);", statement -> statement.setString(1, channel));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add lax channel " + channel + ": " + ex.getMessage());
         }
     }
 
@@ -3339,23 +2949,10 @@ public final class Database {
      * @param channel The channel name to remove
      */
     protected void removeLaxChannel(String channel) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("DELETE FROM spamscan.lax_channels WHERE LOWER(channel) = LOWER(?);")) {
-                statement.setString(1, channel);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM spamscan.lax_channels WHERE LOWER(channel) = LOWER(?);", statement -> statement.setString(1, channel));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove lax channel " + channel + ": " + ex.getMessage());
         }
     }
 
@@ -3366,26 +2963,13 @@ public final class Database {
      * @return true if lax spam detection is enabled for this channel
      */
     protected boolean isLaxChannel(String channel) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT 1 FROM spamscan.lax_channels WHERE LOWER(channel) = LOWER(?);")) {
-                statement.setString(1, channel);
-                try (var resultset = statement.executeQuery()) {
-                    return resultset.next();
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT 1 FROM spamscan.lax_channels WHERE LOWER(channel) = LOWER(?);",
+                    statement -> statement.setString(1, channel), resultset -> Boolean.TRUE) != null;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check lax channel " + channel + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3394,29 +2978,13 @@ public final class Database {
      * @return List of channel names
      */
     protected ArrayList<String> getLaxChannels() {
-        var channels = new ArrayList<String>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement("SELECT channel FROM spamscan.lax_channels")) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        channels.add(resultset.getString("channel"));
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return new ArrayList<>(queries.query("SELECT channel FROM spamscan.lax_channels", QueryExecutor.Binder.NONE,
+                    resultset -> resultset.getString("channel")));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read lax channels: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return channels;
     }
     
     /**
@@ -3427,79 +2995,63 @@ public final class Database {
      * @return The current kill count for this user@host
      */
     protected int trackKillForGLine(String userHost, long currentTime) {
-        int killCount = 0;
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection()) {
-                // First try to insert or update
-                try (var statement = conn.prepareStatement(
-                    "INSERT INTO spamscan.kill_tracking (userhost, kill_count, first_kill, last_kill) " +
-                    "VALUES (?, 1, ?, ?) " +
-                    "ON CONFLICT (userhost) DO UPDATE " +
-                    "SET kill_count = spamscan.kill_tracking.kill_count + 1, " +
-                    "    last_kill = EXCLUDED.last_kill " +
-                    "RETURNING kill_count;"
-                )) {
+        try {
+            Integer killCount = queries.queryFirst(
+                "INSERT INTO spamscan.kill_tracking (userhost, kill_count, first_kill, last_kill) " +
+                "VALUES (?, 1, ?, ?) " +
+                "ON CONFLICT (userhost) DO UPDATE " +
+                "SET kill_count = spamscan.kill_tracking.kill_count + 1, " +
+                "    last_kill = EXCLUDED.last_kill " +
+                "RETURNING kill_count;",
+                statement -> {
                     statement.setString(1, userHost);
                     statement.setLong(2, currentTime);
                     statement.setLong(3, currentTime);
-                    try (var resultset = statement.executeQuery()) {
+                },
+                resultset -> resultset.getInt("kill_count"));
+            return killCount != null ? killCount : 0;
+        } catch (SQLException ex) {
+            if (ex.getMessage() == null || !ex.getMessage().contains("no unique or exclusion constraint")) {
+                LOG.warning("Failed to track kill: " + ex.getMessage());
+                return 0;
+            }
+        }
+        // ON CONFLICT fails without the unique constraint, do it by hand
+        try {
+            return queries.execute("trackKillForGLine", conn -> {
+                try (var checkStmt = conn.prepareStatement(
+                    "SELECT kill_count FROM spamscan.kill_tracking WHERE userhost = ?;"
+                )) {
+                    checkStmt.setString(1, userHost);
+                    try (var resultset = checkStmt.executeQuery()) {
                         if (resultset.next()) {
-                            killCount = resultset.getInt("kill_count");
-                        }
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                // If ON CONFLICT fails due to missing constraint, try manual approach
-                if (ex.getMessage().contains("no unique or exclusion constraint")) {
-                    try (Connection conn2 = getConnection()) {
-                        // Check if entry exists
-                        try (var checkStmt = conn2.prepareStatement(
-                            "SELECT kill_count FROM spamscan.kill_tracking WHERE userhost = ?;"
-                        )) {
-                            checkStmt.setString(1, userHost);
-                            try (var resultset = checkStmt.executeQuery()) {
-                                if (resultset.next()) {
-                                    // Update existing entry
-                                    killCount = resultset.getInt("kill_count") + 1;
-                                    try (var updateStmt = conn2.prepareStatement(
-                                        "UPDATE spamscan.kill_tracking SET kill_count = ?, last_kill = ? WHERE userhost = ?;"
-                                    )) {
-                                        updateStmt.setInt(1, killCount);
-                                        updateStmt.setLong(2, currentTime);
-                                        updateStmt.setString(3, userHost);
-                                        updateStmt.executeUpdate();
-                                    }
-                                } else {
-                                    // Insert new entry
-                                    try (var insertStmt = conn2.prepareStatement(
-                                        "INSERT INTO spamscan.kill_tracking (userhost, kill_count, first_kill, last_kill) VALUES (?, 1, ?, ?);"
-                                    )) {
-                                        insertStmt.setString(1, userHost);
-                                        insertStmt.setLong(2, currentTime);
-                                        insertStmt.setLong(3, currentTime);
-                                        insertStmt.executeUpdate();
-                                        killCount = 1;
-                                    }
-                                }
+                            int killCount = resultset.getInt("kill_count") + 1;
+                            try (var updateStmt = conn.prepareStatement(
+                                "UPDATE spamscan.kill_tracking SET kill_count = ?, last_kill = ? WHERE userhost = ?;"
+                            )) {
+                                updateStmt.setInt(1, killCount);
+                                updateStmt.setLong(2, currentTime);
+                                updateStmt.setString(3, userHost);
+                                updateStmt.executeUpdate();
                             }
+                            return killCount;
                         }
-                        break;
-                    } catch (SQLException ex2) {
-                        LOG.warning("Failed to track kill: " + ex2.getMessage());
                     }
-                } else if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
                 }
-            }
-            tries++;
+                try (var insertStmt = conn.prepareStatement(
+                    "INSERT INTO spamscan.kill_tracking (userhost, kill_count, first_kill, last_kill) VALUES (?, 1, ?, ?);"
+                )) {
+                    insertStmt.setString(1, userHost);
+                    insertStmt.setLong(2, currentTime);
+                    insertStmt.setLong(3, currentTime);
+                    insertStmt.executeUpdate();
+                }
+                return 1;
+            });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to track kill: " + ex.getMessage());
+            return 0;
         }
-        return killCount;
     }
     
     /**
@@ -3508,25 +3060,11 @@ public final class Database {
      * @param userHost The user@host that was G-Lined
      */
     protected void markAsGLined(String userHost) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE spamscan.kill_tracking SET glined = TRUE WHERE userhost = ?;"
-            )) {
-                statement.setString(1, userHost);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("UPDATE spamscan.kill_tracking SET glined = TRUE WHERE userhost = ?;",
+                    statement -> statement.setString(1, userHost));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to mark " + userHost + " as G-Lined: " + ex.getMessage());
         }
     }
 
@@ -3537,25 +3075,11 @@ public final class Database {
      * @param userHost The user@host to clear
      */
     protected void clearKillTracking(String userHost) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM spamscan.kill_tracking WHERE userhost = ?;"
-            )) {
-                statement.setString(1, userHost);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM spamscan.kill_tracking WHERE userhost = ?;",
+                    statement -> statement.setString(1, userHost));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to clear kill tracking of " + userHost + ": " + ex.getMessage());
         }
     }
     
@@ -3566,31 +3090,14 @@ public final class Database {
      * @return true if already G-Lined
      */
     protected boolean isGLined(String userHost) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT glined FROM spamscan.kill_tracking WHERE userhost = ?;"
-            )) {
-                statement.setString(1, userHost);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getBoolean("glined");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Boolean glined = queries.queryFirst("SELECT glined FROM spamscan.kill_tracking WHERE userhost = ?;",
+                    statement -> statement.setString(1, userHost), resultset -> resultset.getBoolean("glined"));
+            return Boolean.TRUE.equals(glined);
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check G-Line of " + userHost + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
     
     /**
@@ -3599,25 +3106,11 @@ public final class Database {
      */
     protected void cleanupOldKillTracking() {
         long sevenDaysAgo = (System.currentTimeMillis() / 1000) - (7 * 24 * 60 * 60);
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM spamscan.kill_tracking WHERE last_kill < ? AND glined = FALSE;"
-            )) {
-                statement.setLong(1, sevenDaysAgo);
-                statement.executeUpdate();
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("DELETE FROM spamscan.kill_tracking WHERE last_kill < ? AND glined = FALSE",
+                    statement -> statement.setLong(1, sevenDaysAgo));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to clean up kill tracking: " + ex.getMessage());
         }
     }
     
@@ -3626,25 +3119,11 @@ public final class Database {
      * Clears all tracking entries that haven't resulted in a G-Line
      */
     protected void resetKillTracking() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM spamscan.kill_tracking WHERE glined = FALSE;"
-            )) {
-                int deleted = statement.executeUpdate();
-                LOG.info("Reset kill tracking: removed " + deleted + " entries");
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            int deleted = queries.update("DELETE FROM spamscan.kill_tracking WHERE glined = FALSE", QueryExecutor.Binder.NONE);
+            LOG.info("Reset kill tracking: removed " + deleted + " entries");
+        } catch (SQLException ex) {
+            LOG.warning("Failed to reset kill tracking: " + ex.getMessage());
         }
     }
 
@@ -3657,30 +3136,7 @@ public final class Database {
      * @return true if successful
      */
     public boolean setChanUserFlags(long userId, long chanId, int flags) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE chanserv.chanusers SET flags = ?, changetime = ? WHERE userid = ? AND channelid = ?"
-            )) {
-                statement.setInt(1, flags);
-                statement.setLong(2, System.currentTimeMillis() / 1000);
-                statement.setLong(3, userId);
-                statement.setLong(4, chanId);
-                int updated = statement.executeUpdate();
-                return updated > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
-        }
-        return false;
+        return updateChanUserFlags(userId, chanId, flags);
     }
 
     /**
@@ -3692,35 +3148,25 @@ public final class Database {
      * @return true if successful
      */
     public boolean addChanUser(long userId, long chanId, int flags) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            queries.update(
                 "INSERT INTO chanserv.chanusers (userid, channelid, flags, changetime, usetime, info) " +
                 "VALUES (?, ?, ?, ?, ?, ?) " +
-                "ON CONFLICT (userid, channelid) DO UPDATE SET flags = EXCLUDED.flags, changetime = EXCLUDED.changetime"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setLong(1, userId);
-                statement.setLong(2, chanId);
-                statement.setInt(3, flags);
-                statement.setLong(4, now);
-                statement.setLong(5, now);
-                statement.setString(6, "ChanServ");
-                statement.executeUpdate();
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                "ON CONFLICT (userid, channelid) DO UPDATE SET flags = EXCLUDED.flags, changetime = EXCLUDED.changetime",
+                statement -> {
+                    statement.setLong(1, userId);
+                    statement.setLong(2, chanId);
+                    statement.setInt(3, flags);
+                    statement.setLong(4, now);
+                    statement.setLong(5, now);
+                    statement.setString(6, "ChanServ");
+                });
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add channel user: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3731,28 +3177,16 @@ public final class Database {
      * @return true if successful
      */
     public boolean deleteChanUser(long userId, long chanId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM chanserv.chanusers WHERE userid = ? AND channelid = ?"
-            )) {
-                statement.setLong(1, userId);
-                statement.setLong(2, chanId);
-                int deleted = statement.executeUpdate();
-                return deleted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("DELETE FROM chanserv.chanusers WHERE userid = ? AND channelid = ?",
+                    statement -> {
+                        statement.setLong(1, userId);
+                        statement.setLong(2, chanId);
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to delete channel user: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3764,71 +3198,69 @@ public final class Database {
      * @return true if successful
      */
     public boolean updateChanUserFlags(long userId, long chanId, int flags) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE chanserv.chanusers SET flags = ?, changetime = ? WHERE userid = ? AND channelid = ?"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setInt(1, flags);
-                statement.setLong(2, now);
-                statement.setLong(3, userId);
-                statement.setLong(4, chanId);
-                int updated = statement.executeUpdate();
-                return updated > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return queries.update("UPDATE chanserv.chanusers SET flags = ?, changetime = ? WHERE userid = ? AND channelid = ?",
+                    statement -> {
+                        statement.setInt(1, flags);
+                        statement.setLong(2, now);
+                        statement.setLong(3, userId);
+                        statement.setLong(4, chanId);
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to update channel user flags: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
      * Gets all users on a channel's access list
      *
      * @param chanId The channel ID
-     * @return List of [username, flags] arrays
-     */
-    public ArrayList<String[]> getChanUsers(long chanId) {
-        ArrayList<String[]> result = new ArrayList<>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT u.username, cu.flags FROM chanserv.chanusers cu " +
+     * @return the entries, highest flags first
+     */
+    public ArrayList<ChanAccess> getChanUsers(long chanId) {
+        try {
+            return new ArrayList<>(queries.query(
+                "SELECT LOWER(c.name) AS channel, u.username, cu.flags FROM chanserv.chanusers cu " +
                 "JOIN chanserv.users u ON cu.userid = u.id " +
-                "WHERE cu.channelid = ? ORDER BY cu.flags DESC"
-            )) {
-                statement.setLong(1, chanId);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        String[] user = new String[2];
-                        user[0] = resultset.getString("username");
-                        user[1] = String.valueOf(resultset.getInt("flags"));
-                        result.add(user);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+                "JOIN chanserv.channels c ON cu.channelid = c.id " +
+                "WHERE cu.channelid = ? ORDER BY cu.flags DESC",
+                statement -> statement.setLong(1, chanId), Database::readChanAccess));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read channel users: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Gets the access entries of many channels with one query
+     * Used at end of burst instead of one getChanUser() call per
+     * channel and account.
+     *
+     * @param channels Channel names, lower case
+     * @param flagMask Only entries with at least one of these flags
+     * @return the entries
+     */
+    public ArrayList<ChanAccess> getChanUserRights(Collection<String> channels, int flagMask) {
+        if (channels.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(queries.query(
+                "SELECT LOWER(c.name) AS channel, u.username, cu.flags FROM chanserv.chanusers cu " +
+                "JOIN chanserv.users u ON cu.userid = u.id " +
+                "JOIN chanserv.channels c ON cu.channelid = c.id " +
+                "WHERE LOWER(c.name) = ANY(?) AND (cu.flags & ?) <> 0",
+                statement -> {
+                    statement.setArray(1, statement.getConnection().createArrayOf("text", channels.toArray()));
+                    statement.setInt(2, flagMask);
+                },
+                Database::readChanAccess));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read channel user rights: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return result;
     }
 
     /**
@@ -3838,31 +3270,13 @@ public final class Database {
      * @return The username or null if not found
      */
     public String getUsernameById(long userId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT username FROM " + USER_TABLE + " WHERE id = ?"
-            )) {
-                statement.setLong(1, userId);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getString("username");
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT username FROM " + USER_TABLE + " WHERE id = ?",
+                    statement -> statement.setLong(1, userId), resultset -> resultset.getString("username"));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read username of " + userId + ": " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
@@ -3874,49 +3288,40 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean registerChannel(String channelName, long ownerId, long timestamp) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "INSERT INTO chanserv.channels " +
-                "(id, name, flags, forcemodes, denymodes, chanlimit, autolimit, banstyle, created, lastactive, statsreset, banduration, founder, addedby, suspendby, suspendtime, chantype, totaljoins, tripjoins, maxusers, tripusers) " +
-                "VALUES (?, ?, 0, 8707, 0, 0, 0, 0, ?, ?, ?, 0, ?, ?, 0, 0, 0, 0, 0, 0, 0)"
-            )) {
-                long newId;
-                            try (var seqStmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) + 1 FROM chanserv.channels")) {
-                    try (var rs = seqStmt.executeQuery()) {
-                        rs.next();
-                        newId = rs.getLong(1);
-                    }
+        try {
+            long newId = queries.execute("registerChannel", conn -> {
+                long id;
+                try (var seqStmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) + 1 FROM chanserv.channels");
+                     var rs = seqStmt.executeQuery()) {
+                    rs.next();
+                    id = rs.getLong(1);
                 }
-
-                statement.setLong(1, newId);    // id
-                statement.setString(2, channelName); // name
-                statement.setLong(3, timestamp); // created
-                statement.setLong(4, timestamp); // lastactive
-                statement.setLong(5, timestamp); // statsreset
-                statement.setLong(6, ownerId);   // founder
-                statement.setLong(7, ownerId);   // addedby
-                statement.executeUpdate();
-                
-                // Add owner with full permissions
-                long chanId = Long.parseLong(getChannel("id", channelName));
-                int ownerFlags = Userflags.QCUFlag.OWNER.value | Userflags.QCUFlag.MASTER.value | 
-                                 Userflags.QCUFlag.OP.value | Userflags.QCUFlag.AUTOOP.value;
-                addChanUser(ownerId, chanId, ownerFlags);
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
+                try (var statement = conn.prepareStatement(
+                        "INSERT INTO chanserv.channels " +
+                        "(id, name, flags, forcemodes, denymodes, chanlimit, autolimit, banstyle, created, lastactive, statsreset, banduration, founder, addedby, suspendby, suspendtime, chantype, totaljoins, tripjoins, maxusers, tripusers) " +
+                        "VALUES (?, ?, 0, 8707, 0, 0, 0, 0, ?, ?, ?, 0, ?, ?, 0, 0, 0, 0, 0, 0, 0)")) {
+                    statement.setLong(1, id);    // id
+                    statement.setString(2, channelName); // name
+                    statement.setLong(3, timestamp); // created
+                    statement.setLong(4, timestamp); // lastactive
+                    statement.setLong(5, timestamp); // statsreset
+                    statement.setLong(6, ownerId);   // founder
+                    statement.setLong(7, ownerId);   // addedby
+                    statement.executeUpdate();
                 }
-            }
-            tries++;
+                return id;
+            });
+            channelRegistry.put(new ChannelRegistry.Registration(newId, channelName, timestamp, 0, 8707, 0, 0, 0, null));
+
+            // Add owner with full permissions
+            int ownerFlags = Userflags.QCUFlag.OWNER.value | Userflags.QCUFlag.MASTER.value | 
+                             Userflags.QCUFlag.OP.value | Userflags.QCUFlag.AUTOOP.value;
+            addChanUser(ownerId, newId, ownerFlags);
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to register channel " + channelName + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3926,39 +3331,16 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean dropChannel(long chanId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                // Delete all channel users first
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                    "DELETE FROM chanserv.chanusers WHERE channelid = ?"
-                )) {
-                    statement.setLong(1, chanId);
-                    statement.executeUpdate();
-                }
-                
-                // Delete the channel
-                try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                    "DELETE FROM chanserv.channels WHERE id = ?"
-                )) {
-                    statement.setLong(1, chanId);
-                    statement.executeUpdate();
-                }
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            // Channel users first
+            queries.update("DELETE FROM chanserv.chanusers WHERE channelid = ?", statement -> statement.setLong(1, chanId));
+            queries.update("DELETE FROM chanserv.channels WHERE id = ?", statement -> statement.setLong(1, chanId));
+            channelRegistry.remove(chanId);
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to drop channel " + chanId + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -3966,30 +3348,14 @@ public final class Database {
      * @return true if at least one admin exists
      */
     public boolean hasAdminUser() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT COUNT(*) FROM chanserv.users WHERE (flags & 512) = 512"
-            )) {
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
-                        return resultset.getInt(1) > 0;
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            Integer count = queries.queryFirst("SELECT COUNT(*) FROM chanserv.users WHERE (flags & 512) = 512",
+                    QueryExecutor.Binder.NONE, resultset -> resultset.getInt(1));
+            return count != null && count > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to check for admin users: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4000,30 +3366,21 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean suspendChannel(long chanId, String reason) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE chanserv.channels SET suspendby = ?, suspendreason = ?, suspendtime = ? WHERE id = ?"
-            )) {
-                statement.setLong(1, 1); // System suspension
-                statement.setString(2, reason);
-                statement.setLong(3, System.currentTimeMillis() / 1000);
-                statement.setLong(4, chanId);
-                statement.executeUpdate();
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long suspendTime = System.currentTimeMillis() / 1000;
+        try {
+            queries.update("UPDATE chanserv.channels SET suspendby = ?, suspendreason = ?, suspendtime = ? WHERE id = ?",
+                    statement -> {
+                        statement.setLong(1, 1); // System suspension
+                        statement.setString(2, reason);
+                        statement.setLong(3, suspendTime);
+                        statement.setLong(4, chanId);
+                    });
+            channelRegistry.suspend(chanId, 1, suspendTime, reason);
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to suspend channel " + chanId + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4033,27 +3390,15 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean unsuspendChannel(long chanId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "UPDATE chanserv.channels SET suspendby = 0, suspendreason = NULL, suspendtime = 0 WHERE id = ?"
-            )) {
-                statement.setLong(1, chanId);
-                statement.executeUpdate();
-                return true;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            queries.update("UPDATE chanserv.channels SET suspendby = 0, suspendreason = NULL, suspendtime = 0 WHERE id = ?",
+                    statement -> statement.setLong(1, chanId));
+            channelRegistry.suspend(chanId, 0, 0, null);
+            return true;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to unsuspend channel " + chanId + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4064,54 +3409,41 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean registerUser(String username, String password, String email) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                int index = getIndex() + 1;
-                long now = getCurrentTime();
-                String hashedPassword = hashPassword(password, now);
-                
-                try (Connection conn = getConnection();
-                     var statement = conn.prepareStatement(
-                        "INSERT INTO chanserv.users (username, created, lastauth, lastemailchng, flags, pwd, generated_pwd, email, lastemail, lastpasschng, id, language, suspendby, suspendexp, suspendtime, lockuntil, lastuserhost, suspendreason, comment, info) " +
-                        "VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)")) {
-
-                    statement.setString(1, username);
-                    statement.setLong(2, now);
-                    statement.setLong(3, 0); // lastauth
-                    statement.setLong(4, 0); // lastemailchng
-                    statement.setInt(5, 4);  // default flags
-                    statement.setString(6, hashedPassword);
-                    statement.setString(7, password); // generated_pwd - plain password
-                    statement.setString(8, email);
-                    statement.setString(9, ""); // lastemail
-                    statement.setLong(10, 0);  // lastpasschng
-                    statement.setInt(11, index); // id
-                    statement.setInt(12, 0); // language
-                    statement.setInt(13, 0); // suspendby
-                    statement.setInt(14, 0); // suspendexp
-                    statement.setInt(15, 0); // suspendtime
-                    statement.setInt(16, 0); // lockuntil
-                    statement.setString(17, ""); // lastuserhost
-                    statement.setString(18, ""); // suspendreason
-                    statement.setString(19, ""); // comment
-                    statement.setString(20, ""); // info
-
-                    int inserted = statement.executeUpdate();
-                    return inserted > 0;
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        int index = getIndex() + 1;
+        long now = getCurrentTime();
+        String hashedPassword = hashPassword(password, now);
+        try {
+            return queries.update(
+                    "INSERT INTO chanserv.users (username, created, lastauth, lastemailchng, flags, pwd, generated_pwd, email, lastemail, lastpasschng, id, language, suspendby, suspendexp, suspendtime, lockuntil, lastuserhost, suspendreason, comment, info) " +
+                    "VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)",
+                    statement -> {
+                        statement.setString(1, username);
+                        statement.setLong(2, now);
+                        statement.setLong(3, 0); // lastauth
+                        statement.setLong(4, 0); // lastemailchng
+                        statement.setInt(5, 4);  // default flags
+                        statement.setString(6, hashedPassword);
+                        statement.setString(7, password); // generated_pwd - plain password
+                        statement.setString(8, email);
+                        statement.setString(9, ""); // lastemail
+                        statement.setLong(10, 0);  // lastpasschng
+                        statement.setInt(11, index); // id
+                        statement.setInt(12, 0); // language
+                        statement.setInt(13, 0); // suspendby
+                        statement.setInt(14, 0); // suspendexp
+                        statement.setInt(15, 0); // suspendtime
+                        statement.setInt(16, 0); // lockuntil
+                        statement.setString(17, ""); // lastuserhost
+                        statement.setString(18, ""); // suspendreason
+                        statement.setString(19, ""); // comment
+                        statement.setString(20, ""); // info
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to register user " + username + ": " + ex.getMessage());
+            return false;
+        } finally {
+            accountCache.invalidate(username);
         }
-        return false;
     }
 
     /**
@@ -4143,14 +3475,14 @@ public final class Database {
      * This method can be called manually to migrate all remaining plaintext passwords
      */
     public void migratePasswordsToSecure() {
-        int tries = 0;
-        int migrated = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var selectStmt = conn.prepareStatement(
-                    "SELECT id, username, password, created FROM chanserv.users WHERE password IS NOT NULL AND pwd IS NULL")) {
-                try (var resultSet = selectStmt.executeQuery()) {
+        try {
+            int migrated = queries.execute("migratePasswordsToSecure", conn -> {
+                int count = 0;
+                try (var selectStmt = conn.prepareStatement(
+                        "SELECT id, username, password, created FROM chanserv.users WHERE password IS NOT NULL AND pwd IS NULL");
+                     var resultSet = selectStmt.executeQuery();
+                     var updateStmt = conn.prepareStatement(
+                        "UPDATE chanserv.users SET pwd = ?, password = NULL WHERE id = ?")) {
                     while (resultSet.next()) {
                         long id = resultSet.getLong("id");
                         String oldPassword = resultSet.getString("password");
@@ -4159,30 +3491,21 @@ public final class Database {
                         if (oldPassword != null && !oldPassword.isEmpty()) {
                             String hashedPassword = hashPassword(oldPassword, created);
                             if (hashedPassword != null) {
-                                try (var updateStmt = conn.prepareStatement(
-                                        "UPDATE chanserv.users SET pwd = ?, password = NULL WHERE id = ?")) {
-                                    updateStmt.setString(1, hashedPassword);
-                                    updateStmt.setLong(2, id);
-                                    updateStmt.executeUpdate();
-                                    migrated++;
-                                }
+                                updateStmt.setString(1, hashedPassword);
+                                updateStmt.setLong(2, id);
+                                updateStmt.executeUpdate();
+                                count++;
                             }
                         }
                     }
                 }
-                if (migrated > 0) {
-                    LOG.info("Migrated " + migrated + " passwords to secure format");
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.warning("Failed to migrate passwords: " + ex.getMessage());
-                }
+                return count;
+            });
+            if (migrated > 0) {
+                LOG.info("Migrated " + migrated + " passwords to secure format");
             }
-            tries++;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to migrate passwords: " + ex.getMessage());
         }
     }
 
@@ -4193,16 +3516,16 @@ public final class Database {
      * @return true if password matches, false otherwise
      */
     public boolean authenticateUser(String username, String password) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT pwd, new_pwd, password, created FROM chanserv.users WHERE LOWER(username) = LOWER(?) LIMIT 1"
-            )) {
-                statement.setString(1, username);
-                try (var resultset = statement.executeQuery()) {
-                    if (resultset.next()) {
+        try {
+            return queries.execute("authenticateUser", conn -> {
+                try (var statement = conn.prepareStatement(
+                    "SELECT pwd, new_pwd, password, created FROM chanserv.users WHERE LOWER(username) = LOWER(?) LIMIT 1"
+                )) {
+                    statement.setString(1, username);
+                    try (var resultset = statement.executeQuery()) {
+                        if (!resultset.next()) {
+                            return false;
+                        }
                         String storedHash = resultset.getString("pwd");
                         String newHash = resultset.getString("new_pwd");
                         String oldPassword = resultset.getString("password");
@@ -4228,7 +3551,7 @@ public final class Database {
                             String inputHash = hashPassword(password, created);
                             return inputHash != null && inputHash.equals(storedHash);
                         }
-                        
+
                         // Fallback to old password (for migration)
                         if (oldPassword != null && password.equals(oldPassword)) {
                             // Auto-migrate this password on successful auth and delete plaintext
@@ -4244,20 +3567,14 @@ public final class Database {
                             }
                             return true;
                         }
+                        return false;
                     }
                 }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+            });
+        } catch (SQLException ex) {
+            LOG.warning("Failed to authenticate " + username + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4267,32 +3584,19 @@ public final class Database {
      * @return Number of plaintext passwords deleted
      */
     public int deleteAllPlaintextPasswords() {
-        int tries = 0;
-        int deleted = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                    "UPDATE chanserv.users SET password = NULL WHERE password IS NOT NULL AND pwd IS NOT NULL")) {
-                deleted = statement.executeUpdate();
-                if (deleted > 0) {
-                    LOG.warning("Deleted " + deleted + " plaintext passwords from database (users already have hashed passwords)");
-                } else {
-                    LOG.info("No plaintext passwords found - database is clean");
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to delete plaintext passwords: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            int deleted = queries.update("UPDATE chanserv.users SET password = NULL WHERE password IS NOT NULL AND pwd IS NOT NULL",
+                    QueryExecutor.Binder.NONE);
+            if (deleted > 0) {
+                LOG.warning("Deleted " + deleted + " plaintext passwords from database (users already have hashed passwords)");
+            } else {
+                LOG.info("No plaintext passwords found - database is clean");
+            }
+            return deleted;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to delete plaintext passwords: " + ex.getMessage());
+            return 0;
         }
-        return deleted;
     }
 
     /**
@@ -4302,60 +3606,35 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean updateUserPassword(String username, String newPassword) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try {
-                // Get user's created timestamp for salt
-                long created = 0;
-                try (Connection conn = getConnection();
-                     var selectStmt = conn.prepareStatement(
-                    "SELECT created FROM chanserv.users WHERE username = ?"
-                )) {
-                    selectStmt.setString(1, username);
-                    try (var rs = selectStmt.executeQuery()) {
-                        if (rs.next()) {
-                            created = rs.getLong("created");
-                        }
-                    }
-                }
-                
-                if (created == 0) {
-                    LOG.warning("Could not find user for password update: " + username);
-                    return false;
-                }
-                
-                // Hash the new password
-                String hashedPassword = hashPassword(newPassword, created);
-                
-                // Generate reset token
-                String resetToken = java.util.UUID.randomUUID().toString().replace("-", "");
-                
-                // Store new password in new_pwd (keeps old pwd active until new one is used)
-                try (Connection conn = getConnection();
-                     var updateStmt = conn.prepareStatement(
-                    "UPDATE chanserv.users SET new_pwd = ?, generated_pwd = ?, reset_token = ?, password = NULL WHERE username = ?"
-                )) {
-                    updateStmt.setString(1, hashedPassword);
-                    updateStmt.setString(2, newPassword); // Store plain password in generated_pwd
-                    updateStmt.setString(3, resetToken);
-                    updateStmt.setString(4, username);
-                    updateStmt.executeUpdate();
-                    LOG.info("Password update pending for user: " + username + " (reset token: " + resetToken + ")");
-                    return true;
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to update password: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            // Get user's created timestamp for salt
+            Long created = queries.queryFirst("SELECT created FROM chanserv.users WHERE username = ?",
+                    statement -> statement.setString(1, username), resultset -> resultset.getLong("created"));
+            if (created == null || created == 0) {
+                LOG.warning("Could not find user for password update: " + username);
+                return false;
+            }
+
+            // Hash the new password
+            String hashedPassword = hashPassword(newPassword, created);
+
+            // Generate reset token
+            String resetToken = java.util.UUID.randomUUID().toString().replace("-", "");
+
+            // Store new password in new_pwd (keeps old pwd active until new one is used)
+            queries.update("UPDATE chanserv.users SET new_pwd = ?, generated_pwd = ?, reset_token = ?, password = NULL WHERE username = ?",
+                    statement -> {
+                        statement.setString(1, hashedPassword);
+                        statement.setString(2, newPassword); // Store plain password in generated_pwd
+                        statement.setString(3, resetToken);
+                        statement.setString(4, username);
+                    });
+            LOG.info("Password update pending for user: " + username + " (reset token: " + resetToken + ")");
+            return true;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to update password: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4364,31 +3643,13 @@ public final class Database {
      * @return Reset token or null if not found
      */
     public String getResetToken(String username) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var stmt = conn.prepareStatement(
-                    "SELECT reset_token FROM chanserv.users WHERE username = ?"
-            )) {
-                stmt.setString(1, username);
-                try (var rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getString("reset_token");
-                    }
-                }
-                return null;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to get reset token: " + ex.getMessage());
-                }
-            }
-            tries++;
+        try {
+            return queries.queryFirst("SELECT reset_token FROM chanserv.users WHERE username = ?",
+                    statement -> statement.setString(1, username), resultset -> resultset.getString("reset_token"));
+        } catch (SQLException ex) {
+            LOG.severe("Failed to get reset token: " + ex.getMessage());
+            return null;
         }
-        return null;
     }
 
     /**
@@ -4398,35 +3659,23 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean resetPasswordWithToken(String username, String token) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var stmt = conn.prepareStatement(
-                    "UPDATE chanserv.users SET new_pwd = NULL, reset_token = NULL, generated_pwd = NULL " +
-                    "WHERE username = ? AND reset_token = ?"
-            )) {
-                stmt.setString(1, username);
-                stmt.setString(2, token);
-                int updated = stmt.executeUpdate();
-                if (updated > 0) {
-                    LOG.info("Password change cancelled for user: " + username);
-                    return true;
-                } else {
-                    LOG.warning("Invalid reset token for user: " + username);
-                    return false;
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to reset password: " + ex.getMessage());
-                }
+        try {
+            int updated = queries.update("UPDATE chanserv.users SET new_pwd = NULL, reset_token = NULL, generated_pwd = NULL " +
+                    "WHERE username = ? AND reset_token = ?",
+                    statement -> {
+                        statement.setString(1, username);
+                        statement.setString(2, token);
+                    });
+            if (updated > 0) {
+                LOG.info("Password change cancelled for user: " + username);
+                return true;
             }
-            tries++;
+            LOG.warning("Invalid reset token for user: " + username);
+            return false;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to reset password: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4436,34 +3685,20 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean clearPendingPasswordChange(String username) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var stmt = conn.prepareStatement(
-                    "UPDATE chanserv.users SET new_pwd = NULL, reset_token = NULL, generated_pwd = NULL " +
-                    "WHERE LOWER(username) = LOWER(?)"
-            )) {
-                stmt.setString(1, username);
-                int updated = stmt.executeUpdate();
-                if (updated > 0) {
-                    LOG.info("Pending password change cleared for user: " + username);
-                    return true;
-                } else {
-                    LOG.warning("User not found for clearing password change: " + username);
-                    return false;
-                }
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to clear pending password change: " + ex.getMessage());
-                }
+        try {
+            int updated = queries.update("UPDATE chanserv.users SET new_pwd = NULL, reset_token = NULL, generated_pwd = NULL " +
+                    "WHERE LOWER(username) = LOWER(?)",
+                    statement -> statement.setString(1, username));
+            if (updated > 0) {
+                LOG.info("Pending password change cleared for user: " + username);
+                return true;
             }
-            tries++;
+            LOG.warning("User not found for clearing password change: " + username);
+            return false;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to clear pending password change: " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4472,27 +3707,16 @@ public final class Database {
      * @return true if successful, false otherwise
      */
     public boolean deleteUser(String username) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM chanserv.users WHERE username = ?"
-            )) {
-                statement.setString(1, username);
-                int deleted = statement.executeUpdate();
-                return deleted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            int deleted = queries.update("DELETE FROM chanserv.users WHERE username = ?",
+                    statement -> statement.setString(1, username));
+            return deleted > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to delete user " + username + ": " + ex.getMessage());
+            return false;
+        } finally {
+            accountCache.invalidate(username);
         }
-        return false;
     }
 
     /**
@@ -4504,32 +3728,20 @@ public final class Database {
      * @return true if successful
      */
     public boolean addGline(String mask, String reason, String setby, long expiresIn) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "INSERT INTO operserv.glines (mask, reason, setby, created, expires) VALUES (?, ?, ?, ?, ?)"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setString(1, mask);
-                statement.setString(2, reason);
-                statement.setString(3, setby);
-                statement.setLong(4, now);
-                statement.setLong(5, expiresIn > 0 ? now + expiresIn : 0);
-                int inserted = statement.executeUpdate();
-                return inserted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return queries.update("INSERT INTO operserv.glines (mask, reason, setby, created, expires) VALUES (?, ?, ?, ?, ?)",
+                    statement -> {
+                        statement.setString(1, mask);
+                        statement.setString(2, reason);
+                        statement.setString(3, setby);
+                        statement.setLong(4, now);
+                        statement.setLong(5, expiresIn > 0 ? now + expiresIn : 0);
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add G-Line " + mask + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4538,27 +3750,13 @@ public final class Database {
      * @return true if successful
      */
     public boolean removeGline(String mask) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM operserv.glines WHERE mask = ?"
-            )) {
-                statement.setString(1, mask);
-                int deleted = statement.executeUpdate();
-                return deleted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("DELETE FROM operserv.glines WHERE mask = ?",
+                    statement -> statement.setString(1, mask)) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove G-Line " + mask + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4566,106 +3764,45 @@ public final class Database {
      * @return Number of GLines deleted
      */
     public int removeExpiredGlines() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM operserv.glines WHERE expires > 0 AND expires < ?"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setLong(1, now);
-                int deleted = statement.executeUpdate();
-                return deleted;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return queries.update("DELETE FROM operserv.glines WHERE expires > 0 AND expires < ?",
+                    statement -> statement.setLong(1, now));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove expired G-Lines: " + ex.getMessage());
+            return 0;
         }
-        return 0;
     }
 
     /**
      * Gets active GLines
      * @param limit Maximum number to return
-     * @return List of GLine data [mask, reason, setby, created, expires]
-     */
-    public ArrayList<String[]> getGlines(int limit) {
-        ArrayList<String[]> glines = new ArrayList<>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT mask, reason, setby, created, expires FROM operserv.glines ORDER BY created DESC LIMIT ?"
-            )) {
-                statement.setInt(1, limit);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        String[] data = new String[5];
-                        data[0] = resultset.getString("mask");
-                        data[1] = resultset.getString("reason");
-                        data[2] = resultset.getString("setby");
-                        data[3] = String.valueOf(resultset.getLong("created"));
-                        data[4] = String.valueOf(resultset.getLong("expires"));
-                        glines.add(data);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+     * @return the G-Lines, newest first
+     */
+    public ArrayList<Gline> getGlines(int limit) {
+        try {
+            return new ArrayList<>(queries.query(
+                    "SELECT mask, reason, setby, created, expires FROM operserv.glines ORDER BY created DESC LIMIT ?",
+                    statement -> statement.setInt(1, limit), Database::readGline));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read G-Lines: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return glines;
     }
 
     /**
      * Gets all active GLines (no limit)
-     * @return List of GLine data [mask, reason, setby, created, expires]
-     */
-    public ArrayList<String[]> getAllGlines() {
-        ArrayList<String[]> glines = new ArrayList<>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT mask, reason, setby, created, expires FROM operserv.glines ORDER BY created DESC"
-            )) {
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        String[] data = new String[5];
-                        data[0] = resultset.getString("mask");
-                        data[1] = resultset.getString("reason");
-                        data[2] = resultset.getString("setby");
-                        data[3] = String.valueOf(resultset.getLong("created"));
-                        data[4] = String.valueOf(resultset.getLong("expires"));
-                        glines.add(data);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+     * @return the G-Lines, newest first
+     */
+    public ArrayList<Gline> getAllGlines() {
+        try {
+            return new ArrayList<>(queries.query(
+                    "SELECT mask, reason, setby, created, expires FROM operserv.glines ORDER BY created DESC",
+                    QueryExecutor.Binder.NONE, Database::readGline));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read G-Lines: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return glines;
     }
 
     /**
@@ -4678,31 +3815,19 @@ public final class Database {
      * @return true if successful
      */
     public boolean addChannelBan(long channelId, long userId, String hostmask, long expiry, String reason) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "INSERT INTO chanserv.bans (channelid, userid, hostmask, expiry, reason) VALUES (?, ?, ?, ?, ?)"
-            )) {
-                statement.setLong(1, channelId);
-                statement.setLong(2, userId);
-                statement.setString(3, hostmask);
-                statement.setLong(4, expiry);
-                statement.setString(5, reason);
-                int inserted = statement.executeUpdate();
-                return inserted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("INSERT INTO chanserv.bans (channelid, userid, hostmask, expiry, reason) VALUES (?, ?, ?, ?, ?)",
+                    statement -> {
+                        statement.setLong(1, channelId);
+                        statement.setLong(2, userId);
+                        statement.setString(3, hostmask);
+                        statement.setLong(4, expiry);
+                        statement.setString(5, reason);
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to add channel ban " + hostmask + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4711,27 +3836,13 @@ public final class Database {
      * @return true if successful
      */
     public boolean removeChannelBan(long banId) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM chanserv.bans WHERE banid = ?"
-            )) {
-                statement.setLong(1, banId);
-                int deleted = statement.executeUpdate();
-                return deleted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("DELETE FROM chanserv.bans WHERE banid = ?",
+                    statement -> statement.setLong(1, banId)) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove channel ban " + banId + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
@@ -4741,74 +3852,46 @@ public final class Database {
      * @return true if successful
      */
     public boolean removeChannelBanByMask(long channelId, String hostmask) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM chanserv.bans WHERE channelid = ? AND hostmask = ?"
-            )) {
-                statement.setLong(1, channelId);
-                statement.setString(2, hostmask);
-                int deleted = statement.executeUpdate();
-                return deleted > 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        try {
+            return queries.update("DELETE FROM chanserv.bans WHERE channelid = ? AND hostmask = ?",
+                    statement -> {
+                        statement.setLong(1, channelId);
+                        statement.setString(2, hostmask);
+                    }) > 0;
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove channel ban " + hostmask + ": " + ex.getMessage());
+            return false;
         }
-        return false;
     }
 
     /**
      * Gets active channel bans (not expired)
      * @param channelId Channel ID
-     * @return List of ban data [banid, hostmask, expiry, reason, setby_username]
-     */
-    public ArrayList<String[]> getChannelBans(long channelId) {
-        ArrayList<String[]> bans = new ArrayList<>();
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "SELECT b.banid, b.hostmask, b.expiry, b.reason, u.username " +
-                "FROM chanserv.bans b " +
-                "LEFT JOIN chanserv.users u ON b.userid = u.id " +
-                "WHERE b.channelid = ? AND (b.expiry = 0 OR b.expiry > ?) " +
-                "ORDER BY b.banid DESC"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setLong(1, channelId);
-                statement.setLong(2, now);
-                try (var resultset = statement.executeQuery()) {
-                    while (resultset.next()) {
-                        String[] data = new String[5];
-                        data[0] = String.valueOf(resultset.getLong("banid"));
-                        data[1] = resultset.getString("hostmask");
-                        data[2] = String.valueOf(resultset.getLong("expiry"));
-                        data[3] = resultset.getString("reason");
-                        data[4] = resultset.getString("username");
-                        bans.add(data);
-                    }
-                }
-                break;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+     * @return the bans, newest first
+     */
+    public ArrayList<ChannelBan> getChannelBans(long channelId) {
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return new ArrayList<>(queries.query(
+                    "SELECT b.banid, b.hostmask, b.expiry, b.reason, u.username " +
+                    "FROM chanserv.bans b " +
+                    "LEFT JOIN chanserv.users u ON b.userid = u.id " +
+                    "WHERE b.channelid = ? AND (b.expiry = 0 OR b.expiry > ?) " +
+                    "ORDER BY b.banid DESC",
+                    statement -> {
+                        statement.setLong(1, channelId);
+                        statement.setLong(2, now);
+                    },
+                    resultset -> new ChannelBan(
+                            resultset.getLong("banid"),
+                            resultset.getString("hostmask"),
+                            resultset.getLong("expiry"),
+                            resultset.getString("reason"),
+                            resultset.getString("username"))));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to read channel bans: " + ex.getMessage());
+            return new ArrayList<>();
         }
-        return bans;
     }
 
     /**
@@ -4816,28 +3899,14 @@ public final class Database {
      * @return Number of bans deleted
      */
     public int cleanupExpiredBans() {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection();
-                 var statement = conn.prepareStatement(
-                "DELETE FROM chanserv.bans WHERE expiry > 0 AND expiry < ?"
-            )) {
-                long now = System.currentTimeMillis() / 1000;
-                statement.setLong(1, now);
-                int deleted = statement.executeUpdate();
-                return deleted;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        long now = System.currentTimeMillis() / 1000;
+        try {
+            return queries.update("DELETE FROM chanserv.bans WHERE expiry > 0 AND expiry < ?",
+                    statement -> statement.setLong(1, now));
+        } catch (SQLException ex) {
+            LOG.warning("Failed to remove expired channel bans: " + ex.getMessage());
+            return 0;
         }
-        return 0;
     }
 
     /**
@@ -4867,18 +3936,16 @@ public final class Database {
      * @return Number of users deleted
      */
     public int deleteInactiveChanServUsers(int inactiveDays, java.util.Set<String> currentLoggedInUsers) {
-        int tries = 0;
-        int deletedCount = 0;
-
-        while (tries < 2) {
-            ensureConnection();
-            try (Connection conn = getConnection()) {
+        try {
+            int deletedCount = queries.execute("deleteInactiveChanServUsers", conn -> {
                 conn.setAutoCommit(false);
 
                 try {
                     // Calculate the threshold timestamp (current time - inactiveDays)
                     long thresholdTime = (System.currentTimeMillis() / 1000) - (inactiveDays * 24L * 60L * 60L);
 
+                    int deleted = 0;
+
                     // Find inactive users (exclude privileged accounts: OPER, STAFF, ADMIN, DEV)
                     java.util.List<String> inactiveUsers = new java.util.ArrayList<>();
                     try (var selectStmt = conn.prepareStatement(
@@ -4928,19 +3995,15 @@ public final class Database {
                             for (String username : inactiveUsers) {
                                 deleteUsersStmt.setString(1, username);
                                 deleteUsersStmt.executeUpdate();
-                                deletedCount++;
+                                accountCache.invalidate(username);
+                                deleted++;
                                 LOG.info("Deleted inactive ChanServ user: " + username);
                             }
                         }
                     }
 
                     conn.commit();
-
-                    if (deletedCount > 0) {
-                        LOG.info("Deleted " + deletedCount + " inactive ChanServ users (inactive > " + inactiveDays + " days)");
-                    }
-
-                    return deletedCount;
+                    return deleted;
 
                 } catch (SQLException ex) {
                     conn.rollback();
@@ -4948,19 +4011,15 @@ public final class Database {
                 } finally {
                     conn.setAutoCommit(true);
                 }
-
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to delete inactive ChanServ users: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
+            });
+            if (deletedCount > 0) {
+                LOG.info("Deleted " + deletedCount + " inactive ChanServ users (inactive > " + inactiveDays + " days)");
             }
-            tries++;
+            return deletedCount;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to delete inactive ChanServ users: " + ex.getMessage());
+            return 0;
         }
-        return deletedCount;
     }
 
     /**
@@ -4969,31 +4028,18 @@ public final class Database {
      * @return The timestamp when the channel was created, or 0 if not found
      */
     public long getChannelTimestamp(String channelName) {
-        int tries = 0;
-        while (tries < 2) {
-            ensureConnection();
-            String sql = "SELECT created FROM chanserv.channels WHERE LOWER(name) = LOWER(?)";
-            try (Connection conn = getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, channelName);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getLong("created");
-                    }
-                }
-                return 0;
-            } catch (SQLException ex) {
-                if (tries == 0) {
-                    LOG.warning(RECONNECT_MSG + ex.getMessage());
-                    initializeConnectionPool();
-                } else {
-                    LOG.severe("Failed to get channel timestamp: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
-            tries++;
+        if (channelRegistry.isLoaded()) {
+            var registration = channelRegistry.get(channelName);
+            return registration != null ? registration.created() : 0;
+        }
+        try {
+            Long created = queries.queryFirst("SELECT created FROM chanserv.channels WHERE LOWER(name) = LOWER(?)",
+                    statement -> statement.setString(1, channelName), resultset -> resultset.getLong("created"));
+            return created != null ? created : 0;
+        } catch (SQLException ex) {
+            LOG.severe("Failed to get channel timestamp: " + ex.getMessage());
+            return 0;
         }
-        return 0;
     }
 }
 
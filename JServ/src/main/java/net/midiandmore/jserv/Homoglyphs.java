@@ -42,6 +42,17 @@ public final class Homoglyphs {
         parseHomoglyphs();
     }
 
+    /**
+     * Creates the scanner from a known set, without reading chars.txt
+     *
+     * @param mi The JServ class
+     * @param homoglyphs The characters to look for
+     */
+    Homoglyphs(JServ mi, Set<Character> homoglyphs) {
+        setMi(mi);
+        setHomoglyphs(homoglyphs);
+    }
+
     private void parseHomoglyphs() {
         LOG.info("Loading Homoglyphs...");
         var f = new File("chars.txt");
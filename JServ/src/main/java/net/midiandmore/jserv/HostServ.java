@@ -9,14 +9,14 @@ import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.codec.digest.DigestUtils;
 
 public final class HostServ implements Software, Module {
     
-    private boolean enabled = false;
+    private volatile boolean enabled = false;
 
     /**
      * @return the nick
@@ -93,7 +93,7 @@ public final class HostServ implements Software, Module {
     private Socket socket;
     private PrintWriter pw;
     private BufferedReader br;
-    private boolean runs;
+    private volatile boolean runs;
     private String serverNumeric;
     private String numeric;
     private String numericSuffix;
@@ -102,12 +102,13 @@ public final class HostServ implements Software, Module {
     private String servername;
     private String description;
     private byte[] ip;
-    private HashMap<String, String> nicks;
-    private HashMap<String, String> hosts;
-    private HashMap<String, String> accounts;
-    private HashMap<String, String> x;
+    // Reached from the reader thread and from the mailbox thread
+    private final ConcurrentHashMap<String, String> nicks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> hosts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> x = new ConcurrentHashMap<>();
     private SocketThread st;
-    private boolean reg;
+    private volatile boolean reg;
 
     public HostServ(JServ mi, SocketThread st, PrintWriter pw, BufferedReader br) {
         initialize(mi, st, pw, br);
@@ -170,7 +171,7 @@ public final class HostServ implements Software, Module {
     }
     
     @Override
-    public void registerBurstChannels(java.util.HashMap<String, Burst> bursts, String serverNumeric) {
+    public void registerBurstChannels(java.util.Map<String, Burst> bursts, String serverNumeric) {
         if (!enabled) {
             return;
         }
@@ -292,7 +293,7 @@ public final class HostServ implements Software, Module {
         }
         getPw().println(text.formatted(args));
         getPw().flush();
-        if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+        if (getMi().getConfig().getSettings().isDebug()) {
             LOG.log(Level.FINE, "DEBUG sendText: {0}", text.formatted(args));
         }
     }
@@ -356,12 +357,20 @@ public final class HostServ implements Software, Module {
 
     @Override
     public void parseLine(String text) {
+        parseMessage(P10Message.parse(text.trim()));
+    }
+
+    @Override
+    public void parseMessage(P10Message message) {
         if (!enabled) {
             return;
         }
         try {
-            text = text.trim();
-            var elem = text.split(" ");
+            // Only private messages to HostServ are handled, skip everything else without splitting
+            if (!message.isCommand("P") || !message.tokenEquals(2, getNumeric() + getNumericSuffix())) {
+                return;
+            }
+            var elem = message.tokens();
             if (getSt().getServerNumeric() != null) {
                 if (elem[1].equals("P") && elem[2].equals(getNumeric() + getNumericSuffix())) {
                     var target = elem[2];
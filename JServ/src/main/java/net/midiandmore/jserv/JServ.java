@@ -43,6 +43,13 @@ public final class JServ implements Software {
         this.waitThread = waitThread;
     }
 
+    /**
+     * @return false once shutdown has started
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
     /**
      * @return the socketThread
      */
@@ -152,12 +159,14 @@ public final class JServ implements Software {
         logInfo("");
         
         setConfig(new Config(this, "config-jserv.json"));
+        getConfig().startWatcher();
         logDebug("Config loaded successfully");
         
         setHomoglyphs(new Homoglyphs(this));
         logDebug("Homoglyphs initialized");
         
         setDb(new Database(this));
+        getDb().startChangeFeed();
         logDebug("Database connection established");
         
         setWaitThread(new WaitThread(this));
@@ -311,6 +320,10 @@ public final class JServ implements Software {
             }
         }
         
+        if (getConfig() != null) {
+            getConfig().stopWatcher();
+        }
+        
         // Close database connection
         if (db != null) {
             logInfo("Closing database connection pool...");
@@ -45,6 +45,17 @@ public interface Module {
      */
     void parseLine(String text);
     
+    /**
+     * Parse incoming IRC protocol line that was already tokenized by the core
+     * The same instance is shared by all modules and must be treated as read-only
+     * Default implementation falls back to the raw line
+     * 
+     * @param message The parsed IRC protocol line
+     */
+    default void parseMessage(P10Message message) {
+        parseLine(message.getRaw());
+    }
+    
     /**
      * Shutdown the module gracefully
      * Called when module is being disabled or JServ is shutting down
@@ -96,7 +107,7 @@ public interface Module {
      * @param bursts The burst map to register channels in
      * @param serverNumeric The server numeric prefix
      */
-    default void registerBurstChannels(java.util.HashMap<String, Burst> bursts, String serverNumeric) {
+    default void registerBurstChannels(java.util.Map<String, Burst> bursts, String serverNumeric) {
         // Default implementation does nothing - modules override if they need channels
     }
     
@@ -136,4 +147,12 @@ public interface Module {
     default void postLoadInitialization() {
         // Default implementation does nothing
     }
+    
+    /**
+     * Called when the uplink has been re-established, before the handshakes.
+     * The module instance and its caches are kept across the reconnect.
+     */
+    default void onReconnect() {
+        // Default implementation does nothing
+    }
 }
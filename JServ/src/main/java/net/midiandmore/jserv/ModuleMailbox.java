@@ -0,0 +1,239 @@
+/*
+ * Bounded per-module inbound queue
+ */
+package net.midiandmore.jserv;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded mailbox that feeds one module from its own virtual thread.
+ * The socket thread only enqueues, so a module blocked on the database can no
+ * longer delay PING handling or the other modules. Lines are processed in
+ * arrival order. When the mailbox is full, new chat lines for this module
+ * are dropped and counted rather than blocking the reader. Lines that change
+ * network state (burst, users, joins, parts, kicks) are never dropped, the
+ * reader waits for room instead, or the module would drift for the rest of
+ * the link.
+ *
+ * @author Andreas Pschorn
+ */
+public final class ModuleMailbox {
+
+    private static final Logger LOG = Logger.getLogger(ModuleMailbox.class.getName());
+    private static final long OVERFLOW_LOG_INTERVAL = 1000;
+    private static final long POLL_MS = 250;
+    private static final Set<String> STATE_COMMANDS = Set.of("EB", "N", "Q", "D", "J", "C", "K", "L", "B");
+
+    private final Module module;
+    private final int capacity;
+    private final BlockingQueue<P10Message> queue;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final AtomicInteger highWater = new AtomicInteger();
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean busy;
+
+    /**
+     * Creates the mailbox and starts its consumer
+     *
+     * @param module The module to feed
+     * @param capacity Maximum number of queued lines
+     */
+    public ModuleMailbox(Module module, int capacity) {
+        this.module = module;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.consumer = Thread.ofVirtual()
+                .name("JServ-Module-" + module.getModuleName())
+                .start(this::consume);
+    }
+
+    /**
+     * Queues a line for the module without blocking
+     *
+     * @param message The parsed line
+     * @return false if the mailbox was full and the line was dropped
+     */
+    public boolean offer(P10Message message) {
+        if (!running) {
+            return false;
+        }
+        if (!queue.offer(message)) {
+            if (isStateLine(message)) {
+                return put(message);
+            }
+            dropped.increment();
+            long total = dropped.sum();
+            if (total == 1 || total % OVERFLOW_LOG_INTERVAL == 0) {
+                LOG.log(Level.WARNING, "Mailbox of module {0} is full ({1} lines), {2} lines dropped so far",
+                        new Object[]{module.getModuleName(), capacity, total});
+            }
+            return false;
+        }
+        int depth = queue.size();
+        int max = highWater.get();
+        while (depth > max && !highWater.compareAndSet(max, depth)) {
+            max = highWater.get();
+        }
+        return true;
+    }
+
+    /**
+     * @param message The parsed line
+     * @return true if the modules need the line to keep their state right
+     */
+    static boolean isStateLine(P10Message message) {
+        var command = message.getCommand();
+        return command != null && STATE_COMMANDS.contains(command);
+    }
+
+    /**
+     * Waits for room, the backpressure for lines that must not be lost
+     */
+    private boolean put(P10Message message) {
+        blocked.increment();
+        long total = blocked.sum();
+        if (total == 1 || total % OVERFLOW_LOG_INTERVAL == 0) {
+            LOG.log(Level.WARNING, "Mailbox of module {0} is full ({1} lines), waiting to queue a state line",
+                    new Object[]{module.getModuleName(), capacity});
+        }
+        try {
+            while (running) {
+                if (queue.offer(message, POLL_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void consume() {
+        while (running || !queue.isEmpty()) {
+            P10Message message;
+            try {
+                message = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (message == null) {
+                continue;
+            }
+            busy = true;
+            try {
+                if (module.isEnabled()) {
+                    module.parseMessage(message);
+                }
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Error in module " + module.getModuleName() + " while parsing line", e);
+            } finally {
+                busy = false;
+                processed.increment();
+            }
+        }
+    }
+
+    /**
+     * Waits until the module has handled what is already queued. Used when
+     * the link drops: replies to the lines of the old link would otherwise go
+     * out on the next one. Lines still queued after the timeout are discarded
+     * and counted as dropped.
+     *
+     * @param timeoutMillis Maximum time to wait for the queue to drain
+     * @return the number of discarded lines
+     */
+    public int drain(long timeoutMillis) {
+        long until = System.currentTimeMillis() + timeoutMillis;
+        try {
+            while ((!queue.isEmpty() || busy) && System.currentTimeMillis() < until) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int discarded = 0;
+        while (queue.poll() != null) {
+            discarded++;
+        }
+        if (discarded > 0) {
+            dropped.add(discarded);
+            LOG.log(Level.WARNING, "Mailbox of module {0} did not drain in time, {1} lines of the old link discarded",
+                    new Object[]{module.getModuleName(), discarded});
+        }
+        return discarded;
+    }
+
+    /**
+     * Stops the consumer after it has handled what is already queued
+     *
+     * @param timeoutMillis Maximum time to wait for the queue to drain
+     */
+    public void close(long timeoutMillis) {
+        running = false;
+        try {
+            consumer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        consumer.interrupt();
+    }
+
+    /**
+     * @return the module
+     */
+    public Module getModule() {
+        return module;
+    }
+
+    /**
+     * @return lines waiting to be processed
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the largest depth seen so far
+     */
+    public int getHighWater() {
+        return highWater.get();
+    }
+
+    /**
+     * @return lines processed by the module
+     */
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    /**
+     * @return state lines the reader had to wait for
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return lines dropped because the mailbox was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -8,6 +8,7 @@ import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,8 +22,11 @@ public class ModuleManager {
     
     private static final Logger LOG = Logger.getLogger(ModuleManager.class.getName());
     private static final int DEFAULT_IRCU2_NICKLEN = 12;
+    private static final int DEFAULT_MAILBOX_SIZE = 10000;
+    private static final long MAILBOX_DRAIN_MS = 2000;
     
     private final Map<String, Module> modules = new HashMap<>();
+    private final Map<String, ModuleMailbox> mailboxes = new ConcurrentHashMap<>();
     private final JServ jserv;
     private final SocketThread socketThread;
     private PrintWriter printWriter;
@@ -119,6 +123,7 @@ public class ModuleManager {
         
         module.initialize(jserv, socketThread, printWriter, bufferedReader);
         modules.put(moduleName, module);
+        mailboxes.put(moduleName, new ModuleMailbox(module, getMailboxSize()));
         LOG.log(Level.INFO, "Module {0} registered successfully", moduleName);
     }
     
@@ -294,19 +299,91 @@ public class ModuleManager {
     
     /**
      * Route incoming IRC line to all enabled modules
+     * Kept for callers that only have the raw line, parses it once
      * 
      * @param line IRC protocol line
      */
     public void routeLine(String line) {
-        for (Module module : modules.values()) {
-            if (module.isEnabled()) {
-                try {
-                    module.parseLine(line);
-                } catch (Exception e) {
-                    LOG.log(Level.SEVERE, "Error in module " + module.getModuleName() + " while parsing line", e);
+        routeMessage(P10Message.parse(line));
+    }
+    
+    /**
+     * Route an already parsed IRC line to all enabled modules
+     * Every module gets the same instance, so the line is not parsed again.
+     * Lines are queued in the module's mailbox and handled on its own thread,
+     * so this never blocks on a slow module.
+     * 
+     * @param message Parsed IRC protocol line
+     */
+    public void routeMessage(P10Message message) {
+        for (ModuleMailbox mailbox : mailboxes.values()) {
+            if (mailbox.getModule().isEnabled()) {
+                mailbox.offer(message);
+            }
+        }
+    }
+    
+    /**
+     * Lets all module mailboxes work off the lines of a link that dropped,
+     * so no module answers them on the next link. The mailboxes keep running.
+     */
+    public void drainMailboxes() {
+        for (ModuleMailbox mailbox : mailboxes.values()) {
+            mailbox.drain(MAILBOX_DRAIN_MS);
+        }
+    }
+
+    /**
+     * Stops all module mailboxes, letting them work off what is already queued
+     */
+    public void closeMailboxes() {
+        for (ModuleMailbox mailbox : mailboxes.values()) {
+            mailbox.close(MAILBOX_DRAIN_MS);
+        }
+        mailboxes.clear();
+    }
+    
+    /**
+     * Get the mailboxes of all registered modules
+     * 
+     * @return Map of module name to mailbox
+     */
+    public Map<String, ModuleMailbox> getMailboxes() {
+        return new HashMap<>(mailboxes);
+    }
+    
+    /**
+     * Format queue depth and overflow counters of all mailboxes
+     * 
+     * @return One line per module
+     */
+    public String formatMailboxStats() {
+        var sb = new StringBuilder();
+        for (var entry : mailboxes.entrySet()) {
+            ModuleMailbox mailbox = entry.getValue();
+            sb.append(String.format("%-10s depth=%d/%d highwater=%d processed=%d dropped=%d blocked=%d%n",
+                    entry.getKey(), mailbox.getDepth(), mailbox.getCapacity(), mailbox.getHighWater(),
+                    mailbox.getProcessed(), mailbox.getDropped(), mailbox.getBlocked()));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * @return Configured mailbox capacity per module
+     */
+    private int getMailboxSize() {
+        String value = jserv.getConfig().getConfigFile().getProperty("module_queue_size");
+        if (value != null) {
+            try {
+                int size = Integer.parseInt(value.trim());
+                if (size > 0) {
+                    return size;
                 }
+            } catch (NumberFormatException e) {
+                LOG.log(Level.WARNING, "Invalid module_queue_size {0}, using default", value);
             }
         }
+        return DEFAULT_MAILBOX_SIZE;
     }
     
     /**
@@ -314,6 +391,7 @@ public class ModuleManager {
      */
     public void shutdownAll() {
         LOG.log(Level.INFO, "Shutting down all modules");
+        closeMailboxes();
         for (Module module : modules.values()) {
             try {
                 module.shutdown();
@@ -9,6 +9,7 @@ import java.io.PrintWriter;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,7 +31,7 @@ public final class NickServ implements Software, Module {
     private static final String OPS_CHANNEL = "#twilightzone";
     private static final String DEFAULT_AUTH_SERVICE = "NickServ";
 
-    private boolean enabled = false;
+    private volatile boolean enabled = false;
     private JServ jserv;
     private SocketThread socketThread;
     private PrintWriter pw;
@@ -48,8 +49,8 @@ public final class NickServ implements Software, Module {
     private int glineDuration = DEFAULT_GLINE_DURATION;
     private String authService = DEFAULT_AUTH_SERVICE;
 
-    // Track burst state internally
-    private boolean inBurst = true;
+    // Track burst state internally, reset by the reader thread on reconnect
+    private volatile boolean inBurst = true;
 
     // Track users that need to authenticate (numeric -> timestamp when they
     // connected)
@@ -59,7 +60,7 @@ public final class NickServ implements Software, Module {
     private final ConcurrentHashMap<String, String> dummyNicks;
 
     // Counter for generating unique dummy numerics
-    private int dummyCounter = 0;
+    private final AtomicInteger dummyCounter = new AtomicInteger();
 
     // Timer for periodic checks
     private Timer enforcementTimer;
@@ -113,20 +114,28 @@ public final class NickServ implements Software, Module {
 
     @Override
     public void parseLine(String text) {
+        parseMessage(P10Message.parse(text.trim()));
+    }
+
+    @Override
+    public void parseMessage(P10Message message) {
         if (!enabled) {
             return;
         }
 
         try {
-            final String line = text.trim();
-            String[] elem = line.split(" ");
+            // Skip lines NickServ never acts on before splitting them
+            if (!isRelevantCommand(message)) {
+                return;
+            }
+            String[] elem = message.tokens();
 
             if (elem.length < 2) {
                 return;
             }
 
             // Debug logging for private messages
-            if (jserv.getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true") &&
+            if (jserv.getConfig().getSettings().isDebug() &&
                     elem.length >= 3 && elem[1].equals("P")) {
                 LOG.log(Level.INFO,
                         "DEBUG NickServ parseLine: target={0}, expectedNumeric={1}, expectedNick@Host={2}@{3}",
@@ -193,7 +202,7 @@ public final class NickServ implements Software, Module {
                 }
 
                 if (isTargetingThisBot) {
-                    if (jserv.getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+                    if (jserv.getConfig().getSettings().isDebug()) {
                         LOG.log(Level.FINE,
                                 "DEBUG NickServ: Handling private message - target={0}, numeric={1}, nick={2}",
                                 new Object[] { elem[2], numeric + getNumericSuffix(), nick });
@@ -203,11 +212,28 @@ public final class NickServ implements Software, Module {
             }
 
         } catch (Exception e) {
-            LOG.log(Level.SEVERE, () -> "Error parsing line in NickServ: " + text);
+            LOG.log(Level.SEVERE, () -> "Error parsing line in NickServ: " + message.getRaw());
             LOG.log(Level.SEVERE, "Exception details", e);
         }
     }
 
+    /**
+     * Checks the command of a line against the ones NickServ handles
+     *
+     * @param message The parsed line
+     * @return true if the line needs to be parsed
+     */
+    private boolean isRelevantCommand(P10Message message) {
+        if (message.isCommand("EB") || message.isCommand("N")) {
+            return true;
+        }
+        if (inBurst) {
+            return false;
+        }
+        return message.isCommand("P") || message.isCommand("AC")
+                || message.isCommand("Q") || message.isCommand("D");
+    }
+
     /**
      * Handles new user connections during server burst
      * Checks if user is using a reserved dummy nick or registered nick without auth
@@ -1080,17 +1106,8 @@ public final class NickServ implements Software, Module {
         }
 
         // Find the user with target nickname
-        String targetNumeric = null;
-        Users targetUser = null;
-
-        for (var entry : socketThread.getUsers().entrySet()) {
-            Users u = entry.getValue();
-            if (u.getNick().equalsIgnoreCase(targetNick)) {
-                targetNumeric = entry.getKey();
-                targetUser = u;
-                break;
-            }
-        }
+        String targetNumeric = socketThread.getUsers().getNumericByNick(targetNick);
+        Users targetUser = targetNumeric != null ? socketThread.getUsers().get(targetNumeric) : null;
 
         if (targetNumeric == null) {
             socketThread.sendNotice(numeric, getNumericSuffix(), notice, senderNumeric,
@@ -1198,24 +1215,16 @@ public final class NickServ implements Software, Module {
         }
 
         // Check if user already has this nick
-        if (user.getNick().equalsIgnoreCase(targetNick)) {
+        if (CaseMapping.equals(user.getNick(), targetNick)) {
             socketThread.sendNotice(numeric, getNumericSuffix(), notice, senderNumeric,
                     Messages.get("QM_NS_RECOVER_ALREADY_USING", targetNick));
             return;
         }
 
         // Find if someone is using this nick
-        String targetNumeric = null;
+        String targetNumeric = socketThread.getUsers().getNumericByNick(targetNick);
         boolean isDummy = dummyNicks.containsKey(targetNick);
 
-        for (var entry : socketThread.getUsers().entrySet()) {
-            Users u = entry.getValue();
-            if (u.getNick().equalsIgnoreCase(targetNick)) {
-                targetNumeric = entry.getKey();
-                break;
-            }
-        }
-
         if (targetNumeric != null && !targetNumeric.equals(senderNumeric)) {
             // Someone is using the nick - kill them first
             if (isDummy) {
@@ -1281,7 +1290,7 @@ public final class NickServ implements Software, Module {
                 }
 
                 // Already correct nick.
-                if (currentUser.getNick().equalsIgnoreCase(targetNick)) {
+                if (CaseMapping.equals(currentUser.getNick(), targetNick)) {
                     socketThread.sendNotice(numeric, getNumericSuffix(), finalNotice, finalSenderNumeric,
                             Messages.get("QM_NS_RECOVER_SUCCESS", targetNick));
                     LOG.log(Level.INFO, "User {0} ({1}) recovered nickname {2}",
@@ -1308,17 +1317,8 @@ public final class NickServ implements Software, Module {
      */
     private void handleStatusCommand(String senderNumeric, String notice, Users user, String targetNick) {
         // Find the user with target nickname
-        Users targetUser = null;
-        String targetNumeric = null;
-
-        for (var entry : socketThread.getUsers().entrySet()) {
-            Users u = entry.getValue();
-            if (u.getNick().equalsIgnoreCase(targetNick)) {
-                targetUser = u;
-                targetNumeric = entry.getKey();
-                break;
-            }
-        }
+        String targetNumeric = socketThread.getUsers().getNumericByNick(targetNick);
+        Users targetUser = targetNumeric != null ? socketThread.getUsers().get(targetNumeric) : null;
 
         if (targetUser == null) {
             // Check if it's a registered nick
@@ -1549,15 +1549,8 @@ public final class NickServ implements Software, Module {
             }
 
             // Check if nick is currently in use by a real user
-            Users currentUser = null;
-            String currentUserNumeric = null;
-            for (var entry : socketThread.getUsers().entrySet()) {
-                if (entry.getValue().getNick().equalsIgnoreCase(nick)) {
-                    currentUser = entry.getValue();
-                    currentUserNumeric = entry.getKey();
-                    break;
-                }
-            }
+            String currentUserNumeric = socketThread.getUsers().getNumericByNick(nick);
+            Users currentUser = currentUserNumeric != null ? socketThread.getUsers().get(currentUserNumeric) : null;
 
             if (currentUser != null) {
                 // Nick is still in use - check if we should retry
@@ -1621,15 +1614,11 @@ public final class NickServ implements Software, Module {
                         @Override
                         public void run() {
                             // Final attempt - if still occupied, log error
-                            boolean stillOccupied = false;
-                            for (Users u : socketThread.getUsers().values()) {
-                                if (u.getNick().equalsIgnoreCase(nick)) {
-                                    stillOccupied = true;
-                                    LOG.log(Level.SEVERE,
-                                            "Nickname {0} still occupied after final kill - possible server issue",
-                                            nick);
-                                    break;
-                                }
+                            boolean stillOccupied = socketThread.getUsers().getByNick(nick) != null;
+                            if (stillOccupied) {
+                                LOG.log(Level.SEVERE,
+                                        "Nickname {0} still occupied after final kill - possible server issue",
+                                        nick);
                             }
 
                             if (!stillOccupied) {
@@ -1656,19 +1645,16 @@ public final class NickServ implements Software, Module {
     private void createDummyNickFinal(String nick, String userHost) {
         try {
             // Double-check nick is not in use
-            for (Users user : socketThread.getUsers().values()) {
-                if (user.getNick().equalsIgnoreCase(nick)) {
-                    LOG.log(Level.WARNING, "Cannot create dummy for {0} - nick is still in use", nick);
-                    return;
-                }
+            if (socketThread.getUsers().getByNick(nick) != null) {
+                LOG.log(Level.WARNING, "Cannot create dummy for {0} - nick is still in use", nick);
+                return;
             }
 
             // Find an available numeric (check if numeric is already in use)
             String dummyNumeric;
             int attempts = 0;
             do {
-                dummyCounter++;
-                dummyNumeric = numeric + String.format("D%02d", dummyCounter % 100);
+                dummyNumeric = numeric + String.format("D%02d", dummyCounter.incrementAndGet() % 100);
                 attempts++;
 
                 // Safety check: avoid infinite loop
@@ -1777,7 +1763,7 @@ public final class NickServ implements Software, Module {
      * period
      */
     private void enforceNickProtection() {
-        if (!enabled) {
+        if (!enabled || inBurst) {
             return;
         }
 
@@ -1914,7 +1900,7 @@ public final class NickServ implements Software, Module {
         String formatted = text.formatted(args);
         pw.println(formatted);
         pw.flush();
-        if (jserv.getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+        if (jserv.getConfig().getSettings().isDebug()) {
             System.out.println("DEBUG NickServ sendText: " + formatted);
             LOG.log(Level.FINE, "DEBUG sendText: {0}", formatted);
         }
@@ -1940,13 +1926,10 @@ public final class NickServ implements Software, Module {
      * @return The user numeric/token (e.g., "ABAAA")
      */
     private String extractNumericFromNCommand(String[] elem) {
-        // Find the element that starts with ":" (realname)
-        for (int i = elem.length - 1; i >= 0; i--) {
+        // The realname is the first token starting with ":", the numeric is right before it
+        for (int i = 1; i < elem.length; i++) {
             if (elem[i].startsWith(":")) {
-                // The numeric is the element before this one
-                if (i > 0) {
-                    return elem[i - 1];
-                }
+                return elem[i - 1];
             }
         }
         // Fallback to old method if no ":" found
@@ -1987,6 +1970,17 @@ public final class NickServ implements Software, Module {
         unauthenticatedUsers.clear();
     }
 
+    @Override
+    public void onReconnect() {
+        // The new netburst introduces every user again, as after a start
+        inBurst = true;
+        // Its users replace the ones waiting for authentication, enforcement starts over at EB
+        unauthenticatedUsers.clear();
+        // The dummies went away with the old link, the resync sweeps them
+        dummyNicks.clear();
+        LOG.log(Level.INFO, "Uplink reconnected, NickServ protection paused until the end of burst");
+    }
+
     @Override
     public String getModuleName() {
         return "NickServ";
@@ -2044,7 +2038,7 @@ public final class NickServ implements Software, Module {
     }
 
     @Override
-    public void registerBurstChannels(java.util.HashMap<String, Burst> bursts, String serverNumeric) {
+    public void registerBurstChannels(java.util.Map<String, Burst> bursts, String serverNumeric) {
         if (!enabled) {
             return;
         }
@@ -0,0 +1,22 @@
+/*
+ * Handler for a single P10 command token
+ */
+package net.midiandmore.jserv;
+
+/**
+ * Handles one P10 command token in the core read loop.
+ * Handlers are registered with the {@link P10Dispatcher}.
+ *
+ * @author Andreas Pschorn
+ */
+@FunctionalInterface
+public interface P10CommandHandler {
+
+    /**
+     * Handle a parsed line
+     *
+     * @param message The parsed line
+     * @return true if the line should still be routed to the modules, false to swallow it
+     */
+    boolean handle(P10Message message);
+}
@@ -0,0 +1,200 @@
+/*
+ * Table driven dispatch of P10 commands
+ */
+package net.midiandmore.jserv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maps P10 command tokens to handlers.
+ * One and two character tokens (all regular P10 tokens) are looked up in a
+ * flat array indexed by their characters, longer tokens fall back to a map.
+ * Lines that start with a bare command instead of a numeric (SERVER, PASS,
+ * ERROR) are registered separately and matched on the first token.
+ * Every handler keeps its own call count and accumulated latency.
+ *
+ * Handlers are registered before the read loop starts and are only invoked
+ * from the reader thread; the counters may be read from any thread.
+ *
+ * @author Andreas Pschorn
+ */
+public final class P10Dispatcher {
+
+    private static final int TABLE_SIZE = 1 << 14;
+
+    private final Entry[] shortTokens = new Entry[TABLE_SIZE];
+    private final Map<String, Entry> longTokens = new HashMap<>();
+    private final Map<String, Entry> unprefixed = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Registers a handler for a command token (second token of the line)
+     *
+     * @param token Command token, e.g. "N" or "EB"
+     * @param handler The handler
+     */
+    public void register(String token, P10CommandHandler handler) {
+        Entry entry = new Entry(token, handler);
+        int index = index(token, 0, token.length());
+        if (index >= 0) {
+            shortTokens[index] = entry;
+        } else {
+            longTokens.put(token, entry);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Registers a handler for a line that starts with a bare command
+     *
+     * @param token Leading token, e.g. "SERVER"
+     * @param handler The handler
+     */
+    public void registerUnprefixed(String token, P10CommandHandler handler) {
+        Entry entry = new Entry(token, handler);
+        unprefixed.put(token, entry);
+        entries.add(entry);
+    }
+
+    /**
+     * Finds the handler for a line
+     *
+     * @param message The parsed line
+     * @return the handler entry or null if the core does not handle the line
+     */
+    public Entry lookup(P10Message message) {
+        if (message.count() < 2) {
+            return null;
+        }
+        // Compared in place, a lookup creates no token strings
+        if (!unprefixed.isEmpty() && message.tokenLength(0) > 2) {
+            for (Entry entry : unprefixed.values()) {
+                if (message.tokenEquals(0, entry.getToken())) {
+                    return entry;
+                }
+            }
+        }
+        int start = message.tokenStart(1);
+        int index = index(message.getRaw(), start, start + message.tokenLength(1));
+        if (index >= 0) {
+            return shortTokens[index];
+        }
+        for (Entry entry : longTokens.values()) {
+            if (message.tokenEquals(1, entry.getToken())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the handler registered for a line, if any
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    public boolean dispatch(P10Message message) {
+        Entry entry = lookup(message);
+        return entry == null || entry.invoke(message);
+    }
+
+    /**
+     * @return all registered handlers in registration order
+     */
+    public Collection<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return one line per handler with calls, total and average time
+     */
+    public String formatStats() {
+        var sb = new StringBuilder();
+        for (Entry entry : entries) {
+            long calls = entry.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            long nanos = entry.getNanos();
+            sb.append(String.format("%-6s calls=%d total=%dms avg=%dus%n",
+                    entry.getToken(), calls, nanos / 1_000_000, nanos / calls / 1_000));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resets all counters
+     */
+    public void resetStats() {
+        for (Entry entry : entries) {
+            entry.calls.reset();
+            entry.nanos.reset();
+        }
+    }
+
+    private static int index(String s, int start, int end) {
+        int len = end - start;
+        if (len == 1) {
+            char c = s.charAt(start);
+            return c < 128 ? c : -1;
+        }
+        if (len == 2) {
+            char c1 = s.charAt(start);
+            char c2 = s.charAt(start + 1);
+            return c1 < 128 && c2 < 128 ? (c1 << 7) | c2 : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Handler registration with its counters
+     */
+    public static final class Entry {
+
+        private final String token;
+        private final P10CommandHandler handler;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private Entry(String token, P10CommandHandler handler) {
+            this.token = token;
+            this.handler = handler;
+        }
+
+        private boolean invoke(P10Message message) {
+            long start = System.nanoTime();
+            try {
+                return handler.handle(message);
+            } finally {
+                nanos.add(System.nanoTime() - start);
+                calls.increment();
+            }
+        }
+
+        /**
+         * @return the token
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * @return number of handled lines
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * @return accumulated handler time in nanoseconds
+         */
+        public long getNanos() {
+            return nanos.sum();
+        }
+    }
+}
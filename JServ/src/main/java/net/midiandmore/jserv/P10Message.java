@@ -0,0 +1,217 @@
+/*
+ * Parsed P10 protocol line shared between core and modules
+ */
+package net.midiandmore.jserv;
+
+/**
+ * Immutable, parse-once view of a P10 line.
+ * SocketThread builds one per received line and hands the same instance to
+ * every module, so a line is scanned once no matter how many modules see it.
+ * Token strings are created lazily and cached. The array returned by
+ * {@link #tokens()} is shared and must not be modified.
+ *
+ * @author Andreas Pschorn
+ */
+public final class P10Message {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final String raw;
+    private final int[] offsets;
+    private final int count;
+    private final int trailingIndex;
+    private volatile String[] tokens;
+    private String source;
+    private String command;
+    private String target;
+    private String trailing;
+
+    private P10Message(String raw, int[] offsets, int count, int trailingIndex) {
+        this.raw = raw;
+        this.offsets = offsets;
+        this.count = count;
+        this.trailingIndex = trailingIndex;
+    }
+
+    /**
+     * Parses a raw line
+     *
+     * @param line The raw line
+     * @return The parsed message
+     */
+    public static P10Message parse(String line) {
+        return of(new P10Tokenizer().reset(line));
+    }
+
+    /**
+     * Takes over the current state of a tokenizer
+     *
+     * @param tokenizer A tokenizer positioned on the line
+     * @return The parsed message
+     */
+    public static P10Message of(P10Tokenizer tokenizer) {
+        int count = tokenizer.count();
+        int[] offsets = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            offsets[i * 2] = tokenizer.start(i);
+            offsets[i * 2 + 1] = tokenizer.start(i) + tokenizer.length(i);
+        }
+        return new P10Message(tokenizer.getLine(), offsets, count, tokenizer.trailingIndex());
+    }
+
+    /**
+     * @return the raw line
+     */
+    public String getRaw() {
+        return raw;
+    }
+
+    /**
+     * @return number of tokens, same as split(" ").length
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param index Token index
+     * @return the token
+     */
+    public String token(int index) {
+        String[] cached = tokens;
+        if (cached != null) {
+            return cached[index];
+        }
+        if (index < 0 || index >= count) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return raw.substring(offsets[index * 2], offsets[index * 2 + 1]);
+    }
+
+    /**
+     * @return all tokens, equal to getRaw().split(" "); shared, do not modify
+     */
+    public String[] tokens() {
+        String[] cached = tokens;
+        if (cached == null) {
+            if (count == 0) {
+                cached = EMPTY;
+            } else {
+                cached = new String[count];
+                for (int i = 0; i < count; i++) {
+                    cached[i] = raw.substring(offsets[i * 2], offsets[i * 2 + 1]);
+                }
+            }
+            tokens = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * @param index Token index
+     * @return offset of the token in {@link #getRaw()}
+     */
+    public int tokenStart(int index) {
+        if (index < 0 || index >= count) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return offsets[index * 2];
+    }
+
+    /**
+     * @param index Token index
+     * @return length of the token, without creating it
+     */
+    public int tokenLength(int index) {
+        if (index < 0 || index >= count) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return offsets[index * 2 + 1] - offsets[index * 2];
+    }
+
+    /**
+     * Compares a token without allocating
+     *
+     * @param index Token index
+     * @param value Value to compare
+     * @return true if the token equals value
+     */
+    public boolean tokenEquals(int index, String value) {
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        int start = offsets[index * 2];
+        int len = offsets[index * 2 + 1] - start;
+        return len == value.length() && raw.regionMatches(start, value, 0, len);
+    }
+
+    /**
+     * @param index Token index
+     * @param c First character to test
+     * @return true if the token starts with c
+     */
+    public boolean tokenStartsWith(int index, char c) {
+        return index >= 0 && index < count && offsets[index * 2] < offsets[index * 2 + 1]
+                && raw.charAt(offsets[index * 2]) == c;
+    }
+
+    /**
+     * @param command Command token
+     * @return true if this line carries the command
+     */
+    public boolean isCommand(String command) {
+        return tokenEquals(1, command);
+    }
+
+    /**
+     * @return the source numeric or server token, or null
+     */
+    public String getSource() {
+        if (source == null && count > 0) {
+            source = token(0);
+        }
+        return source;
+    }
+
+    /**
+     * @return the command token, or null
+     */
+    public String getCommand() {
+        if (command == null && count > 1) {
+            command = token(1);
+        }
+        return command;
+    }
+
+    /**
+     * @return the first parameter (usually a channel or user numeric), or null
+     */
+    public String getTarget() {
+        if (target == null && count > 2) {
+            target = token(2);
+        }
+        return target;
+    }
+
+    /**
+     * @return the trailing text without its leading ':', or null
+     */
+    public String getTrailing() {
+        if (trailing == null && trailingIndex >= 0) {
+            trailing = raw.substring(offsets[trailingIndex * 2] + 1);
+        }
+        return trailing;
+    }
+
+    /**
+     * @return index of the first token starting with ':' (after the first token), or -1
+     */
+    public int getTrailingIndex() {
+        return trailingIndex;
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
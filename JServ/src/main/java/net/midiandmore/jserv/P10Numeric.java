@@ -0,0 +1,122 @@
+/*
+ * P10 base64 numeric codec
+ */
+package net.midiandmore.jserv;
+
+/**
+ * Encodes and decodes P10 base64 numerics.
+ * A client numeric YYXXX consists of a two character server numeric (0-4095)
+ * and a three character client slot (0-262143), both in the P10 base64
+ * alphabet A-Z a-z 0-9 [ ]. All methods work on the characters in place and
+ * do not allocate.
+ *
+ * @author Andreas Pschorn
+ */
+public final class P10Numeric {
+
+    /**
+     * The P10 base64 alphabet
+     */
+    public static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789[]";
+
+    /**
+     * Number of possible servers (two characters)
+     */
+    public static final int MAX_SERVERS = 64 * 64;
+
+    /**
+     * Number of possible client slots per server (three characters)
+     */
+    public static final int MAX_CLIENTS = 64 * 64 * 64;
+
+    private static final int[] DECODE = new int[128];
+
+    static {
+        java.util.Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            DECODE[ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    private P10Numeric() {
+    }
+
+    /**
+     * @param c A character
+     * @return its base64 value or -1
+     */
+    public static int decode(char c) {
+        return c < 128 ? DECODE[c] : -1;
+    }
+
+    /**
+     * Decodes a run of base64 characters
+     *
+     * @param s Source
+     * @param start First character
+     * @param length Number of characters
+     * @return the value or -1 if a character is invalid
+     */
+    public static int decode(CharSequence s, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            int d = decode(s.charAt(i));
+            if (d < 0) {
+                return -1;
+            }
+            value = (value << 6) | d;
+        }
+        return value;
+    }
+
+    /**
+     * @param numeric A value
+     * @return true if the value is a five character client numeric
+     */
+    public static boolean isClientNumeric(CharSequence numeric) {
+        return numeric != null && numeric.length() == 5 && decode(numeric, 0, 5) >= 0;
+    }
+
+    /**
+     * @param numeric Server or client numeric
+     * @return the server index (0-4095) or -1
+     */
+    public static int serverIndex(CharSequence numeric) {
+        return numeric == null || numeric.length() < 2 ? -1 : decode(numeric, 0, 2);
+    }
+
+    /**
+     * @param numeric Client numeric
+     * @return the client slot (0-262143) or -1
+     */
+    public static int clientSlot(CharSequence numeric) {
+        return numeric == null || numeric.length() != 5 ? -1 : decode(numeric, 2, 3);
+    }
+
+    /**
+     * Encodes a value as a fixed length base64 string
+     *
+     * @param value The value
+     * @param length Number of characters
+     * @return the encoded value
+     */
+    public static String encode(int value, int length) {
+        char[] out = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            out[i] = ALPHABET.charAt(value & 63);
+            value >>>= 6;
+        }
+        return new String(out);
+    }
+
+    /**
+     * Builds a client numeric from server index and slot
+     *
+     * @param server Server index
+     * @param slot Client slot
+     * @return the five character numeric
+     */
+    public static String clientNumeric(int server, int slot) {
+        return encode(server, 2) + encode(slot, 3);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Reusable tokenizer for P10 protocol lines
+ */
+package net.midiandmore.jserv;
+
+import java.util.Arrays;
+
+/**
+ * Offset-based tokenizer for P10 lines.
+ * It records where each space-separated token starts and ends in the original
+ * line and creates substrings only when a caller asks for one. Token boundaries
+ * follow String.split(" ") exactly, including empty tokens for repeated spaces
+ * and dropping trailing empty tokens, so index-based code keeps working.
+ *
+ * An instance is not thread-safe. Reuse one per reader thread or module.
+ *
+ * @author Andreas Pschorn
+ */
+public final class P10Tokenizer {
+
+    private static final int INITIAL_TOKENS = 16;
+
+    private String line = "";
+    private int[] starts = new int[INITIAL_TOKENS];
+    private int[] ends = new int[INITIAL_TOKENS];
+    private int count;
+    private int trailing = -1;
+
+    /**
+     * Tokenizes a new line, replacing the previous state
+     *
+     * @param line The raw line
+     * @return this tokenizer
+     */
+    public P10Tokenizer reset(String line) {
+        this.line = line == null ? "" : line;
+        count = 0;
+        trailing = -1;
+        int len = this.line.length();
+        int start = 0;
+        for (int i = 0; i <= len; i++) {
+            if (i == len || this.line.charAt(i) == ' ') {
+                add(start, i);
+                start = i + 1;
+            }
+        }
+        // split(" ") drops trailing empty tokens (and yields one empty token for "")
+        while (count > 1 && starts[count - 1] == ends[count - 1]) {
+            count--;
+        }
+        if (count == 1 && len > 0 && starts[0] == ends[0]) {
+            count = 0;
+        }
+        for (int i = 1; i < count; i++) {
+            if (starts[i] < ends[i] && this.line.charAt(starts[i]) == ':') {
+                trailing = i;
+                break;
+            }
+        }
+        return this;
+    }
+
+    private void add(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * @return the raw line
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * @return number of tokens, same as split(" ").length
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @param index Token index
+     * @return the token as a new String
+     */
+    public String token(int index) {
+        check(index);
+        return line.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * @param index Token index
+     * @return length of the token
+     */
+    public int length(int index) {
+        check(index);
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * @param index Token index
+     * @return offset of the token in the line
+     */
+    public int start(int index) {
+        check(index);
+        return starts[index];
+    }
+
+    /**
+     * Compares a token without allocating
+     *
+     * @param index Token index
+     * @param value Value to compare
+     * @return true if the token equals value
+     */
+    public boolean tokenEquals(int index, String value) {
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        int len = ends[index] - starts[index];
+        return len == value.length() && line.regionMatches(starts[index], value, 0, len);
+    }
+
+    /**
+     * @param index Token index
+     * @param value Value to compare, ignoring case
+     * @return true if the token equals value ignoring case
+     */
+    public boolean tokenEqualsIgnoreCase(int index, String value) {
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        int len = ends[index] - starts[index];
+        return len == value.length() && line.regionMatches(true, starts[index], value, 0, len);
+    }
+
+    /**
+     * @param index Token index
+     * @param c First character to test
+     * @return true if the token starts with c
+     */
+    public boolean tokenStartsWith(int index, char c) {
+        return index >= 0 && index < count && starts[index] < ends[index] && line.charAt(starts[index]) == c;
+    }
+
+    /**
+     * @param index Token index
+     * @param c Character to look for
+     * @return true if the token contains c
+     */
+    public boolean tokenContains(int index, char c) {
+        if (index < 0 || index >= count) {
+            return false;
+        }
+        int pos = line.indexOf(c, starts[index]);
+        return pos >= 0 && pos < ends[index];
+    }
+
+    /**
+     * Parses a numeric token without creating a substring
+     *
+     * @param index Token index
+     * @param fallback Value returned if the token is missing or not a number
+     * @return the parsed value or fallback
+     */
+    public long parseLong(int index, long fallback) {
+        if (index < 0 || index >= count || starts[index] == ends[index]) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(line, starts[index], ends[index], 10);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * @return the source token (numeric or server), or null
+     */
+    public String source() {
+        return count > 0 ? token(0) : null;
+    }
+
+    /**
+     * @return the command token, or null
+     */
+    public String command() {
+        return count > 1 ? token(1) : null;
+    }
+
+    /**
+     * @param command Command token to compare
+     * @return true if the line carries this command
+     */
+    public boolean commandEquals(String command) {
+        return tokenEquals(1, command);
+    }
+
+    /**
+     * @param index Parameter index, 0 is the first token after the command
+     * @return the parameter, or null if missing
+     */
+    public String param(int index) {
+        int i = index + 2;
+        return i < count ? token(i) : null;
+    }
+
+    /**
+     * @return number of parameters after source and command
+     */
+    public int paramCount() {
+        return Math.max(0, count - 2);
+    }
+
+    /**
+     * @return index of the first token starting with ':' (after the first token), or -1
+     */
+    public int trailingIndex() {
+        return trailing;
+    }
+
+    /**
+     * @return true if the line has a trailing parameter
+     */
+    public boolean hasTrailing() {
+        return trailing >= 0;
+    }
+
+    /**
+     * @return the trailing parameter without its leading ':', or null
+     */
+    public String trailing() {
+        return trailing >= 0 ? line.substring(starts[trailing] + 1) : null;
+    }
+
+    /**
+     * @param from First token index
+     * @return the rest of the line starting at token from, or an empty string
+     */
+    public String rest(int from) {
+        return from < count ? line.substring(starts[from]) : "";
+    }
+
+    /**
+     * @return all tokens, equal to line.split(" ")
+     */
+    public String[] toArray() {
+        String[] out = new String[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = line.substring(starts[i], ends[i]);
+        }
+        return out;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= count) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Runs statements against the connection pool
+ */
+package net.midiandmore.jserv;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * The retry loop of Database in one place. A statement is repeated once,
+ * and only if the failure is transient: connection errors, serialization
+ * failures, deadlocks, server shutdown or too many connections. Other
+ * errors, like a syntax error or a constraint violation, are thrown right
+ * away. After several transient failures in a row the circuit opens and
+ * calls fail at once for a while instead of queueing on a dead server. Every
+ * statement is timed, slow ones are logged.
+ *
+ * @author Andreas Pschorn
+ */
+public final class QueryExecutor {
+
+    private static final int QUERY_TIMEOUT_SECONDS = 30;
+    private static final long RETRY_DELAY_MILLIS = 200L;
+    private static final int CIRCUIT_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = 10000L;
+    private static final long SLOW_QUERY_NANOS = 500_000_000L;
+
+    private final Database db;
+    private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+
+    /**
+     * Sets the parameters of a statement
+     */
+    @FunctionalInterface
+    public interface Binder {
+
+        /**
+         * Binds nothing
+         */
+        Binder NONE = statement -> {
+        };
+
+        /**
+         * @param statement The statement
+         * @throws SQLException from the driver
+         */
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * Turns the current row into an object
+     *
+     * @param <T> The row type
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+
+        /**
+         * @param resultset Positioned on a row
+         * @return the row
+         * @throws SQLException from the driver
+         */
+        T map(ResultSet resultset) throws SQLException;
+    }
+
+    /**
+     * Several statements on one connection
+     *
+     * @param <T> The result type
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+
+        /**
+         * @param conn A pooled connection, closed afterwards
+         * @return the result
+         * @throws SQLException from the driver
+         */
+        T run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Timing of one statement
+     *
+     * @param sql The statement
+     * @param count Number of executions
+     * @param failures Number of failed executions
+     * @param totalNanos Time spent in total
+     * @param maxNanos Longest execution
+     */
+    public record Stats(String sql, long count, long failures, long totalNanos, long maxNanos) {
+    }
+
+    private static final class Timing {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                failures.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * @param db Provides the pooled connections
+     */
+    public QueryExecutor(Database db) {
+        this.db = db;
+    }
+
+    /**
+     * @param <T> The row type
+     * @param sql The query
+     * @param binder Sets the parameters
+     * @param mapper Maps each row
+     * @return all rows
+     * @throws SQLException if it failed, also after the retry
+     */
+    public <T> List<T> query(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        return execute(sql, true, conn -> {
+            try (var statement = prepare(conn, sql)) {
+                binder.bind(statement);
+                var rows = new ArrayList<T>();
+                try (var resultset = statement.executeQuery()) {
+                    while (resultset.next()) {
+                        rows.add(mapper.map(resultset));
+                    }
+                }
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * @param <T> The row type
+     * @param sql The query
+     * @param binder Sets the parameters
+     * @param mapper Maps the row
+     * @return the first row or null if there is none
+     * @throws SQLException if it failed, also after the retry
+     */
+    public <T> T queryFirst(String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        return execute(sql, true, conn -> {
+            try (var statement = prepare(conn, sql)) {
+                binder.bind(statement);
+                statement.setMaxRows(1);
+                try (var resultset = statement.executeQuery()) {
+                    return resultset.next() ? mapper.map(resultset) : null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE. It is only repeated if it can not
+     * have been applied, i.e. no connection or a rolled back transaction.
+     *
+     * @param sql The statement
+     * @param binder Sets the parameters
+     * @return the number of changed rows
+     * @throws SQLException if it failed
+     */
+    public int update(String sql, Binder binder) throws SQLException {
+        return execute(sql, false, conn -> {
+            try (var statement = prepare(conn, sql)) {
+                binder.bind(statement);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Runs several statements on one connection with the same retry rules as
+     * an update
+     *
+     * @param <T> The result type
+     * @param name Name for the timing
+     * @param work The statements
+     * @return the result of the work
+     * @throws SQLException if it failed
+     */
+    public <T> T execute(String name, Work<T> work) throws SQLException {
+        return execute(name, false, work);
+    }
+
+    private <T> T execute(String name, boolean idempotent, Work<T> work) throws SQLException {
+        int tries = 0;
+        while (true) {
+            boolean probe = checkCircuit();
+            long start = System.nanoTime();
+            try (Connection conn = db.getConnection()) {
+                T result = work.run(conn);
+                finished(name, System.nanoTime() - start, false);
+                closeCircuit();
+                return result;
+            } catch (SQLException ex) {
+                finished(name, System.nanoTime() - start, true);
+                boolean transientError = isTransient(ex);
+                if (transientError) {
+                    failedTransiently();
+                }
+                if (tries > 0 || !transientError || !(idempotent || isNotApplied(ex))) {
+                    throw ex;
+                }
+                LOG.warning("Transient database error, retrying: " + ex.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            } finally {
+                if (probe) {
+                    endProbe();
+                }
+            }
+            tries++;
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        var statement = conn.prepareStatement(sql);
+        statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        return statement;
+    }
+
+    /**
+     * @param ex A failure
+     * @return true if repeating the statement may succeed
+     */
+    static boolean isTransient(SQLException ex) {
+        if (ex instanceof SQLTransientException || ex instanceof SQLRecoverableException) {
+            return true;
+        }
+        var state = ex.getSQLState();
+        if (state == null) {
+            return false;
+        }
+        return state.startsWith("08") // connection exception
+                || state.equals("40001") // serialization_failure
+                || state.equals("40P01") // deadlock_detected
+                || state.equals("53300") // too_many_connections
+                || state.equals("57P01") // admin_shutdown
+                || state.equals("57P02") // crash_shutdown
+                || state.equals("57P03"); // cannot_connect_now
+    }
+
+    /**
+     * @param ex A transient failure
+     * @return true if the statement surely did not change anything
+     */
+    private static boolean isNotApplied(SQLException ex) {
+        if (ex instanceof SQLTransientConnectionException) {
+            return true;
+        }
+        var state = ex.getSQLState();
+        return state != null && (state.equals("08001") || state.equals("08004")
+                || state.equals("40001") || state.equals("40P01")
+                || state.equals("53300") || state.equals("57P03"));
+    }
+
+    /**
+     * Lets a call through while the circuit is closed. Once an open circuit
+     * has waited long enough, exactly one call goes through as a probe; the
+     * others keep failing at once until the probe succeeded.
+     *
+     * @return true if this call is the probe
+     * @throws SQLException if the circuit is open
+     */
+    private synchronized boolean checkCircuit() throws SQLException {
+        if (openUntil == 0) {
+            return false;
+        }
+        if (probing || System.currentTimeMillis() < openUntil) {
+            throw new SQLTransientConnectionException("Database unavailable, not trying for now", "08000");
+        }
+        probing = true;
+        return true;
+    }
+
+    private synchronized void endProbe() {
+        probing = false;
+    }
+
+    private synchronized void closeCircuit() {
+        consecutiveFailures = 0;
+        openUntil = 0;
+        probing = false;
+    }
+
+    private synchronized void failedTransiently() {
+        consecutiveFailures++;
+        if (consecutiveFailures >= CIRCUIT_THRESHOLD) {
+            if (openUntil == 0 || System.currentTimeMillis() >= openUntil) {
+                LOG.warning("Database failed " + consecutiveFailures + " times in a row, pausing queries for "
+                        + CIRCUIT_OPEN_MILLIS / 1000 + "s");
+            }
+            // Half open afterwards, one probe call decides
+            openUntil = System.currentTimeMillis() + CIRCUIT_OPEN_MILLIS;
+        }
+    }
+
+    /**
+     * @return true while calls fail without trying
+     */
+    public synchronized boolean isCircuitOpen() {
+        return openUntil != 0 && (probing || System.currentTimeMillis() < openUntil);
+    }
+
+    private void finished(String name, long nanos, boolean failed) {
+        timings.computeIfAbsent(name, k -> new Timing()).record(nanos, failed);
+        if (nanos >= SLOW_QUERY_NANOS) {
+            LOG.warning("Slow query (" + nanos / 1_000_000 + " ms): " + name);
+        }
+    }
+
+    /**
+     * @return the timings, most total time first
+     */
+    public List<Stats> getStats() {
+        var stats = new ArrayList<Stats>(timings.size());
+        for (var entry : timings.entrySet()) {
+            var timing = entry.getValue();
+            stats.add(new Stats(entry.getKey(), timing.count.sum(), timing.failures.sum(),
+                    timing.totalNanos.sum(), timing.maxNanos.get()));
+        }
+        stats.sort(Comparator.comparingLong(Stats::totalNanos).reversed());
+        return stats;
+    }
+
+    /**
+     * Logs the statements that took the most time
+     *
+     * @param limit Number of statements
+     */
+    public void logStats(int limit) {
+        var stats = getStats();
+        for (int i = 0; i < Math.min(limit, stats.size()); i++) {
+            var s = stats.get(i);
+            LOG.info("%d x, %d failed, %d ms total, %d ms max: %s".formatted(s.count(), s.failures(),
+                    s.totalNanos() / 1_000_000, s.maxNanos() / 1_000_000, s.sql()));
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(QueryExecutor.class.getName());
+}
@@ -0,0 +1,257 @@
+/*
+ * Typed configuration snapshot
+ */
+package net.midiandmore.jserv;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Immutable view of the configuration values used on hot paths.
+ * It is built once per load of the JSON files, so checking the debug flag or
+ * a SpamScan threshold is a field read instead of a property lookup and a
+ * parse. Config swaps the whole object when a file changes, readers always
+ * see one consistent set of values.
+ *
+ * @author Andreas Pschorn
+ */
+public final class Settings {
+
+    private final boolean debug;
+
+    private final int newUserTimeWindow;
+    private final double extremeSpamThreshold;
+    private final double similarityThreshold;
+    private final int similarityTimeWindow;
+    private final int crossChannelTimeWindow;
+    private final double crossChannelSimilarity;
+    private final double scoreDecayRate;
+    private final int scoreDecayInterval;
+    private final String[] suspiciousTlds;
+    private final String[] badwords;
+    private final boolean killSuspiciousIdents;
+    private final Set<String> suspiciousIdents;
+
+    private final boolean glineEnabled;
+    private final int glineAfterKills;
+    private final int glineDuration;
+    private final String glineReason;
+    private final String violationUrl;
+
+    private Settings(Properties config, Properties spam, Properties badwordList) {
+        debug = "true".equalsIgnoreCase(config.getProperty("debug", "false").trim());
+
+        newUserTimeWindow = parseInt(spam, "newUserTimeWindow", 300);
+        extremeSpamThreshold = parseDouble(spam, "extremeSpamThreshold", 100.0);
+        similarityThreshold = parseDouble(spam, "similarityThreshold", 0.8);
+        similarityTimeWindow = parseInt(spam, "similarityTimeWindow", 60);
+        crossChannelTimeWindow = parseInt(spam, "crossChannelTimeWindow", 30);
+        crossChannelSimilarity = parseDouble(spam, "crossChannelSimilarity", 0.9);
+        scoreDecayRate = parseDouble(spam, "scoreDecayRate", 0.5);
+        // Used as a divisor
+        scoreDecayInterval = Math.max(1, parseInt(spam, "scoreDecayInterval", 30));
+        suspiciousTlds = splitList(spam.getProperty("suspiciousTLDs", "tk,ml,ga,cf,gq,pw,top,xyz"));
+
+        var words = new ArrayList<String>();
+        for (var key : badwordList.stringPropertyNames()) {
+            if (!key.isBlank()) {
+                words.add(key.toLowerCase(Locale.ROOT));
+            }
+        }
+        badwords = words.toArray(new String[0]);
+        killSuspiciousIdents = Boolean.parseBoolean(spam.getProperty("killSuspiciousIdents", "true").trim());
+        suspiciousIdents = Set.of(splitList(spam.getProperty("suspiciousIdents",
+                "root,admin,administrator,sysadmin,webmaster,hostmaster,postmaster,operator,oper,staff,moderator,mod")));
+
+        glineEnabled = Boolean.parseBoolean(spam.getProperty("enableGLine", "true").trim());
+        glineAfterKills = parseInt(spam, "glineAfterKills", 3);
+        glineDuration = parseInt(spam, "glineDuration", 86400);
+        glineReason = spam.getProperty("glineReason", "Repeated spam violations");
+        violationUrl = spam.getProperty("violationUrl", "");
+    }
+
+    /**
+     * Builds a snapshot; missing files count as empty
+     *
+     * @param config config.json
+     * @param spam config-spamscan.json
+     * @param badwordList badwords-spamscan.json
+     * @return the settings
+     */
+    public static Settings of(Properties config, Properties spam, Properties badwordList) {
+        return new Settings(orEmpty(config), orEmpty(spam), orEmpty(badwordList));
+    }
+
+    private static Properties orEmpty(Properties properties) {
+        return properties != null ? properties : new Properties();
+    }
+
+    private static int parseInt(Properties properties, String key, int defaultValue) {
+        var value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            LOG.warning("Invalid number for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(Properties properties, String key, double defaultValue) {
+        var value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            LOG.warning("Invalid number for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static String[] splitList(String list) {
+        var items = new LinkedHashSet<String>();
+        for (var item : list.split(",")) {
+            item = item.trim().toLowerCase(Locale.ROOT);
+            if (!item.isEmpty()) {
+                items.add(item);
+            }
+        }
+        return items.toArray(new String[0]);
+    }
+
+    /**
+     * @return the debug
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * @return the newUserTimeWindow in seconds
+     */
+    public int getNewUserTimeWindow() {
+        return newUserTimeWindow;
+    }
+
+    /**
+     * @return the extremeSpamThreshold
+     */
+    public double getExtremeSpamThreshold() {
+        return extremeSpamThreshold;
+    }
+
+    /**
+     * @return the similarityThreshold
+     */
+    public double getSimilarityThreshold() {
+        return similarityThreshold;
+    }
+
+    /**
+     * @return the similarityTimeWindow in seconds
+     */
+    public int getSimilarityTimeWindow() {
+        return similarityTimeWindow;
+    }
+
+    /**
+     * @return the crossChannelTimeWindow in seconds
+     */
+    public int getCrossChannelTimeWindow() {
+        return crossChannelTimeWindow;
+    }
+
+    /**
+     * @return the crossChannelSimilarity
+     */
+    public double getCrossChannelSimilarity() {
+        return crossChannelSimilarity;
+    }
+
+    /**
+     * @return the scoreDecayRate
+     */
+    public double getScoreDecayRate() {
+        return scoreDecayRate;
+    }
+
+    /**
+     * @return the scoreDecayInterval in seconds, at least 1
+     */
+    public int getScoreDecayInterval() {
+        return scoreDecayInterval;
+    }
+
+    /**
+     * @return the suspicious top level domains, lower case; do not modify
+     */
+    public String[] getSuspiciousTlds() {
+        return suspiciousTlds;
+    }
+
+    /**
+     * @return the badwords, lower case; do not modify
+     */
+    public String[] getBadwords() {
+        return badwords;
+    }
+
+    /**
+     * @return the killSuspiciousIdents
+     */
+    public boolean isKillSuspiciousIdents() {
+        return killSuspiciousIdents;
+    }
+
+    /**
+     * @return the suspicious idents, lower case
+     */
+    public Set<String> getSuspiciousIdents() {
+        return suspiciousIdents;
+    }
+
+    /**
+     * @return the glineEnabled
+     */
+    public boolean isGlineEnabled() {
+        return glineEnabled;
+    }
+
+    /**
+     * @return the glineAfterKills
+     */
+    public int getGlineAfterKills() {
+        return glineAfterKills;
+    }
+
+    /**
+     * @return the glineDuration in seconds
+     */
+    public int getGlineDuration() {
+        return glineDuration;
+    }
+
+    /**
+     * @return the glineReason
+     */
+    public String getGlineReason() {
+        return glineReason;
+    }
+
+    /**
+     * @return the violationUrl
+     */
+    public String getViolationUrl() {
+        return violationUrl;
+    }
+
+    private static final Logger LOG = Logger.getLogger(Settings.class.getName());
+}
@@ -6,13 +6,18 @@ package net.midiandmore.jserv;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Logger;
 import java.net.InetAddress;
 
@@ -55,28 +60,28 @@ public final class SocketThread implements Runnable, Software {
     /**
      * @return the users
      */
-    public HashMap<String, Users> getUsers() {
+    public UserTable getUsers() {
         return users;
     }
 
     /**
      * @param users the users to set
      */
-    public void setUsers(HashMap<String, Users> users) {
+    public void setUsers(UserTable users) {
         this.users = users;
     }
 
     /**
      * @return the channel
      */
-    public HashMap<String, Channel> getChannel() {
+    public Map<String, Channel> getChannel() {
         return channel;
     }
 
     /**
      * @param channel the channel to set
      */
-    public void setChannel(HashMap<String, Channel> channel) {
+    public void setChannel(Map<String, Channel> channel) {
         this.channel = channel;
     }
 
@@ -133,14 +138,14 @@ public final class SocketThread implements Runnable, Software {
     /**
      * @return the authed
      */
-    public HashMap<String, String> getAuthed() {
+    public Map<String, String> getAuthed() {
         return authed;
     }
 
     /**
      * @param authed the authed to set
      */
-    public void setAuthed(HashMap<String, String> authed) {
+    public void setAuthed(Map<String, String> authed) {
         this.authed = authed;
     }
 
@@ -217,9 +222,14 @@ public final class SocketThread implements Runnable, Software {
     private final Thread thread;
     private JServ mi;
     private Socket socket;
+    private UplinkTransport transport;
+    private final P10Tokenizer tokenizer = new P10Tokenizer();
+    private final P10Dispatcher dispatcher = new P10Dispatcher();
+    private final BurstEncoder encoder = new BurstEncoder();
+    private final BurstIngest burstIngest = new BurstIngest(this::stageBurst, Runtime.getRuntime().availableProcessors());
     private PrintWriter pw;
     private BufferedReader br;
-    private boolean runs;
+    private volatile boolean runs;
     private boolean burst;
     private String serverNumeric;
     private String numeric;
@@ -227,15 +237,17 @@ public final class SocketThread implements Runnable, Software {
     private String identd;
     private String servername;
     private String description;
-    private HashMap<String, String> authed;
-    private HashMap<String, Users> users;
-    private HashMap<String, Channel> channel;
-    private HashMap<String, Burst> bursts;
+    private Map<String, String> authed;
+    private UserTable users;
+    private Map<String, Channel> channel;
+    private Map<String, Burst> bursts;
     private ModuleManager moduleManager;
     private byte[] ip;
     private boolean reg;
-
-    private static final String P10_B64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789[]";
+    private final Set<String> staleUsers = new HashSet<>();
+    private final Set<String> staleChannels = new HashSet<>();
+    private static final long RECONNECT_MIN_DELAY = 1000L;
+    private static final long RECONNECT_MAX_DELAY = 60000L;
 
     private static boolean isProbablyP10Base64Ip(String s) {
         if (s == null) {
@@ -246,14 +258,14 @@ public final class SocketThread implements Runnable, Software {
             return false;
         }
         for (int i = 0; i < len; i++) {
-            if (P10_B64_ALPHABET.indexOf(s.charAt(i)) < 0) {
+            if (P10Numeric.decode(s.charAt(i)) < 0) {
                 return false;
             }
         }
         return true;
     }
 
-    private static String normalizeIpString(String ip) {
+    static String normalizeIpString(String ip) {
         if (ip == null || ip.isBlank()) {
             return null;
         }
@@ -278,10 +290,10 @@ public final class SocketThread implements Runnable, Software {
     }
 
     private static int p10Base64Value(char c) {
-        return P10_B64_ALPHABET.indexOf(c);
+        return P10Numeric.decode(c);
     }
 
-    private static String decodeP10Base64Ip(String b64) {
+    static String decodeP10Base64Ip(String b64) {
         if (b64 == null) {
             return null;
         }
@@ -368,47 +380,51 @@ public final class SocketThread implements Runnable, Software {
         }
     }
 
-    private static String extractBase64IpFromNCommand(String rawLine) {
-        if (rawLine == null) {
-            return null;
-        }
-        int colonPos = rawLine.indexOf(" :");
-        if (colonPos > 0) {
-            String beforeColon = rawLine.substring(0, colonPos);
-            String[] parts = beforeColon.split(" ");
-            if (parts.length >= 3) {
-                // ... <ip> <numeric>
-                return parts[parts.length - 2];
-            }
-        }
-
-        // Fallback: split the entire line and find the element before the numeric (which is right before ":")
-        String[] elem = rawLine.split(" ");
-        for (int i = elem.length - 1; i >= 0; i--) {
-            if (elem[i].startsWith(":")) {
-                // ... <ip> <numeric> :realname
-                if (i >= 3) {
-                    return elem[i - 2];
-                }
-                break;
-            }
+    static String extractBase64IpFromNCommand(P10Tokenizer tokens) {
+        // ... <ip> <numeric> :realname
+        int trailing = tokens.trailingIndex();
+        if (trailing >= 3) {
+            return tokens.token(trailing - 2);
         }
-
         return null;
     }
 
     public SocketThread(JServ mi) {
         setMi(mi);
-        setUsers(new HashMap<>());
-        setChannel(new HashMap<>());
-        setAuthed(new HashMap<>());
+        setUsers(new UserTable());
+        // Read by timers and module threads, written by this thread
+        setChannel(new ConcurrentHashMap<>());
+        setAuthed(new ConcurrentHashMap<>());
         // We start in incoming netburst until the uplink sends EB.
         setBurst(true);
-        setBursts(new HashMap<>());
+        setBursts(new ConcurrentHashMap<>());
         setModuleManager(new ModuleManager(mi, this));
+        // One writer for the lifetime of the services, modules keep it across reconnects
+        setPw(UplinkTransport.writerFor(this::getTransport));
+        registerHandlers();
         (thread = new Thread(this)).start();
     }
 
+    /**
+     * Fills the dispatch table with the core P10 handlers
+     */
+    private void registerHandlers() {
+        getDispatcher().registerUnprefixed("SERVER", this::handleServer);
+        getDispatcher().register("EB", this::handleEndOfBurst);
+        getDispatcher().register("J", this::handleJoin);
+        getDispatcher().register("C", this::handleJoin);
+        getDispatcher().register("N", this::handleNick);
+        getDispatcher().register("B", this::handleBurst);
+        getDispatcher().register("AC", this::handleAccount);
+        getDispatcher().register("G", this::handlePing);
+        getDispatcher().register("M", this::handleMode);
+        getDispatcher().register("T", this::handleTopic);
+        getDispatcher().register("Q", this::handleQuit);
+        getDispatcher().register("D", this::handleKill);
+        getDispatcher().register("L", this::handlePart);
+        getDispatcher().register("K", this::handleKick);
+    }
+
     protected void handshake(String password, String servername, String description, String numeric) {
         System.out.println("Starting handshake...");
         sendText("PASS :%s", password);
@@ -416,10 +432,18 @@ public final class SocketThread implements Runnable, Software {
     }
 
     protected void sendText(String text, Object... args) {
-        getPw().println(text.formatted(args));
-        getPw().flush();
-        if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
-            System.out.printf("DEBUG sendText: %s\n", text.formatted(args));
+        sendLine(text.formatted(args));
+    }
+
+    /**
+     * Sends a line as is, without formatting
+     *
+     * @param line The line
+     */
+    protected void sendLine(String line) {
+        getTransport().send(line);
+        if (getMi().getConfig().getSettings().isDebug()) {
+            System.out.printf("DEBUG sendText: %s\n", line);
         }
     }
 
@@ -431,30 +455,18 @@ public final class SocketThread implements Runnable, Software {
     }
 
     protected String getUser(String nick) {
-        for (var session : getUsers().keySet()) {
-            if (getUsers().get(session).getNick().equalsIgnoreCase(nick)) {
-                return session;
-            }
-        }
-        return null;
+        return getUsers().getNumericByNick(nick);
     }
 
     protected String getUserId(String auth) {
-        for (var session : getUsers().values()) {
-            if (session.getAccount().equalsIgnoreCase(auth)) {
-                return session.getId();
-            }
+        for (var numeric : getUsers().getNumericsByAccount(auth)) {
+            return getUsers().get(numeric).getId();
         }
         return null;
     }
 
     protected String getUserNumeric(String nick) {
-        for (var session : getUsers().keySet()) {
-            if (getUsers().get(session).getNick().equalsIgnoreCase(nick)) {
-                return session;
-            }
-        }
-        return null;
+        return getUsers().getNumericByNick(nick);
     }
 
     protected String getUserName2(String nick) {
@@ -462,21 +474,13 @@ public final class SocketThread implements Runnable, Software {
     }
 
     protected String getUserName(String nick) {
-        for (var session : getUsers().values()) {
-            if (session.getNick().equalsIgnoreCase(nick)) {
-                return session.getId();
-            }
-        }
-        return null;
+        var session = getUsers().getByNick(nick);
+        return session != null ? session.getId() : null;
     }
 
     protected String getUserAccount(String nick) {
-        for (var session : getUsers().values()) {
-            if (session.getNick().equalsIgnoreCase(nick)) {
-                return session.getAccount();
-            }
-        }
-        return null;
+        var session = getUsers().getByNick(nick);
+        return session != null ? session.getAccount() : null;
     }
 
     private long time() {
@@ -498,33 +502,16 @@ public final class SocketThread implements Runnable, Software {
      * 
      * The numeric is always the second-to-last field before " :" (realname)
      * 
-     * @param rawLine The complete raw line from the server
+     * @param tokens The tokenized raw line from the server
      * @return The user numeric/token (e.g., "ABAAA")
      */
-    private String extractNumericFromNCommand(String rawLine) {
-        // Find the position of " :" (space followed by colon) which marks the start of the realname
-        int colonPos = rawLine.indexOf(" :");
-        if (colonPos > 0) {
-            // Extract the part before " :" and get the last word (which is the numeric)
-            String beforeColon = rawLine.substring(0, colonPos);
-            String[] parts = beforeColon.split(" ");
-            if (parts.length > 0) {
-                return parts[parts.length - 1];
-            }
-        }
-        
-        // Fallback: split the entire line and find the element before one starting with ":"
-        String[] elem = rawLine.split(" ");
-        for (int i = elem.length - 1; i >= 0; i--) {
-            if (elem[i].startsWith(":")) {
-                if (i > 0) {
-                    return elem[i - 1];
-                }
-            }
+    static String extractNumericFromNCommand(P10Tokenizer tokens) {
+        int trailing = tokens.trailingIndex();
+        if (trailing > 0) {
+            return tokens.token(trailing - 1);
         }
-        
         // Last resort fallback
-        return elem.length > 9 ? elem[9] : "";
+        return tokens.count() > 9 ? tokens.token(9) : "";
     }
 
     /**
@@ -589,7 +576,7 @@ public final class SocketThread implements Runnable, Software {
      */
     private boolean checkAndRegisterUser(String[] elem, String rawLine, String jnumeric) {
         boolean debugMode = getMi() != null && getMi().getConfig() != null && 
-            "true".equalsIgnoreCase(getMi().getConfig().getConfigFile().getProperty("debug", "false"));
+            getMi().getConfig().getSettings().isDebug();
         
         // Parse user info
         String nickname = elem[2];
@@ -600,9 +587,15 @@ public final class SocketThread implements Runnable, Software {
         var o = elem[7].contains("o");  // +o means user is an IRC operator
         String acc = null;
         String hiddenHost = null;
-        String userToken = extractNumericFromNCommand(rawLine);
-        String rawIpField = extractBase64IpFromNCommand(rawLine);
+        var tokens = getTokenizer();
+        if (tokens.getLine() != rawLine) {
+            tokens.reset(rawLine);
+        }
+        String userToken = extractNumericFromNCommand(tokens);
+        String rawIpField = extractBase64IpFromNCommand(tokens);
         String decodedIp = normalizeIpString(rawIpField);
+        // A user kept across the reconnect comes back in the netburst, that confirms it
+        boolean resynced = staleUsers.remove(userToken);
         
         if (debugMode) {
             System.out.printf("[DEBUG N-Command] Nick=%s, Modes=%s, UserToken=%s, RawIP=%s%n", 
@@ -669,9 +662,13 @@ public final class SocketThread implements Runnable, Software {
             String existingNick = existingUser.getNick();
             boolean wasService = existingUser.isService();
             boolean wasOper = existingUser.isOper();
-            
+
             // Enhanced logging for different user types
-            if (service || wasService) {
+            if (resynced) {
+                if (debugMode) {
+                    System.out.printf("[DEBUG N-Command] Resync confirmed %s (%s)%n", userToken, nickname);
+                }
+            } else if (service || wasService) {
                 System.out.printf("WARNING: Duplicate SERVICE detected!\n");
                 System.out.printf("  Token: %s\n", userToken);
                 System.out.printf("  Existing: %s (Service=%b, Oper=%b)\n", existingNick, wasService, wasOper);
@@ -695,9 +692,9 @@ public final class SocketThread implements Runnable, Software {
             }
             
             // Update existing user instead of creating duplicate
-            existingUser.setNick(nickname);
+            getUsers().changeNick(userToken, nickname);
             existingUser.setIdent(elem[5]);
-            existingUser.setAccount(acc);
+            getUsers().setAccount(userToken, acc);
             existingUser.setHost(elem[6]);
             existingUser.setHiddenHost(hiddenHost);
             existingUser.setClientIp(decodedIp);
@@ -749,7 +746,7 @@ public final class SocketThread implements Runnable, Software {
         // When implemented, this will forward the N command to other connected servers:
         // Format: <our-numeric> N <nick> <hopcount+1> <timestamp> <ident> <host> <modes> <base64ip> <numeric> :<realname>
         
-        if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+        if (getMi().getConfig().getSettings().isDebug()) {
             System.out.printf("DEBUG: Would propagate user %s to other servers (not yet implemented)\n", elem[2]);
         }
     }
@@ -764,64 +761,25 @@ public final class SocketThread implements Runnable, Software {
             this.op = op;
             this.voice = voice;
         }
-    }
 
-    private static String[] buildBurstUsersArray(List<BurstUserEntry> entries) {
-        String[] users = new String[entries.size()];
-        for (int i = 0; i < entries.size(); i++) {
-            BurstUserEntry entry = entries.get(i);
-            if (entry.op && entry.voice) {
-                users[i] = entry.numeric + ":ov";
-            } else if (entry.op) {
-                users[i] = entry.numeric + ":o";
-            } else if (entry.voice) {
-                users[i] = entry.numeric + ":v";
-            } else {
-                users[i] = entry.numeric;
-            }
+        private int status() {
+            return (op ? Channel.STATUS_OP : 0) | (voice ? Channel.STATUS_VOICE : 0);
         }
-        return users;
-    }
-
-    private static String buildOutgoingBurstUserList(List<BurstUserEntry> entries, String jnumeric, boolean includeStatus) {
-        StringBuilder userList = new StringBuilder();
-        for (int i = 0; i < entries.size(); i++) {
-            BurstUserEntry entry = entries.get(i);
-            if (i > 0) {
-                userList.append(",");
-            }
-
-            boolean op = includeStatus && entry.op;
-            boolean voice = includeStatus && entry.voice;
-
-            // Preserve previous behavior: local service users are opped in outgoing burst.
-            // This is required so services keep their control role after burst sync.
-            if (!op && !voice && entry.numeric.startsWith(jnumeric)) {
-                op = true;
-            }
-
-            userList.append(entry.numeric);
-            if (op && voice) {
-                userList.append(":ov");
-            } else if (op) {
-                userList.append(":o");
-            } else if (voice) {
-                userList.append(":v");
-            }
-        }
-        return userList.toString();
     }
 
     private List<BurstUserEntry> parseBurstUsers(String userListStr, String channel, boolean debugMode) {
-        LinkedHashMap<String, BurstUserEntry> uniqueUsers = new LinkedHashMap<>();
         if (userListStr == null || userListStr.isBlank()) {
             return new ArrayList<>();
         }
+        return parseBurstUsers(Arrays.asList(userListStr.split("[,\\s]+")), channel, debugMode);
+    }
+
+    private List<BurstUserEntry> parseBurstUsers(Iterable<String> rawUsers, String channel, boolean debugMode) {
+        LinkedHashMap<String, BurstUserEntry> uniqueUsers = new LinkedHashMap<>();
 
         boolean currentOp = false;
         boolean currentVoice = false;
 
-        String[] rawUsers = userListStr.split("[,\\s]+");
         for (String rawUser : rawUsers) {
             if (rawUser == null || rawUser.isBlank()) {
                 continue;
@@ -883,33 +841,31 @@ public final class SocketThread implements Runnable, Software {
         return new ArrayList<>(uniqueUsers.values());
     }
 
-    private void updateKnownUsersChannelMembership(List<BurstUserEntry> usersInBurst, String channel) {
-        for (BurstUserEntry entry : usersInBurst) {
-            Users user = getUsers().get(entry.numeric);
-            if (user != null) {
-                user.addChannel(channel);
-            }
+    /**
+     * @param burst A module burst
+     * @return the numerics already listed in the burst, without status suffixes
+     */
+    private static Set<String> burstNumerics(Burst burst) {
+        var numerics = new HashSet<String>();
+        for (var entry : burst.getUsers()) {
+            int colon = entry.indexOf(':');
+            numerics.add(colon >= 0 ? entry.substring(0, colon) : entry);
         }
+        return numerics;
     }
 
     private void applyBurstToExistingChannel(Channel existingChannel, List<BurstUserEntry> usersInBurst, boolean applyModes) {
         for (BurstUserEntry entry : usersInBurst) {
-            if (!existingChannel.getUsers().contains(entry.numeric)) {
-                existingChannel.addUser(entry.numeric);
-            }
-            if (applyModes) {
-                if (entry.op && !existingChannel.getOp().contains(entry.numeric)) {
-                    existingChannel.addOp(entry.numeric);
-                }
-                if (entry.voice && !existingChannel.getVoice().contains(entry.numeric)) {
-                    existingChannel.addVoice(entry.numeric);
-                }
-            }
+            existingChannel.mergeUser(entry.numeric, applyModes ? entry.status() : 0, 0);
         }
     }
 
     private Channel buildChannelFromBurst(String channel, String modes, List<BurstUserEntry> usersInBurst, long channelTs) {
-        Channel channelObj = new Channel(channel, modes != null ? modes : "", buildBurstUsersArray(usersInBurst));
+        Channel channelObj = new Channel(channel, modes != null ? modes : "");
+        long now = time();
+        for (BurstUserEntry entry : usersInBurst) {
+            channelObj.mergeUser(entry.numeric, entry.status(), now);
+        }
         if (channelTs > 0) {
             channelObj.setCreatedTimestamp(channelTs);
         }
@@ -918,34 +874,104 @@ public final class SocketThread implements Runnable, Software {
 
     @Override
     public void run() {
-        System.out.println("Connecting to server...");
         setRuns(true);
+        boolean firstLink = true;
+        long delay = RECONNECT_MIN_DELAY;
+        try {
+            while (isRuns()) {
+                long started = System.currentTimeMillis();
+                session(firstLink);
+                firstLink = false;
+                if (!isRuns()) {
+                    break;
+                }
+                // A link that stayed up for a while starts the backoff over
+                if (System.currentTimeMillis() - started > RECONNECT_MAX_DELAY) {
+                    delay = RECONNECT_MIN_DELAY;
+                }
+                markStale();
+                long wait = delay + ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+                LOG.info("Reconnecting in " + wait + " ms");
+                if (!sleepWhileRunning(wait)) {
+                    break;
+                }
+                delay = Math.min(delay * 2, RECONNECT_MAX_DELAY);
+            }
+        } finally {
+            setRuns(false);
+            getBurstIngest().close();
+            if (getModuleManager() != null) {
+                getModuleManager().closeMailboxes();
+            }
+        }
+    }
+
+    /**
+     * Sleeps in short slices so a shutdown is not held up by the backoff
+     *
+     * @param millis Time to wait
+     * @return false if the services are stopping
+     */
+    private boolean sleepWhileRunning(long millis) {
+        long until = System.currentTimeMillis() + millis;
+        try {
+            while (isRuns()) {
+                long left = until - System.currentTimeMillis();
+                if (left <= 0) {
+                    return true;
+                }
+                Thread.sleep(Math.min(left, 500L));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * One uplink connection, from the handshake until the link drops.
+     * Modules are loaded on the first link only; later links keep the
+     * module instances and their caches and just introduce them again.
+     *
+     * @param firstLink true for the first connection after startup
+     */
+    private void session(boolean firstLink) {
+        System.out.println("Connecting to server...");
         var host = getMi().getConfig().getConfigFile().getProperty("host");
         var port = getMi().getConfig().getConfigFile().getProperty("port");
         var password = getMi().getConfig().getConfigFile().getProperty("password");
         var jservername = getMi().getConfig().getConfigFile().getProperty("servername");
         var jdescription = getMi().getConfig().getConfigFile().getProperty("description");
         var jnumeric = getMi().getConfig().getConfigFile().getProperty("numeric");
+        setNumeric(jnumeric);
         try {
-            setSocket(new Socket(host, Integer.parseInt(port)));
-            setPw(new PrintWriter(getSocket().getOutputStream()));
-            setBr(new BufferedReader(new InputStreamReader(getSocket().getInputStream())));
+            // Reads and writes run independently, so a large outgoing burst never stalls the reader
+            setTransport(UplinkTransport.connect(host, Integer.parseInt(port)));
+            setSocket(getTransport().getSocket());
 
             var content = "";
             handshake(password, jservername, jdescription, jnumeric);
             
-            // Initialize ModuleManager with streams
-            getModuleManager().setStreams(getPw(), getBr());
-            
-            // Load modules from configuration file
-            // This replaces the old manual registration and enabling
-            String moduleConfigFile = "config-modules-extended.json";
-            getModuleManager().loadModulesFromConfig(moduleConfigFile);
-            
-            // Perform post-load initialization for all enabled modules
-            for (Module module : getModuleManager().getAllModules().values()) {
-                if (module.isEnabled()) {
-                    module.postLoadInitialization();
+            if (firstLink) {
+                // Initialize ModuleManager with streams
+                getModuleManager().setStreams(getPw(), getBr());
+                
+                // Load modules from configuration file
+                // This replaces the old manual registration and enabling
+                String moduleConfigFile = "config-modules-extended.json";
+                getModuleManager().loadModulesFromConfig(moduleConfigFile);
+                
+                // Perform post-load initialization for all enabled modules
+                for (Module module : getModuleManager().getAllModules().values()) {
+                    if (module.isEnabled()) {
+                        module.postLoadInitialization();
+                    }
+                }
+            } else {
+                for (Module module : getModuleManager().getAllModules().values()) {
+                    if (module.isEnabled()) {
+                        module.onReconnect();
+                    }
                 }
             }
             
@@ -955,6 +981,7 @@ public final class SocketThread implements Runnable, Software {
             System.out.println("Handshake complete...");
             
             // Let modules register their burst channels
+            getBursts().clear();
             for (Module module : getModuleManager().getAllModules().values()) {
                 if (module.isEnabled()) {
                     module.registerBurstChannels(getBursts(), jnumeric);
@@ -963,511 +990,26 @@ public final class SocketThread implements Runnable, Software {
             
             System.out.println("Successfully connected...");
             sendText("%s EB", jnumeric);
-            while (!getSocket().isClosed() && (content = getBr().readLine()) != null && isRuns()) {
+            while (getTransport().isOpen() && (content = getTransport().readLine()) != null && isRuns()) {
                 try {
-                    var elem = content.split(" ");
-                    if (elem.length < 2) {
+                    var tokens = getTokenizer().reset(content);
+                    if (tokens.count() < 2) {
                         continue;
                     }
-                    if (content.startsWith("SERVER")) {
-                        setServerNumeric(content.split(" ")[SERVERNAME_INDEX].substring(0, 1));
-                        System.out.println("Getting SERVER response...");
-                    } else if (elem[1].equals("EB") && isBurst()) {
-                        
-                        // Now that all users are loaded, check database for channel permissions
-                        var list = getMi().getDb().getChannels();
-                        var nicks = getMi().getDb().getData();
-                        for (var channel : list) {
-                            if (channel[1].startsWith("#")) {
-                                var chanLower = channel[1].toLowerCase();
-                                if (!getBursts().containsKey(chanLower)) {
-                                    continue; // Skip channels not registered by modules
-                                }
-                                var cid = channel[0];
-                                System.out.println("[DEBUG] Processing channel: " + channel[1] + " (ID: " + cid + ")");
-                                for (var nick : nicks) {
-                                    var nid = nick[0];
-                                    var auth = getMi().getDb().getChanUser(Long.parseLong(nid), Long.parseLong(cid));
-                                    if (auth != null && auth.length > 0 && auth[0] != null) {
-                                        int flags = 0;
-                                        try {
-                                            flags = Integer.parseInt(auth[0]);
-                                        } catch (NumberFormatException e) {
-                                            System.out.println("[DEBUG] Invalid flags for user " + nick[1] + " in channel " + channel[1]);
-                                            continue;
-                                        }
-                                        
-                                        // Check if user has AUTOOP, AUTOVOICE, or BANNED flags
-                                        boolean hasAutoOp = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.AUTOOP);
-                                        boolean hasAutoVoice = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.AUTOVOICE);
-                                        boolean isBanned = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.BANNED);
-                                        
-                                        System.out.println("[DEBUG] User " + nick[1] + " in channel " + channel[1] + 
-                                            " - Flags: " + flags + " - AutoOp: " + hasAutoOp + " - AutoVoice: " + hasAutoVoice + " - Banned: " + isBanned);
-                                        
-                                        if (!hasAutoOp && !hasAutoVoice && !isBanned) {
-                                            continue; // User has no auto-rights or ban
-                                        }
-                                        
-                                        var users = getUsers().keySet();
-                                        for (var user : users) {
-                                            var u = getUsers().get(user);
-                                            if (u.getAccount() != null && u.getAccount().equalsIgnoreCase(nick[1])) {
-                                                // Only apply DB-derived burst status for users who are actually
-                                                // in this channel (known channel state or user channel list).
-                                                boolean userInChannel = false;
-                                                Channel knownChannel = getChannel().get(chanLower);
-                                                if (knownChannel != null && knownChannel.getUsers().contains(user)) {
-                                                    userInChannel = true;
-                                                }
-                                                if (!userInChannel && u.getChannels() != null && u.getChannels().contains(chanLower)) {
-                                                    userInChannel = true;
-                                                }
-
-                                                if (!userInChannel) {
-                                                    if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
-                                                        System.out.println("[DEBUG] Skip DB-rights burst add for " + user + " in " + chanLower + " (not a channel member)");
-                                                    }
-                                                    continue;
-                                                }
-
-                                                System.out.println("[DEBUG] Found online user " + user + " matching account " + nick[1]);
-                                                
-                                                // Handle BANNED flag - mark for ban+kick (to be processed by ChanServ)
-                                                if (isBanned) {
-                                                    getBursts().get(chanLower).getUsers().add(user + ":b");
-                                                    System.out.println("[DEBUG] Added " + user + " with ban flag to " + chanLower);
-                                                    continue; // Don't add op/voice modes for banned users
-                                                }
-                                                
-                                                // Check if user already added to this channel's burst
-                                                boolean alreadyAdded = false;
-                                                for (Object obj : getBursts().get(chanLower).getUsers()) {
-                                                    String entry = String.valueOf(obj);
-                                                    if (entry.startsWith(user + ":") || entry.equals(user)) {
-                                                        alreadyAdded = true;
-                                                        // Enhanced logging for services/opers
-                                                        Users userObj = getUsers().get(user);
-                                                        if (userObj != null) {
-                                                            if (userObj.isService()) {
-                                                                System.out.printf("WARNING: Service %s (%s) already in burst list for %s\n", 
-                                                                    user, userObj.getNick(), chanLower);
-                                                            } else if (userObj.isOper()) {
-                                                                System.out.printf("WARNING: Oper %s (%s) already in burst list for %s\n", 
-                                                                    user, userObj.getNick(), chanLower);
-                                                            }
-                                                        }
-                                                        break;
-                                                    }
-                                                }
-                                                if (alreadyAdded) {
-                                                    System.out.println("[DEBUG] User " + user + " already added to " + chanLower);
-                                                    continue;
-                                                }
-                                                
-                                                // Add with appropriate mode
-                                                if (hasAutoOp) {
-                                                    getBursts().get(chanLower).getUsers().add(user + ":o");
-                                                    System.out.println("[DEBUG] Added " + user + " with +o to " + chanLower);
-                                                } else if (hasAutoVoice) {
-                                                    getBursts().get(chanLower).getUsers().add(user + ":v");
-                                                    System.out.println("[DEBUG] Added " + user + " with +v to " + chanLower);
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                                
-                                // Add local connected users to channels they are in (even if not registered in DB)
-                                var onlineUsers = getUsers().keySet();
-                                for (var onlineUser : onlineUsers) {
-                                    // Only include local users from this server in outgoing burst.
-                                    if (!onlineUser.startsWith(jnumeric)) {
-                                        continue;
-                                    }
-                                    Users userData = getUsers().get(onlineUser);
-                                    if (userData.getChannels() != null && userData.getChannels().contains(chanLower)) {
-                                        // Check if this user is already added to burst
-                                        boolean alreadyInBurst = false;
-                                        for (Object obj : getBursts().get(chanLower).getUsers()) {
-                                            String entry = String.valueOf(obj);
-                                            String userInBurst;
-                                            if (entry.contains(":")) {
-                                                userInBurst = entry.split(":")[0];
-                                            } else {
-                                                userInBurst = entry;
-                                            }
-                                            if (userInBurst.equals(onlineUser)) {
-                                                alreadyInBurst = true;
-                                                // Enhanced logging for services/opers
-                                                if (userData.isService()) {
-                                                    System.out.printf("NOTICE: Service %s (%s) already in burst for %s - skipping duplicate\n",
-                                                        onlineUser, userData.getNick(), chanLower);
-                                                } else if (userData.isOper()) {
-                                                    System.out.printf("NOTICE: Oper %s (%s) already in burst for %s - skipping duplicate\n",
-                                                        onlineUser, userData.getNick(), chanLower);
-                                                }
-                                                break;
-                                            }
-                                        }
-                                        
-                                        if (!alreadyInBurst) {
-                                            getBursts().get(chanLower).getUsers().add(onlineUser);
-                                            System.out.println("[DEBUG] Added unregistered user " + onlineUser + " to " + chanLower);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        
-                        sendText("%s EA", jnumeric);
-                        System.out.printf("Sending BURST for %d channels for the services...\r\n", list.size());
-                        var bursts = getBursts().keySet();
-                        for (var burst : bursts) {
-                            Burst burstData = getBursts().get(burst);
-                            boolean debugMode = getMi() != null && getMi().getConfig() != null
-                                    && "true".equalsIgnoreCase(getMi().getConfig().getConfigFile().getProperty("debug", "false"));
-                            List<BurstUserEntry> outgoingUsers = parseBurstUsers(String.join(",", burstData.getUsers()), burst, debugMode);
-
-                            // Ignore foreign users in server-side outgoing burst.
-                            List<BurstUserEntry> localOutgoingUsers = new ArrayList<>();
-                            for (BurstUserEntry entry : outgoingUsers) {
-                                if (entry.numeric != null && entry.numeric.startsWith(jnumeric)) {
-                                    localOutgoingUsers.add(entry);
-                                } else if (debugMode) {
-                                    System.out.println("[DEBUG] Ignoring foreign user in outgoing BURST for " + burst + ": " + entry.numeric);
-                                }
-                            }
-                            
-                            Channel existingChannel = getChannel().get(burst.toLowerCase());
-                            // Use real channel TS for outgoing burst whenever possible.
-                            long burstTs = 0;
-                            if (existingChannel != null && existingChannel.getCreatedTimestamp() != null
-                                    && existingChannel.getCreatedTimestamp() > 0) {
-                                burstTs = existingChannel.getCreatedTimestamp();
-                            } else if (burstData.getTime() > 0) {
-                                burstTs = burstData.getTime();
-                            } else {
-                                String createdTs = getMi().getDb().getChannel("created", burst);
-                                if (createdTs != null && !createdTs.isBlank()) {
-                                    try {
-                                        burstTs = Long.parseLong(createdTs);
-                                    } catch (NumberFormatException ex) {
-                                        LOG.warning("Failed to parse DB created timestamp for channel " + burst + ": " + createdTs);
-                                    }
-                                }
-                            }
-                            if (burstTs <= 0) {
-                                burstTs = time();
-                            }
-                            burstData.setTime(burstTs);
-
-                            String burstModes = burstData.getModes();
-
-                            long localTs = 0;
-                            if (existingChannel != null && existingChannel.getCreatedTimestamp() != null) {
-                                localTs = existingChannel.getCreatedTimestamp();
-                            }
-
-                            // ircu2-style TS rule for outgoing burst:
-                            // - newer TS loses modes/status,
-                            // - older/equal TS keeps modes/status.
-                            boolean keepModesAndStatus = !(burstTs > 0 && localTs > 0 && burstTs > localTs);
-
-                            List<BurstUserEntry> effectiveOutgoingUsers = new ArrayList<>(localOutgoingUsers.size());
-                            if (keepModesAndStatus) {
-                                effectiveOutgoingUsers.addAll(localOutgoingUsers);
-                            } else {
-                                for (BurstUserEntry entry : localOutgoingUsers) {
-                                    effectiveOutgoingUsers.add(new BurstUserEntry(entry.numeric, false, false));
-                                }
-                            }
-
-                            String modesToSend = keepModesAndStatus ? burstModes : "";
-                            String userList = buildOutgoingBurstUserList(effectiveOutgoingUsers, jnumeric, keepModesAndStatus);
-                            String[] effectiveBurstUsers = userList.isBlank() ? new String[0] : userList.split(",");
-                            
-                            // Send BURST command for the channel
-                            // Format: <numeric> B <channel> <timestamp> [+modes] :<users>
-                            if (modesToSend != null && !modesToSend.isEmpty() && modesToSend.startsWith("+")) {
-                                sendText("%s B %s %d %s %s", jnumeric, burst, burstTs, modesToSend, userList);
-                            } else {
-                                sendText("%s B %s %d %s", jnumeric, burst, burstTs, userList);
-                            }
-                            
-                            System.out.printf("BURST: %s with %d users at timestamp %d\r\n", burst, effectiveBurstUsers.length, burstTs);
-                            
-                            // Keep local channel state consistent with TS rule used for outgoing BURST.
-                            if (existingChannel == null) {
-                                Channel newChannel = buildChannelFromBurst(
-                                        burst,
-                                        keepModesAndStatus ? (burstModes != null ? burstModes : "") : "",
-                                    effectiveOutgoingUsers,
-                                        burstTs);
-                                getChannel().put(burst.toLowerCase(), newChannel);
-                            } else {
-                                if (keepModesAndStatus) {
-                                    if (burstModes != null && !burstModes.isEmpty()) {
-                                        existingChannel.setModes(burstModes);
-                                    }
-                                    if (burstTs > 0 && (existingChannel.getCreatedTimestamp() == null || burstTs <= existingChannel.getCreatedTimestamp())) {
-                                        existingChannel.setCreatedTimestamp(burstTs);
-                                    }
-                                }
-                                applyBurstToExistingChannel(existingChannel, effectiveOutgoingUsers, keepModesAndStatus);
-                            }
-                            
-                            // Add channel to each user's channel list
-                            for (var userObj : effectiveBurstUsers) {
-                                String userEntry = String.valueOf(userObj);
-                                String userNumeric;
-                                if (userEntry.endsWith(":o") || userEntry.endsWith(":v") || userEntry.endsWith(":b")) {
-                                    userNumeric = userEntry.substring(0, userEntry.length() - 2);
-                                } else if (userEntry.contains(":")) {
-                                    userNumeric = userEntry.split(":")[0];
-                                } else {
-                                    userNumeric = userEntry;
-                                }
-                                if (getUsers().containsKey(userNumeric)) {
-                                    getUsers().get(userNumeric).addChannel(burst.toLowerCase());
-                                }
-                            }
-
-                        }
-                        setBurst(false);
-                        System.out.println("Channels joined...");
-                    } else if (elem[1].equals("J") || elem[1].equals("C")) {
-                        var channel = elem[2];
-                        var names = elem[0];
-                        var user = new String[1];
-                        
-                        // If it's a CREATE (C), give the creator OP status
-                        if (elem[1].equals("C")) {
-                            user[0] = names + ":o";
-                            System.out.println("[DEBUG] Channel CREATE: " + channel + " by " + names + " - giving OP status");
-                        } else {
-                            user[0] = names;
-                        }
-                        
-                        // Check if channel is suspended - if so, kick the user
-                        String suspendBy = getMi().getDb().getChannel("suspendby", channel);
-                        if (suspendBy != null && !suspendBy.isEmpty() && !suspendBy.equals("0")) {
-                            String reason = getMi().getDb().getChannel("suspendreason", channel);
-                            String kickReason = "Channel suspended: " + (reason != null ? reason : "No reason given");
-                            sendText("%s K %s %s :%s", "AA", channel, names, kickReason);
-                            continue;
-                        }
-                        
-                        if (getChannel().containsKey(channel.toLowerCase())) {
-                            getChannel().get(channel.toLowerCase()).addUser(names);
-                            getChannel().get(channel.toLowerCase()).getLastJoin().put(names, time());
-                            
-                            // If it's a CREATE and channel already exists, add OP
-                            if (elem[1].equals("C")) {
-                                getChannel().get(channel.toLowerCase()).addOp(names);
-                            }
-                        } else {
-                            getChannel().put(channel.toLowerCase(), new Channel(channel, "", user));
-                        }
-                        // Add channel to user's channel list
-                        if (getUsers().containsKey(names)) {
-                            getUsers().get(names).addChannel(channel.toLowerCase());
-                        }
-                    } else if (elem[1].equals("N") && elem.length >= 10) {
-                        // P10 N command - new user registration
-                        // Critical section: Check + Parse + Register (must be atomic)
-                        // Propagation is done after lock is released
-                        processNCommand(elem, content, jnumeric);
-                    } else if (elem[1].equals("N") && elem.length >= 3) {
-                        Users nickChangeUser = getUsers().get(elem[0]);
-                        if (nickChangeUser != null) {
-                            nickChangeUser.setNick(elem[2]);
-                        } else if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
-                            System.out.printf("DEBUG: Ignoring NICK change for unknown numeric %s -> %s\n", elem[0], elem[2]);
-                        }
-                    } else if (elem[1].equals("B") && elem.length >= 5) {
-                        // P10 Burst format: <numeric> B <channel> <timestamp> [+flags] <users...> [:<bans/exceptions>]
-                        String channel = elem[2].toLowerCase();
-                        String modes = "";
-                        int userStartIndex;
-
-                        if (elem.length > 4 && elem[4].startsWith("+")) {
-                            modes = elem[4];
-                            userStartIndex = 5;
-                        } else {
-                            userStartIndex = 4;
-                        }
-
-                        long burstTs = 0;
-                        try {
-                            burstTs = Long.parseLong(elem[3]);
-                        } catch (NumberFormatException ex) {
-                            LOG.warning("Failed to parse BURST timestamp for channel " + channel + ": " + elem[3]);
-                        }
-
-                        StringBuilder userListBuilder = new StringBuilder();
-                        for (int i = userStartIndex; i < elem.length; i++) {
-                            String token = elem[i];
-                            if (token.startsWith(":")) {
-                                break;
-                            }
-                            if (userListBuilder.length() > 0) {
-                                userListBuilder.append(" ");
-                            }
-                            userListBuilder.append(token);
-                        }
-
-                        boolean debugMode = getMi() != null && getMi().getConfig() != null
-                                && "true".equalsIgnoreCase(getMi().getConfig().getConfigFile().getProperty("debug", "false"));
-                        List<BurstUserEntry> usersInBurst = parseBurstUsers(userListBuilder.toString(), channel, debugMode);
-
-                        Channel existingChannel = getChannel().get(channel);
-                        if (existingChannel == null) {
-                            Channel newChannel = buildChannelFromBurst(channel, modes, usersInBurst, burstTs);
-                            getChannel().put(channel, newChannel);
-                        } else {
-                            Long localTsObj = existingChannel.getCreatedTimestamp();
-                            long localTs = localTsObj != null ? localTsObj : 0;
-
-                            if (burstTs > 0 && localTs > 0 && burstTs < localTs) {
-                                // Remote side has older TS -> remote channel state wins.
-                                Channel mergedFromBurst = buildChannelFromBurst(channel, modes, usersInBurst, burstTs);
-
-                                // Preserve any local-only members as plain users.
-                                for (String existingUser : existingChannel.getUsers()) {
-                                    if (!mergedFromBurst.getUsers().contains(existingUser)) {
-                                        mergedFromBurst.addUser(existingUser);
-                                    }
-                                }
-
-                                getChannel().put(channel, mergedFromBurst);
-                            } else if (burstTs > 0 && localTs > 0 && burstTs > localTs) {
-                                // Remote side has newer TS -> it loses channel modes/user-status.
-                                applyBurstToExistingChannel(existingChannel, usersInBurst, false);
-                            } else {
-                                // Equal TS (or unknown TS locally/remotely): merge members and status.
-                                if (!modes.isEmpty()) {
-                                    existingChannel.setModes(modes);
-                                }
-                                if (burstTs > 0 && localTs <= 0) {
-                                    existingChannel.setCreatedTimestamp(burstTs);
-                                }
-                                applyBurstToExistingChannel(existingChannel, usersInBurst, true);
-                            }
-                        }
-
-                        updateKnownUsersChannelMembership(usersInBurst, channel);
-                    } else if (elem[1].equals("AC") && getUsers().containsKey(elem[2])) {
-                        var acc = elem[3];
-                        var nick = elem[2];
-                        if (getUsers().get(nick).getAccount().isBlank()) {
-                            getUsers().get(nick).setAccount(acc);
-                        }
-                        
-                        // Let modules handle authentication (e.g., HostServ sets vhost)
-                        for (Module module : getModuleManager().getAllModules().values()) {
-                            if (module.isEnabled()) {
-                                module.handleAuthentication(nick, acc, jnumeric);
-                            }
-                        }
-                    } else if (elem.length >= 2 && elem[1].equals("G")) {
-                        // Reply to server ping; be tolerant of short/malformed lines
-                        String payload = "";
-                        if (elem.length >= 3) {
-                            int idx = content.indexOf(elem[2]);
-                            payload = idx >= 0 ? content.substring(idx) : "";
-                        }
-                        sendText("%s Z %s", jnumeric, payload);
-                    } else if (elem[1].equals("M") && elem.length >= 4) {
-                        var nick = elem[0];
-                        if (elem[3].contains("x")) {
-                            getUsers().get(nick).setX(true);
-                        }
-                        if (elem[3].contains("k")) {
-                            getUsers().get(nick).setService(true);
-                        }
-                        if (elem[3].contains("o")) {
-                            getUsers().get(nick).setOper(true);
-                        }
-                    } else if (elem[1].equals("M")) {
-                        var channel = elem[2].toLowerCase();
-                        if (channel.startsWith("#")) {
-                            var flags = elem[3].split("");
-                            var set = false;
-                            for (var mode : flags) {
-                                if (mode.equals("-")) {
-                                    set = false;
-                                } else if (mode.equals("+")) {
-                                    set = true;
-                                }
-                                if (set && mode.equals("o")) {
-                                    var users = elem[4].split(" ");
-                                    getChannel().get(channel.toLowerCase()).addOp(users[0]);
-                                }
-                                if (set && mode.equals("v")) {
-                                    var users = elem[4].split(" ");
-                                    getChannel().get(channel.toLowerCase()).addVoice(users[0]);
-                                }
-                                if (!set && mode.equals("o")) {
-                                    var users = elem[4].split(" ");
-                                    getChannel().get(channel.toLowerCase()).removeOp(users[0]);
-                                }
-                                if (!set && mode.equals("v")) {
-                                    var users = elem[4].split(" ");
-                                    getChannel().get(channel.toLowerCase()).removeVoice(users[0]);
-                                }
-                            }
-                        }
-                    } else if (elem[1].equals("T") && elem.length >= 4) {
-                        // Topic command: AA T #channel timestamp :topic text
-                        String channel = elem[2].toLowerCase();
-                        String topic = content.substring(content.indexOf(':', 1) + 1);
-                        
-                        Channel channelObj = getChannel().get(channel);
-                        if (channelObj != null) {
-                            channelObj.setTopic(topic);
-                            System.out.println("[DEBUG] Topic set for " + channel + ": " + topic);
-                        }
-                    } else if (elem[1].equals("Q")) {
-                        var nick = elem[0];
-                        for (var users : getUsers().values()) {
-                            var channels = users.getChannels().toArray();
-                            for (var channel : channels) {
-                                removeUser(nick, channel.toString());
-                            }
-                        }
-                        if (getAuthed().containsKey(nick)) {
-                            getAuthed().remove(nick);
-                        }
-                        var nn = getUsers().containsKey(nick) ? getUsers().get(nick).getAccount() : null;
-                        if (nn != null && getAuthed().containsKey(nn)) {
-                            getAuthed().remove(nn);
-                        }
-                        getUsers().remove(nick);
-                    } else if (elem[1].equals("D")) {
-                        var nick = elem[2];
-                        for (var users : getUsers().values()) {
-                            var channels = users.getChannels().toArray();
-                            for (var channel : channels) {
-                                removeUser(nick, channel.toString());
-                            }
-                        }
-                        if (getAuthed().containsKey(nick)) {
-                            getAuthed().remove(nick);
-                        }
-                        // Check if user exists before accessing nick
-                        if (getUsers().containsKey(nick)) {
-                            var nn = getUsers().get(nick).getNick();
-                            if (getAuthed().containsKey(nn)) {
-                                getAuthed().remove(nn);
-                            }
-                        }
-                        getUsers().remove(nick);
+                    // Parsed once here and shared with every module
+                    var message = P10Message.of(tokens);
+                    // Staged burst channels are committed before any other line can see or change them
+                    if (getBurstIngest().hasPending() && !message.isCommand("B")) {
+                        commitBurst();
+                    }
+                    // Core state handling; a handler returns false to keep the line from the modules
+                    if (!getDispatcher().dispatch(message)) {
+                        continue;
                     }
                     // Route line to all enabled modules - MUST be called for every line
-                    getModuleManager().routeLine(content);
+                    getModuleManager().routeMessage(message);
                     
-                    if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+                    if (getMi().getConfig().getSettings().isDebug()) {
                         System.out.printf("DEBUG get text: %s\n", content);
                     }
                 } catch (Exception e) {
@@ -1477,64 +1019,828 @@ public final class SocketThread implements Runnable, Software {
         } catch (IOException | NumberFormatException ex) {
             LOG.severe("Fehler beim Verbindungsaufbau: " + ex.getMessage());
         } finally {
-            if (getPw() != null) {
-                getPw().close();
-            }
-            if (getBr() != null) try {
-                getBr().close();
-            } catch (IOException ignored) {
+            if (getModuleManager() != null) {
+                // Lines of this link must not be answered on the next one
+                getModuleManager().drainMailboxes();
             }
-            if (getSocket() != null) try {
-                getSocket().close();
-            } catch (IOException ignored) {
+            if (getTransport() != null) {
+                var dropped = getTransport().getDroppedLines();
+                if (dropped > 0) {
+                    LOG.warning("Dropped " + dropped + " outgoing notices on this link, the BULK lane was full");
+                }
+                getTransport().close();
             }
-            setPw(null);
+            setTransport(null);
             setBr(null);
             setSocket(null);
-            setRuns(false);
+            getBurstIngest().clear();
+            var stats = getDispatcher().formatStats();
+            if (!stats.isEmpty()) {
+                LOG.info("P10 handler statistics:\n" + stats);
+            }
+            if (getModuleManager() != null) {
+                var mailboxStats = getModuleManager().formatMailboxStats();
+                if (!mailboxStats.isEmpty()) {
+                    LOG.info("Module mailbox statistics:\n" + mailboxStats);
+                }
+            }
             System.out.println("Disconnected...");
         }
     }
 
+    /**
+     * Marks all users and all channels as stale after the link dropped. The
+     * next netburst confirms what is still there; whatever is still stale
+     * at its end is swept. The hub does not echo our own clients, so the
+     * ones a module created at runtime, like protection dummies, are swept
+     * too: the new link never introduced them.
+     */
+    private void markStale() {
+        staleUsers.clear();
+        staleChannels.clear();
+        staleUsers.addAll(getUsers().keySet());
+        staleChannels.addAll(getChannel().keySet());
+        setBurst(true);
+    }
+
+    /**
+     * Drops users and channel members that the new netburst did not confirm
+     */
+    private void sweepStale() {
+        if (staleUsers.isEmpty() && staleChannels.isEmpty()) {
+            return;
+        }
+        int users = staleUsers.size();
+        int channels = staleChannels.size();
+        for (var numeric : staleUsers) {
+            removeUserFromChannels(numeric);
+            getUsers().remove(numeric);
+        }
+        for (var chanLower : staleChannels) {
+            var ch = getChannel().get(chanLower);
+            if (ch == null) {
+                continue;
+            }
+            for (var member : ch.getUsers().toArray(new String[0])) {
+                if (!member.startsWith(getNumeric())) {
+                    removeUser(member, chanLower);
+                }
+            }
+        }
+        staleUsers.clear();
+        staleChannels.clear();
+        LOG.info("Resync complete, dropped " + users + " users and checked " + channels + " channels not seen in the netburst");
+    }
+
+    /**
+     * SERVER: remembers the numeric of our uplink
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleServer(P10Message message) {
+        setServerNumeric(message.token(SERVERNAME_INDEX).substring(0, 1));
+        System.out.println("Getting SERVER response...");
+        return true;
+    }
+
+    /**
+     * EB: end of the incoming burst, sends our own burst with channel rights from the database
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleEndOfBurst(P10Message message) {
+        if (!isBurst()) {
+            return true;
+        }
+        sweepStale();
+        
+        // One query for the accounts of everybody in the netburst instead of one per reply later
+        var accounts = new HashSet<String>();
+        for (var user : getUsers().snapshot().values()) {
+            if (user.getAccount() != null && !user.getAccount().isBlank()) {
+                accounts.add(user.getAccount());
+            }
+        }
+        getMi().getDb().preloadAccounts(accounts);
+        
+        // Now that all users are loaded, fetch the rights of all burst channels in one query
+        boolean debug = getMi().getConfig().getSettings().isDebug();
+        int rightsMask = Userflags.QCUFlag.AUTOOP.value | Userflags.QCUFlag.AUTOVOICE.value | Userflags.QCUFlag.BANNED.value;
+        var rights = getMi().getDb().getChanUserRights(getBursts().keySet(), rightsMask);
+        // Numerics already listed per burst channel, so duplicate checks are lookups
+        var listed = new HashMap<String, Set<String>>();
+        for (var right : rights) {
+            var chanLower = right.channel();
+            var burst = getBursts().get(chanLower);
+            if (burst == null || !chanLower.startsWith("#")) {
+                continue; // Skip channels not registered by modules
+            }
+            int flags = right.flags();
+            boolean hasAutoOp = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.AUTOOP);
+            boolean hasAutoVoice = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.AUTOVOICE);
+            boolean isBanned = Userflags.hasQCUFlag(flags, Userflags.QCUFlag.BANNED);
+
+            // Only the sessions logged in to this account
+            for (var user : getUsers().getNumericsByAccount(right.username())) {
+                var u = getUsers().get(user);
+                if (u == null) {
+                    continue;
+                }
+                // Only apply DB-derived burst status for users who are actually
+                // in this channel (known channel state or user channel list).
+                Channel knownChannel = getChannel().get(chanLower);
+                boolean userInChannel = (knownChannel != null && knownChannel.hasUser(user))
+                        || u.getChannels().contains(chanLower);
+                if (!userInChannel) {
+                    if (debug) {
+                        System.out.println("[DEBUG] Skip DB-rights burst add for " + user + " in " + chanLower + " (not a channel member)");
+                    }
+                    continue;
+                }
+
+                var inBurst = listed.computeIfAbsent(chanLower, k -> burstNumerics(burst));
+
+                // Handle BANNED flag - mark for ban+kick (to be processed by ChanServ)
+                if (isBanned) {
+                    burst.getUsers().add(user + ":b");
+                    inBurst.add(user);
+                    System.out.println("[DEBUG] Added " + user + " with ban flag to " + chanLower);
+                    continue; // Don't add op/voice modes for banned users
+                }
+
+                if (inBurst.contains(user)) {
+                    if (u.isService()) {
+                        System.out.printf("WARNING: Service %s (%s) already in burst list for %s\n", user, u.getNick(), chanLower);
+                    } else if (u.isOper()) {
+                        System.out.printf("WARNING: Oper %s (%s) already in burst list for %s\n", user, u.getNick(), chanLower);
+                    }
+                    continue;
+                }
+
+                // Add with appropriate mode
+                if (hasAutoOp) {
+                    burst.getUsers().add(user + ":o");
+                    inBurst.add(user);
+                    System.out.println("[DEBUG] Added " + user + " with +o to " + chanLower);
+                } else if (hasAutoVoice) {
+                    burst.getUsers().add(user + ":v");
+                    inBurst.add(user);
+                    System.out.println("[DEBUG] Added " + user + " with +v to " + chanLower);
+                }
+            }
+        }
+
+        // Add local connected users to channels they are in (even if not registered in DB)
+        for (var entry : getUsers().entrySet()) {
+            var onlineUser = entry.getKey();
+            // Only include local users from this server in outgoing burst.
+            if (!onlineUser.startsWith(getNumeric())) {
+                continue;
+            }
+            Users userData = entry.getValue();
+            for (var chanLower : userData.getChannels()) {
+                var burst = getBursts().get(chanLower);
+                if (burst == null || !chanLower.startsWith("#")) {
+                    continue;
+                }
+                var inBurst = listed.computeIfAbsent(chanLower, k -> burstNumerics(burst));
+                if (inBurst.add(onlineUser)) {
+                    burst.getUsers().add(onlineUser);
+                    System.out.println("[DEBUG] Added unregistered user " + onlineUser + " to " + chanLower);
+                } else if (userData.isService()) {
+                    System.out.printf("NOTICE: Service %s (%s) already in burst for %s - skipping duplicate\n",
+                        onlineUser, userData.getNick(), chanLower);
+                } else if (userData.isOper()) {
+                    System.out.printf("NOTICE: Oper %s (%s) already in burst for %s - skipping duplicate\n",
+                        onlineUser, userData.getNick(), chanLower);
+                }
+            }
+        }
+        
+        sendText("%s EA", getNumeric());
+        System.out.printf("Sending BURST for %d channels for the services...\r\n", getBursts().size());
+        var bursts = getBursts().keySet();
+        for (var burst : bursts) {
+            Burst burstData = getBursts().get(burst);
+            boolean debugMode = getMi() != null && getMi().getConfig() != null
+                    && getMi().getConfig().getSettings().isDebug();
+            List<BurstUserEntry> outgoingUsers = parseBurstUsers(burstData.getUsers(), burst, debugMode);
+
+            // Ignore foreign users in server-side outgoing burst.
+            List<BurstUserEntry> localOutgoingUsers = new ArrayList<>();
+            for (BurstUserEntry entry : outgoingUsers) {
+                if (entry.numeric != null && entry.numeric.startsWith(getNumeric())) {
+                    localOutgoingUsers.add(entry);
+                } else if (debugMode) {
+                    System.out.println("[DEBUG] Ignoring foreign user in outgoing BURST for " + burst + ": " + entry.numeric);
+                }
+            }
+            
+            Channel existingChannel = getChannel().get(burst.toLowerCase());
+            // Use real channel TS for outgoing burst whenever possible.
+            long burstTs = 0;
+            if (existingChannel != null && existingChannel.getCreatedTimestamp() != null
+                    && existingChannel.getCreatedTimestamp() > 0) {
+                burstTs = existingChannel.getCreatedTimestamp();
+            } else if (burstData.getTime() > 0) {
+                burstTs = burstData.getTime();
+            } else {
+                String createdTs = getMi().getDb().getChannel("created", burst);
+                if (createdTs != null && !createdTs.isBlank()) {
+                    try {
+                        burstTs = Long.parseLong(createdTs);
+                    } catch (NumberFormatException ex) {
+                        LOG.warning("Failed to parse DB created timestamp for channel " + burst + ": " + createdTs);
+                    }
+                }
+            }
+            if (burstTs <= 0) {
+                burstTs = time();
+            }
+            burstData.setTime(burstTs);
+
+            String burstModes = burstData.getModes();
+
+            long localTs = 0;
+            if (existingChannel != null && existingChannel.getCreatedTimestamp() != null) {
+                localTs = existingChannel.getCreatedTimestamp();
+            }
+
+            // ircu2-style TS rule for outgoing burst:
+            // - newer TS loses modes/status,
+            // - older/equal TS keeps modes/status.
+            boolean keepModesAndStatus = !(burstTs > 0 && localTs > 0 && burstTs > localTs);
+
+            List<BurstUserEntry> effectiveOutgoingUsers = new ArrayList<>(localOutgoingUsers.size());
+            if (keepModesAndStatus) {
+                effectiveOutgoingUsers.addAll(localOutgoingUsers);
+            } else {
+                for (BurstUserEntry entry : localOutgoingUsers) {
+                    effectiveOutgoingUsers.add(new BurstUserEntry(entry.numeric, false, false));
+                }
+            }
+
+            String modesToSend = keepModesAndStatus ? burstModes : "";
+            for (BurstUserEntry entry : effectiveOutgoingUsers) {
+                // Preserve previous behavior: local service users are opped in outgoing burst.
+                // This is required so services keep their control role after burst sync.
+                boolean op = entry.op || (!entry.voice && entry.numeric.startsWith(getNumeric()));
+                encoder.add(entry.numeric, op, entry.voice);
+            }
+
+            // Send BURST command for the channel, split at the line length limit
+            // Format: <numeric> B <channel> <timestamp> [+modes] <users>
+            int lines = encoder.encode(getNumeric(), burst, burstTs, modesToSend, this::sendLine);
+
+            System.out.printf("BURST: %s with %d users in %d lines at timestamp %d\r\n", burst, effectiveOutgoingUsers.size(), lines, burstTs);
+            
+            // Keep local channel state consistent with TS rule used for outgoing BURST.
+            if (existingChannel == null) {
+                Channel newChannel = buildChannelFromBurst(
+                        burst,
+                        keepModesAndStatus ? (burstModes != null ? burstModes : "") : "",
+                    effectiveOutgoingUsers,
+                        burstTs);
+                getChannel().put(burst.toLowerCase(), newChannel);
+            } else {
+                if (keepModesAndStatus) {
+                    if (burstModes != null && !burstModes.isEmpty()) {
+                        existingChannel.setModes(burstModes);
+                    }
+                    if (burstTs > 0 && (existingChannel.getCreatedTimestamp() == null || burstTs <= existingChannel.getCreatedTimestamp())) {
+                        existingChannel.setCreatedTimestamp(burstTs);
+                    }
+                }
+                applyBurstToExistingChannel(existingChannel, effectiveOutgoingUsers, keepModesAndStatus);
+            }
+            
+            // Add channel to each user's channel list
+            for (BurstUserEntry entry : effectiveOutgoingUsers) {
+                Users user = getUsers().get(entry.numeric);
+                if (user != null) {
+                    user.addChannel(burst.toLowerCase());
+                }
+            }
+
+        }
+        setBurst(false);
+        System.out.println("Channels joined...");
+        return true;
+    }
+
+    /**
+     * J/C: join or create, kicks users out of suspended channels
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleJoin(P10Message message) {
+        if (message.count() < 3) {
+            return true;
+        }
+        var channel = message.token(2);
+        var names = message.token(0);
+        var create = message.isCommand("C");
+        var user = new String[1];
+        
+        // If it's a CREATE (C), give the creator OP status
+        if (create) {
+            user[0] = names + ":o";
+            System.out.println("[DEBUG] Channel CREATE: " + channel + " by " + names + " - giving OP status");
+        } else {
+            user[0] = names;
+        }
+        
+        // Check if channel is suspended - if so, kick the user
+        String suspendBy = getMi().getDb().getChannel("suspendby", channel);
+        if (suspendBy != null && !suspendBy.isEmpty() && !suspendBy.equals("0")) {
+            String reason = getMi().getDb().getChannel("suspendreason", channel);
+            String kickReason = "Channel suspended: " + (reason != null ? reason : "No reason given");
+            sendText("%s K %s %s :%s", "AA", channel, names, kickReason);
+            return false;
+        }
+        
+        var existing = getChannel().get(channel.toLowerCase());
+        if (existing != null) {
+            // If it's a CREATE and channel already exists, add OP
+            existing.mergeUser(names, create ? Channel.STATUS_OP : 0, time());
+            existing.setJoinTime(names, time());
+        } else {
+            getChannel().put(channel.toLowerCase(), new Channel(channel, "", user));
+        }
+        // Add channel to user's channel list
+        if (getUsers().containsKey(names)) {
+            getUsers().get(names).addChannel(channel.toLowerCase());
+        }
+        return true;
+    }
+
+    /**
+     * N: new user (10 or more tokens) or nick change
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleNick(P10Message message) {
+        int count = message.count();
+        if (count >= 10) {
+            // A user we knew before the reconnect: its channels come again with the B lines
+            if (!staleUsers.isEmpty()) {
+                var tokens = getTokenizer();
+                if (tokens.getLine() != message.getRaw()) {
+                    tokens.reset(message.getRaw());
+                }
+                var numeric = extractNumericFromNCommand(tokens);
+                if (staleUsers.contains(numeric)) {
+                    var known = getUsers().get(numeric);
+                    if (known != null) {
+                        known.setChannels(List.of());
+                    }
+                }
+            }
+            // P10 N command - new user registration
+            // Critical section: Check + Parse + Register (must be atomic)
+            // Propagation is done after lock is released
+            // A new user needs nearly every field, so the token array pays off here
+            processNCommand(message.tokens(), message.getRaw(), getNumeric());
+        } else if (count >= 3) {
+            var numeric = message.token(0);
+            var newNick = message.token(2);
+            Users nickChangeUser = getUsers().changeNick(numeric, newNick);
+            if (nickChangeUser == null && getMi().getConfig().getSettings().isDebug()) {
+                System.out.printf("DEBUG: Ignoring NICK change for unknown numeric %s -> %s\n", numeric, newNick);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * B: channel burst, merged with known state using the ircu TS rules
+     * During a netburst the lines are built in parallel and committed at EB
+     * or at a checkpoint.
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleBurst(P10Message message) {
+        if (message.count() < 5) {
+            return true;
+        }
+        if (isBurst()) {
+            if (getBurstIngest().submit(message.token(2).toLowerCase(), message)) {
+                commitBurst();
+            }
+        } else {
+            Map<String, Channel> staged = new LinkedHashMap<>(2);
+            stageBurst(message, staged);
+            commitStaged(staged);
+        }
+        return true;
+    }
+
+    /**
+     * Commits all channels staged by the burst ingest
+     */
+    private void commitBurst() {
+        for (var staged : getBurstIngest().checkpoint()) {
+            commitStaged(staged);
+        }
+    }
+
+    /**
+     * Publishes staged channels and links their members
+     *
+     * @param staged Channels by lower case name
+     */
+    private void commitStaged(Map<String, Channel> staged) {
+        for (var entry : staged.entrySet()) {
+            staleChannels.remove(entry.getKey());
+            getChannel().put(entry.getKey(), entry.getValue());
+            for (var numeric : entry.getValue().getUsers()) {
+                var user = getUsers().get(numeric);
+                if (user != null) {
+                    user.addChannel(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param channel A channel known from before a reconnect
+     * @return a copy with modes, timestamp and the local members only
+     */
+    private Channel copyLocalMembers(Channel channel) {
+        return copyChannel(channel, true);
+    }
+
+    /**
+     * The burst ingest works on copies, the modules may read the published
+     * channel at the same time
+     *
+     * @param channel A published channel
+     * @param localOnly true to keep only our own members
+     * @return a copy with modes, topic, timestamp and members
+     */
+    private Channel copyChannel(Channel channel, boolean localOnly) {
+        var copy = new Channel(channel.getName(), channel.getModes());
+        copy.setCreatedTimestamp(channel.getCreatedTimestamp());
+        copy.setTopic(channel.getTopic());
+        for (var member : channel.getUsers()) {
+            if (!localOnly || member.startsWith(getNumeric())) {
+                copy.mergeUser(member, channel.getStatus(member), channel.getJoinTime(member));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Builds the channel state of one B line without publishing it.
+     * Runs on the burst ingest workers; it only reads the shared maps, which
+     * do not change while a checkpoint is running.
+     *
+     * @param message The B line
+     * @param staged Channels staged so far, by lower case name
+     */
+    private void stageBurst(P10Message message, Map<String, Channel> staged) {
+        var elem = message.tokens();
+        // P10 Burst format: <numeric> B <channel> <timestamp> [+flags] <users...> [:<bans/exceptions>]
+        String channel = elem[2].toLowerCase();
+        String modes = "";
+        int userStartIndex;
+
+        if (elem.length > 4 && elem[4].startsWith("+")) {
+            modes = elem[4];
+            userStartIndex = 5;
+        } else {
+            userStartIndex = 4;
+        }
+
+        long burstTs = 0;
+        try {
+            burstTs = Long.parseLong(elem[3]);
+        } catch (NumberFormatException ex) {
+            LOG.warning("Failed to parse BURST timestamp for channel " + channel + ": " + elem[3]);
+        }
+
+        StringBuilder userListBuilder = new StringBuilder();
+        for (int i = userStartIndex; i < elem.length; i++) {
+            String token = elem[i];
+            if (token.startsWith(":")) {
+                break;
+            }
+            if (userListBuilder.length() > 0) {
+                userListBuilder.append(" ");
+            }
+            userListBuilder.append(token);
+        }
+
+        boolean debugMode = getMi() != null && getMi().getConfig() != null
+                && getMi().getConfig().getSettings().isDebug();
+        List<BurstUserEntry> usersInBurst = parseBurstUsers(userListBuilder.toString(), channel, debugMode);
+
+        Channel existingChannel = staged.get(channel);
+        if (existingChannel == null) {
+            existingChannel = getChannel().get(channel);
+            if (existingChannel != null) {
+                // Known from before the reconnect: only our own members are still certain
+                existingChannel = copyChannel(existingChannel, staleChannels.contains(channel));
+            }
+        }
+        if (existingChannel == null) {
+            staged.put(channel, buildChannelFromBurst(channel, modes, usersInBurst, burstTs));
+        } else {
+            Long localTsObj = existingChannel.getCreatedTimestamp();
+            long localTs = localTsObj != null ? localTsObj : 0;
+
+            if (burstTs > 0 && localTs > 0 && burstTs < localTs) {
+                // Remote side has older TS -> remote channel state wins.
+                Channel mergedFromBurst = buildChannelFromBurst(channel, modes, usersInBurst, burstTs);
+
+                // Preserve any local-only members as plain users.
+                for (String existingUser : existingChannel.getUsers()) {
+                    mergedFromBurst.mergeUser(existingUser, 0, existingChannel.getJoinTime(existingUser));
+                }
+
+                staged.put(channel, mergedFromBurst);
+            } else if (burstTs > 0 && localTs > 0 && burstTs > localTs) {
+                // Remote side has newer TS -> it loses channel modes/user-status.
+                applyBurstToExistingChannel(existingChannel, usersInBurst, false);
+            } else {
+                // Equal TS (or unknown TS locally/remotely): merge members and status.
+                if (!modes.isEmpty()) {
+                    existingChannel.setModes(modes);
+                }
+                if (burstTs > 0 && localTs <= 0) {
+                    existingChannel.setCreatedTimestamp(burstTs);
+                }
+                applyBurstToExistingChannel(existingChannel, usersInBurst, true);
+            }
+            staged.putIfAbsent(channel, existingChannel);
+        }
+    }
+
+    /**
+     * AC: account login
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleAccount(P10Message message) {
+        if (message.count() < 4) {
+            return true;
+        }
+        var nick = message.token(2);
+        if (!getUsers().containsKey(nick)) {
+            return true;
+        }
+        var acc = message.token(3);
+        if (getUsers().get(nick).getAccount().isBlank()) {
+            getUsers().setAccount(nick, acc);
+        }
+        // Loads the account once, the modules below read it from the cache
+        getMi().getDb().getAccount(acc);
+        
+        // Let modules handle authentication (e.g., HostServ sets vhost)
+        for (Module module : getModuleManager().getAllModules().values()) {
+            if (module.isEnabled()) {
+                module.handleAuthentication(nick, acc, getNumeric());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * G: ping from the uplink
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handlePing(P10Message message) {
+        // Reply to server ping; be tolerant of short/malformed lines
+        String payload = "";
+        if (message.count() >= 3) {
+            payload = message.getRaw().substring(message.tokenStart(2));
+        }
+        sendText("%s Z %s", getNumeric(), payload);
+        return true;
+    }
+
+    /**
+     * M: mode change
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleMode(P10Message message) {
+        int count = message.count();
+        if (count < 4) {
+            return true;
+        }
+        var modes = message.token(3);
+        if (!isChannelTarget(message)) {
+            var user = getUsers().get(message.token(0));
+            if (user == null) {
+                return true;
+            }
+            if (modes.indexOf('x') >= 0) {
+                user.setX(true);
+            }
+            if (modes.indexOf('k') >= 0) {
+                user.setService(true);
+            }
+            if (modes.indexOf('o') >= 0) {
+                user.setOper(true);
+            }
+            return true;
+        }
+        var channel = getChannel().get(message.token(2).toLowerCase());
+        if (channel == null) {
+            return true;
+        }
+        // Parameters follow the mode string in the order of the modes that take one
+        var param = 4;
+        var set = true;
+        for (int i = 0; i < modes.length(); i++) {
+            char mode = modes.charAt(i);
+            switch (mode) {
+                case '+' -> set = true;
+                case '-' -> set = false;
+                case 'o', 'v', 'h' -> {
+                    if (param < count) {
+                        int status = mode == 'o' ? Channel.STATUS_OP
+                                : mode == 'v' ? Channel.STATUS_VOICE : Channel.STATUS_HALFOP;
+                        channel.setStatus(message.token(param++), status, set);
+                    }
+                }
+                case 'b', 'k' -> param++;
+                case 'l' -> {
+                    if (set) {
+                        param++;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isChannelTarget(P10Message message) {
+        return message.tokenStartsWith(2, '#') || message.tokenStartsWith(2, '&')
+                || message.tokenStartsWith(2, '+') || message.tokenStartsWith(2, '!');
+    }
+
+    /**
+     * T: topic change
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleTopic(P10Message message) {
+        if (message.count() < 4) {
+            return true;
+        }
+        // Topic command: AA T #channel timestamp :topic text
+        String channel = message.token(2).toLowerCase();
+        String topic = message.getRaw().substring(message.getRaw().indexOf(':', 1) + 1);
+        
+        Channel channelObj = getChannel().get(channel);
+        if (channelObj != null) {
+            channelObj.setTopic(topic);
+            System.out.println("[DEBUG] Topic set for " + channel + ": " + topic);
+        }
+        return true;
+    }
+
+    /**
+     * Q: user quit
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleQuit(P10Message message) {
+        var nick = message.token(0);
+        removeUserFromChannels(nick);
+        if (getAuthed().containsKey(nick)) {
+            getAuthed().remove(nick);
+        }
+        var nn = getUsers().containsKey(nick) ? getUsers().get(nick).getAccount() : null;
+        if (nn != null && getAuthed().containsKey(nn)) {
+            getAuthed().remove(nn);
+        }
+        getUsers().remove(nick);
+        return true;
+    }
+
+    /**
+     * D: user kill
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleKill(P10Message message) {
+        if (message.count() < 3) {
+            return true;
+        }
+        var nick = message.token(2);
+        removeUserFromChannels(nick);
+        if (getAuthed().containsKey(nick)) {
+            getAuthed().remove(nick);
+        }
+        // Check if user exists before accessing nick
+        if (getUsers().containsKey(nick)) {
+            var nn = getUsers().get(nick).getNick();
+            if (getAuthed().containsKey(nn)) {
+                getAuthed().remove(nn);
+            }
+        }
+        getUsers().remove(nick);
+        return true;
+    }
+
+    /**
+     * L: user parts one or more channels
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handlePart(P10Message message) {
+        if (message.count() < 3) {
+            return true;
+        }
+        var nick = message.token(0);
+        for (var channel : message.token(2).split(",")) {
+            if (!channel.isEmpty()) {
+                removeUser(nick, channel);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * K: user is kicked from a channel
+     *
+     * @param message The parsed line
+     * @return true if the line should be routed to the modules
+     */
+    private boolean handleKick(P10Message message) {
+        if (message.count() < 4) {
+            return true;
+        }
+        removeUser(message.token(3), message.token(2));
+        return true;
+    }
+
     protected void partChannel(String channel, String numeric, String service) {
         // Send PART (L) with timestamp; include a short reason for readability
         sendText("%s%s L %s :Leaving", numeric, service, channel);
     }
 
     protected void removeUser(String nick, String channel) {
-        if (!getChannel().containsKey(channel.toLowerCase())) {
+        var chanLower = channel.toLowerCase();
+        var ch = getChannel().get(chanLower);
+        if (ch == null) {
             return;
         }
-        var ch = getChannel().get(channel.toLowerCase());
         ch.removeUser(nick);
-        ch.removeOp(nick);
-        ch.removeVoice(nick);
-        if (ch.getLastJoin().containsKey(nick)) {
-            ch.getLastJoin().remove(nick);
+        if (ch.getUserCount() == 0) {
+            getChannel().remove(chanLower);
         }
-        if (ch.getUsers().isEmpty()) {
-            getChannel().remove(channel.toLowerCase());
+        var user = getUsers().get(nick);
+        if (user != null) {
+            user.removeChannel(chanLower);
         }
-        // Check if user exists before accessing channels
-        if (getUsers().containsKey(nick) && getUsers().get(nick) != null && 
-            getUsers().get(nick).getChannels().contains(channel.toLowerCase())) {
-            getUsers().get(nick).removeChannel(channel.toLowerCase());
+    }
+
+    /**
+     * Removes a user from all of its channels
+     * Only the user's own memberships are touched, so a quit costs
+     * O(channels of the user) instead of a walk over the whole network
+     *
+     * @param nick The user's numeric
+     */
+    protected void removeUserFromChannels(String nick) {
+        var user = getUsers().get(nick);
+        if (user == null) {
+            return;
+        }
+        for (var channel : user.getChannels().toArray(new String[0])) {
+            removeUser(nick, channel);
         }
     }
 
     protected boolean isAuthed(String nick) {
-        return !checkAuthed(nick).isEmpty();
+        return getUsers().hasAccount(nick);
     }
 
-    protected ArrayList<String> checkAuthed(String nick) {
-        var list = new ArrayList<String>();
-        var users = getUsers().keySet();
-        for (var user : users) {
-            if (getUsers().get(user) != null && !getUsers().get(user).getAccount().isBlank() && getUsers().get(user).getAccount().equalsIgnoreCase(nick)) {
-                list.add(user);
-            }
-        }
-        return list;
+    /**
+     * @param nick Account name
+     * @return numerics of all sessions logged in to the account (read-only)
+     */
+    protected Set<String> checkAuthed(String nick) {
+        return getUsers().getNumericsByAccount(nick);
     }
 
     protected boolean isNotice(String nick) {
@@ -1717,6 +2023,55 @@ public final class SocketThread implements Runnable, Software {
         this.socket = socket;
     }
 
+    /**
+     * @return the transport
+     */
+    public UplinkTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @param transport the transport to set
+     */
+    public void setTransport(UplinkTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * @return the dispatch table for core P10 commands
+     */
+    public P10Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * @return the local server numeric
+     */
+    public String getNumeric() {
+        return numeric;
+    }
+
+    /**
+     * @param numeric the local server numeric to set
+     */
+    public void setNumeric(String numeric) {
+        this.numeric = numeric;
+    }
+
+    /**
+     * @return the parallel ingest for incoming netburst channels
+     */
+    public BurstIngest getBurstIngest() {
+        return burstIngest;
+    }
+
+    /**
+     * @return the tokenizer used by the reader thread
+     */
+    protected P10Tokenizer getTokenizer() {
+        return tokenizer;
+    }
+
     /**
      * @return the pw
      */
@@ -1745,6 +2100,13 @@ public final class SocketThread implements Runnable, Software {
         this.br = br;
     }
 
+    /**
+     * @return true while the connection thread is running
+     */
+    public boolean isAlive() {
+        return thread.isAlive();
+    }
+
     /**
      * @return the runs
      */
@@ -1757,6 +2119,11 @@ public final class SocketThread implements Runnable, Software {
      */
     public void setRuns(boolean runs) {
         this.runs = runs;
+        var current = getTransport();
+        if (!runs && current != null) {
+            // Wakes up the reader, otherwise it would wait for the next line
+            current.close();
+        }
     }
 
     /**
@@ -1790,14 +2157,14 @@ public final class SocketThread implements Runnable, Software {
     /**
      * @return the bursts
      */
-    public HashMap<String, Burst> getBursts() {
+    public Map<String, Burst> getBursts() {
         return bursts;
     }
 
     /**
      * @param bursts the bursts to set
      */
-    public void setBursts(HashMap<String, Burst> bursts) {
+    public void setBursts(Map<String, Burst> bursts) {
         this.bursts = bursts;
     }
     private static final Logger LOG = Logger.getLogger(SocketThread.class.getName());
@@ -7,13 +7,14 @@ package net.midiandmore.jserv;
 import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 public final class SpamScan implements Software, Module {
     
-    private boolean enabled = false;
+    private volatile boolean enabled = false;
 
     /**
      * @return the nick
@@ -90,7 +91,7 @@ public final class SpamScan implements Software, Module {
     private Socket socket;
     private PrintWriter pw;
     private BufferedReader br;
-    private boolean runs;
+    private volatile boolean runs;
     private String serverNumeric;
     private String numeric;
     private String numericSuffix;
@@ -99,7 +100,7 @@ public final class SpamScan implements Software, Module {
     private String servername;
     private String description;
     private byte[] ip;
-    private boolean reg;
+    private volatile boolean reg;
     private SocketThread st;
 
     public SpamScan(JServ mi, SocketThread st, PrintWriter pw, BufferedReader br) {
@@ -154,7 +155,7 @@ public final class SpamScan implements Software, Module {
     }
     
     @Override
-    public void registerBurstChannels(java.util.HashMap<String, Burst> bursts, String serverNumeric) {
+    public void registerBurstChannels(java.util.Map<String, Burst> bursts, String serverNumeric) {
         if (!enabled) {
             return;
         }
@@ -230,20 +231,29 @@ public final class SpamScan implements Software, Module {
         }
         getPw().println(text.formatted(args));
         getPw().flush();
-        if (getMi().getConfig().getConfigFile().getProperty("debug", "false").equalsIgnoreCase("true")) {
+        if (getMi().getConfig().getSettings().isDebug()) {
             LOG.log(Level.FINE, "DEBUG sendText: {0}", text.formatted(args));
         }
     }
 
     @Override
     public void parseLine(String text) {
+        parseMessage(P10Message.parse(text.trim()));
+    }
+
+    @Override
+    public void parseMessage(P10Message line) {
         if (!enabled) {
             return;
         }
         try {
-            text = text.trim();
+            // SpamScan only looks at messages, notices, parts and kicks
+            if (!line.isCommand("P") && !line.isCommand("O")
+                    && !line.isCommand("L") && !line.isCommand("K")) {
+                return;
+            }
             if (getSt().getServerNumeric() != null) {
-                var elem = text.split(" ");
+                var elem = line.tokens();
                 // Handle private messages to SpamScan
                 if (elem[1].equals("P") && elem[2].equals(getNumeric() + getNumericSuffix())) {
                     var sb = new StringBuilder();
@@ -291,9 +301,9 @@ public final class SpamScan implements Software, Module {
                                 long chanId = Long.parseLong(chanIdStr);
                                 long userId = getMi().getDb().getUserId(nick);
                                 if (userId > 0) {
-                                    String[] chanUser = getMi().getDb().getChanUser(userId, chanId);
-                                    if (chanUser != null && chanUser[0] != null) {
-                                        int chanUserFlags = Integer.parseInt(chanUser[0]);
+                                    var chanUser = getMi().getDb().getChanUser(userId, chanId);
+                                    if (chanUser != null) {
+                                        int chanUserFlags = chanUser.flags();
                                         // Check for MASTER or OWNER flag
                                         if (Userflags.hasQCUFlag(chanUserFlags, Userflags.QCUFlag.MASTER) ||
                                             Userflags.hasQCUFlag(chanUserFlags, Userflags.QCUFlag.OWNER)) {
@@ -311,7 +321,7 @@ public final class SpamScan implements Software, Module {
                         } else {
                             // Privileged users bypass the 5-user requirement
                             Channel chan = getSt().getChannel().get(channel.toLowerCase());
-                            int userCount = chan != null ? chan.getUsers().size() : 0;
+                            int userCount = chan != null ? chan.getUserCount() : 0;
                             
                             if (!isPrivileged && userCount < 5) {
                                 getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0],
@@ -390,12 +400,14 @@ public final class SpamScan implements Software, Module {
                                 } else if (flag.equalsIgnoreCase("DELETE")) {
                                     b.remove(parsed.toLowerCase());
                                     getMi().getConfig().saveDataToJSON("badwords-spamscan.json", b, "name", "value");
+                                    getMi().getConfig().refreshSettings();
                                     getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_BADWORD_REMOVED", parsed));
                                 }
                             } else {
                                 if (flag.equalsIgnoreCase("ADD")) {
                                     b.put(parsed.toLowerCase(), "");
                                     getMi().getConfig().saveDataToJSON("badwords-spamscan.json", b, "name", "value");
+                                    getMi().getConfig().refreshSettings();
                                     getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_BADWORD_ADDED", parsed));
                                 } else if (flag.equalsIgnoreCase("DELETE")) {
                                     getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_BADWORD_NOT_EXISTS", parsed));
@@ -486,11 +498,11 @@ public final class SpamScan implements Software, Module {
                         getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_HELP_SPAMSCORE_USAGE"));
                         getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_HELP_SPAMSCORE_DESC"));
                     } else if (getSt().isOper(nick) && auth[0].equalsIgnoreCase("GLINESTATS")) {
-                        var config = getMi().getConfig().getSpamFile();
-                        boolean glineEnabled = Boolean.parseBoolean(config.getProperty("enableGLine", "true"));
-                        int glineThreshold = Integer.parseInt(config.getProperty("glineAfterKills", "3"));
-                        int glineDuration = Integer.parseInt(config.getProperty("glineDuration", "86400"));
-                        String glineReason = config.getProperty("glineReason", "Repeated spam violations");
+                        var settings = getMi().getConfig().getSettings();
+                        boolean glineEnabled = settings.isGlineEnabled();
+                        int glineThreshold = settings.getGlineAfterKills();
+                        int glineDuration = settings.getGlineDuration();
+                        String glineReason = settings.getGlineReason();
                         
                         getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_GLINE_HEADER"));
                         getSt().sendNotice(getNumeric(), getNumericSuffix(), notice, elem[0], Messages.get("QM_SS_GLINE_STATUS", glineEnabled ? Messages.get("QM_SS_GLINE_STATUS_ENABLED") : Messages.get("QM_SS_GLINE_STATUS_DISABLED")));
@@ -503,8 +515,9 @@ public final class SpamScan implements Software, Module {
                     }
                 // Handle channel messages for spam detection
                 // Only process messages from channels where SpamScan is actually monitoring
-                } else if ((elem[1].equals("P") || elem[1].equals("O")) && getSt().getChannel().containsKey(elem[2].toLowerCase()) && getMi().getDb().isSpamScanChannel(elem[2]) && !getSt().getUsers().get(elem[0]).isOper() && !getSt().getUsers().get(elem[0]).isService()) {
-                    if (!getSt().isOper(getSt().getUsers().get(elem[0]).getAccount())) {
+                } else if ((elem[1].equals("P") || elem[1].equals("O")) && getSt().getChannel().containsKey(elem[2].toLowerCase()) && getMi().getDb().isSpamScanChannel(elem[2])
+                        && getSt().getUsers().get(elem[0]) instanceof Users sender && !sender.isOper() && !sender.isService()) {
+                    if (!getSt().isOper(sender.getAccount())) {
                         var sb = new StringBuilder();
                         for (var i = 3; i < elem.length; i++) {
                             if (elem[3].startsWith(":")) {
@@ -517,35 +530,37 @@ public final class SpamScan implements Software, Module {
                         var userNumeric = elem[0];
                         var channelName = elem[2].toLowerCase();
                         
-                        // Add channel to user's channel list if not already there
-                        if (!getSt().getUsers().get(userNumeric).getChannels().contains(channelName)) {
-                            getSt().getUsers().get(userNumeric).addChannel(channelName);
+                        // The reader may have handled a part or quit since; membership
+                        // is only changed by the reader thread
+                        var chan = getSt().getChannel().get(channelName);
+                        if (chan == null) {
+                            return;
                         }
                         
                         // Get user's last join timestamp, skip checks if not available
-                        var lastJoin = getSt().getChannel().get(channelName).getLastJoin().get(userNumeric);
-                        if (lastJoin == null) {
-                            return; // User not in lastJoin map yet, skip spam checks
+                        long lastJoin = chan.getJoinTime(userNumeric);
+                        if (lastJoin <= 0) {
+                            return; // Join time not known yet, skip spam checks
                         }
                         
                         // Check if channel has lax spam detection enabled
                         boolean isLaxMode = getMi().getDb().isLaxChannel(channelName);
                         
-                        // Load configurable thresholds from config file
-                        var config = getMi().getConfig().getSpamFile();
-                        int newUserTimeWindow = Integer.parseInt(config.getProperty("newUserTimeWindow", "300"));
+                        // Thresholds from the current settings snapshot
+                        var settings = getMi().getConfig().getSettings();
+                        int newUserTimeWindow = settings.getNewUserTimeWindow();
                         
                         // Determine if user is "new" based on join time
                         long timeSinceJoin = time() - lastJoin;
                         boolean isNewUser = timeSinceJoin < newUserTimeWindow;
                         
-                        var user = getSt().getUsers().get(userNumeric);
+                        var user = sender;
                         long currentTime = time();
                         
                         // === NEW INTELLIGENT SPAM DETECTION SYSTEM ===
                         
                         // Apply score decay (rehabilitate good behavior over time)
-                        applyScoreDecay(user, currentTime);
+                        applyScoreDecay(user, currentTime, settings);
                         updateBehaviorSignals(user, message, currentTime);
                         
                         // Add message to history for pattern analysis
@@ -553,7 +568,7 @@ public final class SpamScan implements Software, Module {
                         user.setChannelLastMessage(channelName, message, currentTime);
                         
                         // Calculate comprehensive spam score
-                        double spamScore = calculateSpamScore(user, message, channelName, currentTime);
+                        double spamScore = calculateSpamScore(user, message, channelName, currentTime, settings);
                         
                         // Add to user's cumulative spam score
                         user.increaseSpamScore(spamScore);
@@ -562,7 +577,7 @@ public final class SpamScan implements Software, Module {
                         user.setLastMessageTime(currentTime);
                         
                         // === CHECK FOR EXTREME SPAMMING (IMMEDIATE G-LINE) ===
-                        double extremeSpamThreshold = Double.parseDouble(config.getProperty("extremeSpamThreshold", "100.0"));
+                        double extremeSpamThreshold = settings.getExtremeSpamThreshold();
                         
                         if (user.getSpamScore() >= extremeSpamThreshold) {
                             // Extreme spamming detected - apply immediate G-Line
@@ -628,50 +643,40 @@ public final class SpamScan implements Software, Module {
             return false;
         }
         
-        var config = getMi().getConfig().getSpamFile();
-        boolean killSuspicious = Boolean.parseBoolean(config.getProperty("killSuspiciousIdents", "true"));
-        
-        if (!killSuspicious) {
+        var settings = getMi().getConfig().getSettings();
+        if (!settings.isKillSuspiciousIdents()) {
             return false;
         }
         
         // Strip leading ~ from ident if present
         String cleanIdent = ident.startsWith("~") ? ident.substring(1) : ident;
         
-        // Get list of suspicious idents from config
-        String suspiciousIdentsList = config.getProperty("suspiciousIdents", 
-            "root,admin,administrator,sysadmin,webmaster,hostmaster,postmaster,operator,oper,staff,moderator,mod");
-        
-        String[] suspiciousIdents = suspiciousIdentsList.split(",");
-        
         // Check if ident matches any suspicious pattern
-        for (String suspiciousIdent : suspiciousIdents) {
-            if (cleanIdent.equalsIgnoreCase(suspiciousIdent.trim())) {
-                var count = getMi().getDb().getSpamScanIdCount();
-                count++;
-                getMi().getDb().addId("Suspicious ident: " + cleanIdent);
-                
-                // Get user's host for sourceString
-                var user = getSt().getUsers().get(userNumeric);
-                String userHost = user != null ? user.getHost() : "unknown";
-                
-                // Build user string: host!nick
-                String sourceString = String.format("%s!%s", userHost, nick);
-                
-                // Build reason
-                String baseReason = String.format("Suspicious ident '%s' detected, potential security risk, ID: %d", cleanIdent, count);
-                String killMessage = String.format("%s (%s)", sourceString, baseReason);
-                
-                getSt().sendText("%s D %s %d :%s", 
-                        getNumeric(), userNumeric, time(), killMessage);
-                
-                // Remove user from internal tracking to prevent ghost
-                getSt().getUsers().remove(userNumeric);
-                
-                LOG.log(Level.WARNING, "Killed user with suspicious ident: {0} (numeric: {1}, ident: {2})", 
-                        new Object[]{nick, userNumeric, ident});
-                return true;
-            }
+        if (settings.getSuspiciousIdents().contains(cleanIdent.toLowerCase(Locale.ROOT))) {
+            var count = getMi().getDb().getSpamScanIdCount();
+            count++;
+            getMi().getDb().addId("Suspicious ident: " + cleanIdent);
+            
+            // Get user's host for sourceString
+            var user = getSt().getUsers().get(userNumeric);
+            String userHost = user != null ? user.getHost() : "unknown";
+            
+            // Build user string: host!nick
+            String sourceString = String.format("%s!%s", userHost, nick);
+            
+            // Build reason
+            String baseReason = String.format("Suspicious ident '%s' detected, potential security risk, ID: %d", cleanIdent, count);
+            String killMessage = String.format("%s (%s)", sourceString, baseReason);
+            
+            getSt().sendText("%s D %s %d :%s", 
+                    getNumeric(), userNumeric, time(), killMessage);
+            
+            // Remove user from internal tracking to prevent ghost
+            getSt().getUsers().remove(userNumeric);
+            
+            LOG.log(Level.WARNING, "Killed user with suspicious ident: {0} (numeric: {1}, ident: {2})", 
+                    new Object[]{nick, userNumeric, ident});
+            return true;
         }
         
         return false;
@@ -870,6 +875,7 @@ public final class SpamScan implements Software, Module {
         this.st = st;
     }
     private static final Logger LOG = Logger.getLogger(SpamScan.class.getName());
+    private static final java.util.regex.Pattern URL_PATTERN = java.util.regex.Pattern.compile("(?i)(https?://|www\\.)[^\\s]+");
 
     private void removeUserFromChannel(String nick, String channel) {
         getSt().removeUser(nick, channel);
@@ -890,7 +896,7 @@ public final class SpamScan implements Software, Module {
         
         // Check if user is still in the channel before taking action
         var channel = getSt().getChannel().get(channelName);
-        if (channel == null || !channel.getUsers().contains(userNumeric)) {
+        if (channel == null || !channel.hasUser(userNumeric)) {
             LOG.log(Level.INFO, "User {0} not in channel {1} anymore, skipping immediate G-Line action", 
                 new Object[]{userNumeric, channelName});
             return;
@@ -928,13 +934,13 @@ public final class SpamScan implements Software, Module {
         
         // Check if user is still in the channel before taking action
         var channel = getSt().getChannel().get(channelName);
-        if (channel == null || !channel.getUsers().contains(userNumeric)) {
+        if (channel == null || !channel.hasUser(userNumeric)) {
             LOG.log(Level.INFO, "User {0} not in channel {1} anymore, skipping action", 
                 new Object[]{userNumeric, channelName});
             return;
         }
         
-        if (channel.isModerated() && channel.getVoice().contains(userNumeric)) {
+        if (channel.isModerated() && channel.hasVoice(userNumeric)) {
             // Remove voice in moderated channel
             sendText("%s%s M %s -v %s", getNumeric(), getNumericSuffix(), channelName, userNumeric);
             var user = getSt().getUsers().get(userNumeric);
@@ -963,8 +969,7 @@ public final class SpamScan implements Software, Module {
                     LOG.log(Level.INFO, "User G-Lined (no kill sent): {0} ({1})", new Object[]{userNick, userHost});
                 } else {
                     // Kill the user (not yet reached threshold for G-Line)
-                    var config = getMi().getConfig().getSpamFile();
-                    String violationUrl = config.getProperty("violationUrl", "");
+                    String violationUrl = getMi().getConfig().getSettings().getViolationUrl();
                     
                     // Build user string: host!nick
                     String sourceString = String.format("%s!%s", userHost, userNick);
@@ -986,8 +991,7 @@ public final class SpamScan implements Software, Module {
                 }
             } else {
                 // Fallback: just kill if user object not found
-                var config = getMi().getConfig().getSpamFile();
-                String violationUrl = config.getProperty("violationUrl", "");
+                String violationUrl = getMi().getConfig().getSettings().getViolationUrl();
                 
                 // Build reason string with ID and optional URL
                 String killMessage = violationUrl.isEmpty() 
@@ -1014,8 +1018,8 @@ public final class SpamScan implements Software, Module {
      * @return true if G-Line was applied, false otherwise
      */
     private boolean checkAndApplyGLine(String userHost, String nick, String reason, int idCount) {
-        var config = getMi().getConfig().getSpamFile();
-        boolean glineEnabled = Boolean.parseBoolean(config.getProperty("enableGLine", "true"));
+        var settings = getMi().getConfig().getSettings();
+        boolean glineEnabled = settings.isGlineEnabled();
         
         if (!glineEnabled) {
             return false;
@@ -1028,11 +1032,11 @@ public final class SpamScan implements Software, Module {
         
         // Track this violation and get count
         int killCount = getMi().getDb().trackKillForGLine(userHost, time());
-        int glineThreshold = Integer.parseInt(config.getProperty("glineAfterKills", "3"));
+        int glineThreshold = settings.getGlineAfterKills();
         
         // Apply G-Line if threshold reached
         if (killCount >= glineThreshold) {
-            int glineDuration = Integer.parseInt(config.getProperty("glineDuration", "86400"));
+            int glineDuration = settings.getGlineDuration();
             
             // Extract ident and host for G-Line pattern: nick!*ident@host
             String glinePattern;
@@ -1059,7 +1063,7 @@ public final class SpamScan implements Software, Module {
             // Target server * = all servers
             long currentTime = time();
             
-            String violationUrl = config.getProperty("violationUrl", "");
+            String violationUrl = settings.getViolationUrl();
             String glineMessage = violationUrl.isEmpty() 
                 ? String.format("You are violating network rules (Violations: %d, ID: %d)", killCount, idCount)
                 : String.format("You are violating network rules (Violations: %d, ID: %d) - %s%d", killCount, idCount, violationUrl, idCount);
@@ -1089,8 +1093,8 @@ public final class SpamScan implements Software, Module {
      * @param idCount The ID count for the reason
      */
     private void applyImmediateGLine(String userHost, String nick, String reason, int idCount) {
-        var config = getMi().getConfig().getSpamFile();
-        boolean glineEnabled = Boolean.parseBoolean(config.getProperty("enableGLine", "true"));
+        var settings = getMi().getConfig().getSettings();
+        boolean glineEnabled = settings.isGlineEnabled();
         
         if (!glineEnabled) {
             LOG.log(Level.WARNING, "G-Line disabled, cannot apply immediate G-Line for: {0}", userHost);
@@ -1102,7 +1106,7 @@ public final class SpamScan implements Software, Module {
             return;
         }
         
-        int glineDuration = Integer.parseInt(config.getProperty("glineDuration", "86400"));
+        int glineDuration = settings.getGlineDuration();
         
         // Extract ident and host for G-Line pattern: nick!*ident@host
         String glinePattern;
@@ -1126,7 +1130,7 @@ public final class SpamScan implements Software, Module {
         // Apply Global G-Line via server numeric
         long currentTime = time();
         
-        String violationUrl = config.getProperty("violationUrl", "");
+        String violationUrl = settings.getViolationUrl();
         String glineMessage = violationUrl.isEmpty() 
             ? String.format("EXTREME SPAM DETECTED - Immediate ban (ID: %d)", idCount)
             : String.format("EXTREME SPAM DETECTED - Immediate ban (ID: %d) - %s%d", idCount, violationUrl, idCount);
@@ -1244,7 +1248,7 @@ public final class SpamScan implements Software, Module {
             }
         }
 
-        user.setFlood(Math.min(user.getFlood() + 1, 20));
+        user.addFlood(1, 20);
 
         String normalizedCurrentMessage = normalizeMessageForComparison(message);
         String normalizedPreviousMessage = normalizeMessageForComparison(user.getLine());
@@ -1276,7 +1280,7 @@ public final class SpamScan implements Software, Module {
      * @param s2 Second string
      * @return The Levenshtein distance
      */
-    private int calculateLevenshteinDistance(String s1, String s2) {
+    static int calculateLevenshteinDistance(String s1, String s2) {
         int[][] dp = new int[s1.length() + 1][s2.length() + 1];
         
         for (int i = 0; i <= s1.length(); i++) {
@@ -1306,7 +1310,7 @@ public final class SpamScan implements Software, Module {
      * @param s2 Second string
      * @return Similarity percentage (0.0 to 1.0)
      */
-    private double calculateSimilarity(String s1, String s2) {
+    private static double calculateSimilarity(String s1, String s2) {
         if (s1.equals(s2)) {
             return 1.0;
         }
@@ -1326,12 +1330,12 @@ public final class SpamScan implements Software, Module {
      * @param user The user object
      * @param message The current message
      * @param currentTime Current timestamp
+     * @param settings SpamScan settings
      * @return true if similar spam detected
      */
-    private boolean isSimilarSpam(Users user, String message, long currentTime) {
-        var config = getMi().getConfig().getSpamFile();
-        double similarityThreshold = Double.parseDouble(config.getProperty("similarityThreshold", "0.8"));
-        int timeWindow = Integer.parseInt(config.getProperty("similarityTimeWindow", "60"));
+    private static boolean isSimilarSpam(Users user, String message, long currentTime, Settings settings) {
+        double similarityThreshold = settings.getSimilarityThreshold();
+        int timeWindow = settings.getSimilarityTimeWindow();
         
         // Get recent messages
         var recentMessages = user.getRecentMessages(timeWindow, currentTime);
@@ -1358,12 +1362,12 @@ public final class SpamScan implements Software, Module {
      * @param message The current message
      * @param channel The current channel
      * @param currentTime Current timestamp
+     * @param settings SpamScan settings
      * @return true if cross-channel spam detected
      */
-    private boolean isCrossChannelSpam(Users user, String message, String channel, long currentTime) {
-        var config = getMi().getConfig().getSpamFile();
-        int timeWindow = Integer.parseInt(config.getProperty("crossChannelTimeWindow", "30"));
-        double similarityThreshold = Double.parseDouble(config.getProperty("crossChannelSimilarity", "0.9"));
+    private static boolean isCrossChannelSpam(Users user, String message, String channel, long currentTime, Settings settings) {
+        int timeWindow = settings.getCrossChannelTimeWindow();
+        double similarityThreshold = settings.getCrossChannelSimilarity();
         
         int matchCount = 0;
         for (Users.MessageRecord lastMsg : user.getChannelLastMessages().values()) {
@@ -1392,26 +1396,23 @@ public final class SpamScan implements Software, Module {
      * Analyze URL for suspicious patterns
      * 
      * @param message The message to analyze
+     * @param settings SpamScan settings
      * @return Spam score contribution (0.0 = clean, higher = more suspicious)
      */
-    private double analyzeUrlSuspicion(String message) {
+    static double analyzeUrlSuspicion(String message, Settings settings) {
         double suspicionScore = 0.0;
         
-        var config = getMi().getConfig().getSpamFile();
-        String suspiciousTLDs = config.getProperty("suspiciousTLDs", "tk,ml,ga,cf,gq,pw,top,xyz");
-        String[] tldList = suspiciousTLDs.split(",");
+        String[] tldList = settings.getSuspiciousTlds();
         
         // Extract URLs
-        String urlPattern = "(?i)(https?://|www\\.)[^\\s]+";
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(urlPattern);
-        java.util.regex.Matcher matcher = pattern.matcher(message);
+        java.util.regex.Matcher matcher = URL_PATTERN.matcher(message);
         
         while (matcher.find()) {
             String url = matcher.group().toLowerCase();
             
             // Check for suspicious TLDs
             for (String tld : tldList) {
-                if (url.contains("." + tld.trim() + "/") || url.endsWith("." + tld.trim())) {
+                if (url.contains("." + tld + "/") || url.endsWith("." + tld)) {
                     suspicionScore += 15.0; // High suspicion for these TLDs
                 }
             }
@@ -1447,13 +1448,29 @@ public final class SpamScan implements Software, Module {
      * @param message The message content
      * @param channel The channel name
      * @param currentTime Current timestamp
+     * @param settings SpamScan settings
+     * @return Spam score (0-100+, higher = more likely spam)
+     */
+    private double calculateSpamScore(Users user, String message, String channel, long currentTime, Settings settings) {
+        return calculateSpamScore(user, message, channel, currentTime, settings, getMi().getHomoglyphs());
+    }
+
+    /**
+     * Spam score with explicit settings, usable without a running server
+     * 
+     * @param user The user object
+     * @param message The message content
+     * @param channel The channel name
+     * @param currentTime Current timestamp
+     * @param settings SpamScan settings and badwords
+     * @param homoglyphs Homoglyph scanner
      * @return Spam score (0-100+, higher = more likely spam)
      */
-    private double calculateSpamScore(Users user, String message, String channel, long currentTime) {
+    double calculateSpamScore(Users user, String message, String channel, long currentTime,
+            Settings settings, Homoglyphs homoglyphs) {
         double score = 0.0;
-        var config = getMi().getConfig().getSpamFile();
         boolean hasUrl = containsUrl(message);
-        boolean hasHomoglyphs = getMi().getHomoglyphs().scanForHomoglyphs(message);
+        boolean hasHomoglyphs = homoglyphs.scanForHomoglyphs(message);
         boolean excessiveCaps = isExcessiveCaps(message);
         boolean conversationalMessage = isLikelyConversationalMessage(message);
         
@@ -1478,7 +1495,7 @@ public final class SpamScan implements Software, Module {
         }
         
         // Factor 4: URL suspicion analysis
-        score += analyzeUrlSuspicion(message);
+        score += analyzeUrlSuspicion(message, settings);
         
         // Factor 5: Homoglyphs
         if (hasHomoglyphs) {
@@ -1486,20 +1503,19 @@ public final class SpamScan implements Software, Module {
         }
         
         // Factor 6: Similar spam (repetitive similar messages)
-        if (isSimilarSpam(user, message, currentTime)) {
+        if (isSimilarSpam(user, message, currentTime, settings)) {
             score += 20.0;
         }
         
         // Factor 7: Cross-channel spam
-        if (isCrossChannelSpam(user, message, channel, currentTime)) {
+        if (isCrossChannelSpam(user, message, channel, currentTime, settings)) {
             score += 30.0;
         }
         
         // Factor 8: Badword detection
-        var badwordList = getMi().getConfig().getBadwordFile();
-        for (var key : badwordList.keySet()) {
-            var badword = (String) key;
-            if (message.toLowerCase().contains(badword.toLowerCase())) {
+        String lowerMessage = message.toLowerCase(Locale.ROOT);
+        for (var badword : settings.getBadwords()) {
+            if (lowerMessage.contains(badword)) {
                 score += 40.0; // High score for badwords
                 break; // Only count once
             }
@@ -1545,10 +1561,11 @@ public final class SpamScan implements Software, Module {
      * 
      * @param user The user object
      * @param currentTime Current timestamp
+     * @param settings SpamScan settings
      */
-    private void applyScoreDecay(Users user, long currentTime) {
-        double decayRate = Double.parseDouble(getMi().getConfig().getSpamFile().getProperty("scoreDecayRate", "0.5"));
-        int decayInterval = Integer.parseInt(getMi().getConfig().getSpamFile().getProperty("scoreDecayInterval", "30"));
+    private void applyScoreDecay(Users user, long currentTime, Settings settings) {
+        double decayRate = settings.getScoreDecayRate();
+        int decayInterval = settings.getScoreDecayInterval();
         
         // Decay score if enough time has passed
         if (user.getLastMessageTime() > 0) {
@@ -0,0 +1,523 @@
+/*
+ * NIO transport for the P10 uplink connection
+ */
+package net.midiandmore.jserv;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking NIO transport for the hub link.
+ * Incoming lines are framed directly from a ByteBuffer on the reader thread.
+ * Outgoing lines are queued and written by a dedicated writer thread, which
+ * coalesces everything pending into one pooled buffer per socket write.
+ * A large outgoing BURST therefore never delays reading the next hub line.
+ *
+ * Outgoing lines are sorted into three lanes. Before each line the writer
+ * takes the oldest line of the highest non-empty lane, so a PONG or a kill
+ * never waits behind queued notices or burst output. Order is kept within
+ * a lane only: a D or GL overtakes NORMAL lines queued before it, even an N
+ * or a mode for the same numeric. Callers must not rely on order across
+ * lanes. The BULK lane is bounded; when a notice storm meets a slow hub,
+ * further notices are dropped and counted instead of filling the heap.
+ *
+ * @author Andreas Pschorn
+ */
+public final class UplinkTransport implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(UplinkTransport.class.getName());
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long WRITER_POLL_MS = 250;
+    private static final long CLOSE_DRAIN_MS = 2000;
+    private static final int BULK_CAPACITY = 20000;
+    private static final long DROP_LOG_INTERVAL = 1000;
+
+    private final SocketChannel channel;
+    private final Selector readSelector;
+    private final Selector writeSelector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final Queue<String> urgent = new ConcurrentLinkedQueue<>();
+    private final Queue<String> normal = new ConcurrentLinkedQueue<>();
+    private final Queue<String> bulk = new LinkedBlockingQueue<>(BULK_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ReentrantLock signalLock = new ReentrantLock();
+    private final Condition notEmpty = signalLock.newCondition();
+    private final PrintWriter printWriter;
+    private final Thread writerThread;
+    private volatile boolean open = true;
+    private boolean urgentLine;
+    private int scanPos;
+    // Skipping the rest of an oversized line up to its LF
+    private boolean discarding;
+
+    private UplinkTransport(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+        this.readSelector = Selector.open();
+        this.writeSelector = Selector.open();
+        channel.register(readSelector, SelectionKey.OP_READ);
+        channel.register(writeSelector, SelectionKey.OP_WRITE);
+        // Reader starts empty and in "drain" mode
+        readBuffer.flip();
+        this.printWriter = new PrintWriter(new LineWriter(this::send), false);
+        this.writerThread = new Thread(this::writeLoop, "JServ-Uplink-Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Opens a new connection to the hub
+     *
+     * @param host Hub host
+     * @param port Hub port
+     * @return The connected transport
+     * @throws IOException if the connection cannot be established
+     */
+    public static UplinkTransport connect(String host, int port) throws IOException {
+        // Connect in blocking mode, then switch to non-blocking for the session
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        try {
+            channel.socket().setTcpNoDelay(true);
+            return new UplinkTransport(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next line from the hub without its line terminator.
+     * Blocks in the selector until a full line is available.
+     *
+     * @return The line, or null on end of stream
+     * @throws IOException on read errors
+     */
+    public String readLine() throws IOException {
+        while (true) {
+            String line = nextBufferedLine();
+            if (line != null) {
+                return line;
+            }
+            if (!fill()) {
+                return null;
+            }
+        }
+    }
+
+    private String nextBufferedLine() {
+        byte[] data = readBuffer.array();
+        int limit = readBuffer.limit();
+        for (int i = Math.max(scanPos, readBuffer.position()); i < limit; i++) {
+            if (data[i] == '\n') {
+                if (discarding) {
+                    // End of the oversized line, frame normally again
+                    discarding = false;
+                    readBuffer.position(i + 1);
+                    scanPos = i + 1;
+                    continue;
+                }
+                int start = readBuffer.position();
+                int end = i;
+                if (end > start && data[end - 1] == '\r') {
+                    end--;
+                }
+                readBuffer.position(i + 1);
+                scanPos = i + 1;
+                return new String(data, start, end - start, StandardCharsets.UTF_8);
+            }
+        }
+        if (discarding) {
+            readBuffer.position(limit);
+        }
+        scanPos = limit;
+        return null;
+    }
+
+    private boolean fill() throws IOException {
+        int consumed = readBuffer.position();
+        readBuffer.compact();
+        scanPos -= consumed;
+        if (!readBuffer.hasRemaining()) {
+            // A single line filled the whole buffer; drop it up to its LF rather than stall the link
+            LOG.log(Level.WARNING, "Discarding oversized line from uplink ({0} bytes)", readBuffer.position());
+            readBuffer.clear();
+            scanPos = 0;
+            discarding = true;
+        }
+        try {
+            while (true) {
+                int n = channel.read(readBuffer);
+                if (n > 0) {
+                    return true;
+                }
+                if (n < 0) {
+                    return false;
+                }
+                if (!open) {
+                    return false;
+                }
+                try {
+                    readSelector.select();
+                    readSelector.selectedKeys().clear();
+                } catch (ClosedSelectorException ex) {
+                    // Closed by the writer while waiting
+                    return false;
+                }
+                if (!open) {
+                    return false;
+                }
+            }
+        } finally {
+            readBuffer.flip();
+        }
+    }
+
+    /**
+     * Outbound priority lanes
+     */
+    public enum Lane {
+        /** PONG replies, kills and G-lines */
+        URGENT,
+        /** State changes: nicks, joins, modes, burst */
+        NORMAL,
+        /** Notices and private messages */
+        BULK
+    }
+
+    /**
+     * Picks the lane for a line by its command token
+     *
+     * @param line The raw P10 line
+     * @return the lane
+     */
+    public static Lane classify(String line) {
+        int start = line.indexOf(' ') + 1;
+        if (start <= 0) {
+            return Lane.NORMAL;
+        }
+        int end = line.indexOf(' ', start);
+        int len = (end < 0 ? line.length() : end) - start;
+        if (len == 1) {
+            switch (line.charAt(start)) {
+                case 'Z', 'D':
+                    return Lane.URGENT;
+                case 'O', 'P':
+                    return Lane.BULK;
+                default:
+                    return Lane.NORMAL;
+            }
+        }
+        if (len == 2 && line.startsWith("GL", start)) {
+            return Lane.URGENT;
+        }
+        return Lane.NORMAL;
+    }
+
+    /**
+     * Queues a line for the writer thread. The line terminator is added by the transport.
+     *
+     * @param line The raw P10 line
+     */
+    public void send(String line) {
+        send(line, classify(line));
+    }
+
+    /**
+     * Queues a line on a specific lane
+     *
+     * @param line The raw P10 line
+     * @param lane The lane
+     */
+    public void send(String line, Lane lane) {
+        if (!open) {
+            return;
+        }
+        switch (lane) {
+            case URGENT -> urgent.offer(line);
+            case BULK -> {
+                if (!bulk.offer(line)) {
+                    dropped.increment();
+                    long total = dropped.sum();
+                    if (total == 1 || total % DROP_LOG_INTERVAL == 0) {
+                        LOG.log(Level.WARNING, "Outgoing BULK lane is full ({0} lines), {1} lines dropped so far",
+                                new Object[]{BULK_CAPACITY, total});
+                    }
+                    return;
+                }
+            }
+            default -> normal.offer(line);
+        }
+        if (pending.getAndIncrement() == 0) {
+            signalLock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                signalLock.unlock();
+            }
+        }
+    }
+
+    private String nextLine() {
+        String line = urgent.poll();
+        urgentLine = line != null;
+        if (line == null) {
+            line = normal.poll();
+            if (line == null) {
+                line = bulk.poll();
+            }
+        }
+        if (line != null) {
+            pending.decrementAndGet();
+        }
+        return line;
+    }
+
+    private void awaitLines() throws InterruptedException {
+        signalLock.lock();
+        try {
+            while (pending.get() == 0 && open) {
+                notEmpty.await(WRITER_POLL_MS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (open || pending.get() > 0) {
+                awaitLines();
+                // Coalesce everything that is already pending into as few writes as possible,
+                // re-checking the urgent lane before every line
+                String line;
+                while ((line = nextLine()) != null) {
+                    encodeLine(line);
+                    if (urgentLine) {
+                        // Do not let a PONG or kill sit in the buffer behind a trickle of other lines
+                        flushWriteBuffer();
+                    }
+                }
+                flushWriteBuffer();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (open) {
+                LOG.log(Level.WARNING, "Uplink write failed: {0}", e.getMessage());
+                closeChannel();
+            }
+        }
+    }
+
+    private void encodeLine(String line) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, writeBuffer, true);
+            if (result.isOverflow()) {
+                flushWriteBuffer();
+                continue;
+            }
+            break;
+        }
+        if (writeBuffer.remaining() < 2) {
+            flushWriteBuffer();
+        }
+        writeBuffer.put((byte) '\r').put((byte) '\n');
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) {
+                if (channel.write(writeBuffer) == 0) {
+                    writeSelector.select(WRITER_POLL_MS);
+                    writeSelector.selectedKeys().clear();
+                    if (!channel.isOpen()) {
+                        throw new IOException("Uplink channel closed");
+                    }
+                }
+            }
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    /**
+     * @return PrintWriter view of the outbound queue for modules
+     */
+    public PrintWriter getWriter() {
+        return printWriter;
+    }
+
+    /**
+     * Creates a PrintWriter that always writes to the current transport.
+     * Modules keep this writer across reconnects; lines written while no
+     * link is up are dropped.
+     *
+     * @param transport Supplies the current transport, or null
+     * @return the writer
+     */
+    public static PrintWriter writerFor(Supplier<UplinkTransport> transport) {
+        return new PrintWriter(new LineWriter(line -> {
+            var current = transport.get();
+            if (current != null && current.isOpen()) {
+                current.send(line);
+            }
+        }), false);
+    }
+
+    /**
+     * @return The underlying socket (for state checks only)
+     */
+    public Socket getSocket() {
+        return channel.socket();
+    }
+
+    /**
+     * @return true while the channel is open
+     */
+    public boolean isOpen() {
+        return open && channel.isOpen();
+    }
+
+    /**
+     * @return Number of lines waiting for the writer thread
+     */
+    public int getPendingLines() {
+        return pending.get();
+    }
+
+    /**
+     * @param lane The lane
+     * @return Number of lines waiting in this lane
+     */
+    public int getPendingLines(Lane lane) {
+        return switch (lane) {
+            case URGENT -> urgent.size();
+            case BULK -> bulk.size();
+            default -> normal.size();
+        };
+    }
+
+    /**
+     * @return Number of BULK lines dropped because the lane was full
+     */
+    public long getDroppedLines() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting new lines, lets the writer drain what is pending and closes the channel
+     */
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        readSelector.wakeup();
+        signalLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            signalLock.unlock();
+        }
+        try {
+            writerThread.join(CLOSE_DRAIN_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread.interrupt();
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            readSelector.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            writeSelector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writer adapter that turns PrintWriter output into queued lines
+     */
+    private static final class LineWriter extends Writer {
+
+        private final StringBuilder pending = new StringBuilder(512);
+        private final Consumer<String> sink;
+
+        LineWriter(Consumer<String> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            synchronized (lock) {
+                for (int i = off; i < off + len; i++) {
+                    char c = cbuf[i];
+                    if (c == '\n') {
+                        int end = pending.length();
+                        if (end > 0 && pending.charAt(end - 1) == '\r') {
+                            end--;
+                        }
+                        sink.accept(pending.substring(0, end));
+                        pending.setLength(0);
+                    } else {
+                        pending.append(c);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Lines are queued as soon as they are terminated
+        }
+
+        @Override
+        public void close() {
+            // Lifetime is owned by the transport
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * Numeric indexed user table
+ */
+package net.midiandmore.jserv;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Users by P10 numeric, stored the way ircu does it.
+ * Every server numeric owns an array of client slots, so resolving a client
+ * numeric is two array reads after decoding five characters, without
+ * hashing and without allocation. Keys that are not valid client numerics
+ * go to a small fallback map. The class is a Map, so existing getUsers()
+ * callers work unchanged.
+ *
+ * A second index maps rfc1459 case-folded nicknames to numerics, a third
+ * maps account names (case-insensitive) to the numerics logged in to them.
+ * Both are kept in sync by put and remove; nick and account changes must go
+ * through {@link #changeNick(String, String)} and
+ * {@link #setAccount(String, String)}.
+ *
+ * The table has one writer in practice, the uplink reader, but timers and
+ * module threads read it and occasionally change it. Writers take a
+ * {@link StampedLock}; lookups are optimistic reads that only fall back to
+ * the read lock if a write happened at the same time, so the reader thread
+ * never waits on a background task. Iteration walks a snapshot, background
+ * scans can take one with {@link #snapshot()}.
+ *
+ * @author Andreas Pschorn
+ */
+public final class UserTable extends AbstractMap<String, Users> {
+
+    private static final int INITIAL_SLOTS = 64;
+
+    private final Users[][] slots = new Users[P10Numeric.MAX_SERVERS][];
+    private final String[][] keys = new String[P10Numeric.MAX_SERVERS][];
+    private final Map<String, Users> other = new ConcurrentHashMap<>();
+    private final Map<String, String> nicks = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> accounts = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+    private volatile int size;
+
+    @Override
+    public Users get(Object key) {
+        if (!(key instanceof String numeric)) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        Users user = lookup(numeric);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                user = lookup(numeric);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return user;
+    }
+
+    private Users lookup(String numeric) {
+        int server = P10Numeric.serverIndex(numeric);
+        int slot = P10Numeric.clientSlot(numeric);
+        if (server < 0 || slot < 0) {
+            return other.get(numeric);
+        }
+        Users[] users = slots[server];
+        return users != null && slot < users.length ? users[slot] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Users put(String key, Users value) {
+        if (value == null) {
+            return remove(key);
+        }
+        long stamp = lock.writeLock();
+        try {
+            return store(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Users store(String key, Users value) {
+        int server = P10Numeric.serverIndex(key);
+        int slot = P10Numeric.clientSlot(key);
+        Users previous;
+        if (server < 0 || slot < 0) {
+            previous = other.put(key, value);
+        } else {
+            Users[] users = ensureCapacity(server, slot);
+            previous = users[slot];
+            users[slot] = value;
+            keys[server][slot] = key;
+        }
+        if (previous == null) {
+            size++;
+        } else {
+            unindexNick(key, previous.getNick());
+            unindexAccount(key, previous.getAccount());
+        }
+        indexNick(key, value.getNick());
+        indexAccount(key, value.getAccount());
+        return previous;
+    }
+
+    @Override
+    public Users remove(Object key) {
+        if (!(key instanceof String numeric)) {
+            return null;
+        }
+        long stamp = lock.writeLock();
+        try {
+            return delete(numeric);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Users delete(String numeric) {
+        int server = P10Numeric.serverIndex(numeric);
+        int slot = P10Numeric.clientSlot(numeric);
+        if (server < 0 || slot < 0) {
+            Users previous = other.remove(numeric);
+            if (previous != null) {
+                size--;
+                unindexNick(numeric, previous.getNick());
+                unindexAccount(numeric, previous.getAccount());
+            }
+            return previous;
+        }
+        Users[] users = slots[server];
+        if (users == null || slot >= users.length || users[slot] == null) {
+            return null;
+        }
+        Users previous = users[slot];
+        users[slot] = null;
+        keys[server][slot] = null;
+        size--;
+        unindexNick(numeric, previous.getNick());
+        unindexAccount(numeric, previous.getAccount());
+        return previous;
+    }
+
+    /**
+     * Drops every user of one server, e.g. after a netsplit
+     *
+     * @param server Server index
+     * @return number of removed users
+     */
+    public int removeServer(int server) {
+        long stamp = lock.writeLock();
+        try {
+            Users[] users = slots[server];
+            if (users == null) {
+                return 0;
+            }
+            int removed = 0;
+            for (int i = 0; i < users.length; i++) {
+                if (users[i] != null) {
+                    unindexNick(keys[server][i], users[i].getNick());
+                    unindexAccount(keys[server][i], users[i].getAccount());
+                    removed++;
+                }
+            }
+            slots[server] = null;
+            keys[server] = null;
+            size -= removed;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(slots, null);
+            Arrays.fill(keys, null);
+            other.clear();
+            nicks.clear();
+            accounts.clear();
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies the table under the read lock. Background tasks iterate the
+     * copy and can take their time without holding up the reader thread.
+     *
+     * @return the users by numeric, in table order
+     */
+    public Map<String, Users> snapshot() {
+        long stamp = lock.readLock();
+        try {
+            Map<String, Users> copy = new LinkedHashMap<>(size * 4 / 3 + 1);
+            for (int server = 0; server < slots.length; server++) {
+                Users[] users = slots[server];
+                if (users == null) {
+                    continue;
+                }
+                for (int slot = 0; slot < users.length; slot++) {
+                    if (users[slot] != null) {
+                        copy.put(keys[server][slot], users[slot]);
+                    }
+                }
+            }
+            copy.putAll(other);
+            return copy;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Resolves a nickname using rfc1459 casemapping
+     *
+     * @param nick The nickname
+     * @return the numeric or null if nobody uses the nick
+     */
+    public String getNumericByNick(String nick) {
+        return nick == null ? null : nicks.get(CaseMapping.toLower(nick));
+    }
+
+    /**
+     * Resolves a nickname using rfc1459 casemapping
+     *
+     * @param nick The nickname
+     * @return the user or null if nobody uses the nick
+     */
+    public Users getByNick(String nick) {
+        String numeric = getNumericByNick(nick);
+        return numeric == null ? null : get(numeric);
+    }
+
+    /**
+     * Changes the nickname of a user and updates the nick index
+     *
+     * @param numeric The user's numeric
+     * @param newNick The new nickname
+     * @return the user or null if the numeric is unknown
+     */
+    public Users changeNick(String numeric, String newNick) {
+        long stamp = lock.writeLock();
+        try {
+            Users user = lookup(numeric);
+            if (user != null) {
+                unindexNick(numeric, user.getNick());
+                user.setNick(newNick);
+                indexNick(numeric, newNick);
+            }
+            return user;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @param account Account name, case-insensitive
+     * @return the numerics logged in to the account; an empty set if none (immutable)
+     */
+    public Set<String> getNumericsByAccount(String account) {
+        if (account == null || account.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> numerics = accounts.get(account.toLowerCase(Locale.ROOT));
+        return numerics != null ? numerics : Collections.emptySet();
+    }
+
+    /**
+     * @param account Account name, case-insensitive
+     * @return true if at least one user is logged in to the account
+     */
+    public boolean hasAccount(String account) {
+        return account != null && !account.isBlank() && accounts.containsKey(account.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Changes the account of a user and updates the account index
+     *
+     * @param numeric The user's numeric
+     * @param account The account, empty to log out
+     * @return the user or null if the numeric is unknown
+     */
+    public Users setAccount(String numeric, String account) {
+        long stamp = lock.writeLock();
+        try {
+            Users user = lookup(numeric);
+            if (user != null) {
+                unindexAccount(numeric, user.getAccount());
+                user.setAccount(account);
+                indexAccount(numeric, account);
+            }
+            return user;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Account sets are small and replaced on change, so readers never see one being modified
+    private void indexAccount(String numeric, String account) {
+        if (account != null && !account.isBlank()) {
+            accounts.merge(account.toLowerCase(Locale.ROOT), Set.of(numeric), (current, added) -> {
+                if (current.contains(numeric)) {
+                    return current;
+                }
+                String[] numerics = current.toArray(new String[current.size() + 1]);
+                numerics[current.size()] = numeric;
+                return Set.of(numerics);
+            });
+        }
+    }
+
+    private void unindexAccount(String numeric, String account) {
+        if (account != null && !account.isBlank()) {
+            accounts.computeIfPresent(account.toLowerCase(Locale.ROOT), (key, current) -> {
+                if (!current.contains(numeric)) {
+                    return current;
+                }
+                if (current.size() == 1) {
+                    return null;
+                }
+                String[] numerics = new String[current.size() - 1];
+                int i = 0;
+                for (String remaining : current) {
+                    if (!remaining.equals(numeric)) {
+                        numerics[i++] = remaining;
+                    }
+                }
+                return Set.of(numerics);
+            });
+        }
+    }
+
+    private void indexNick(String numeric, String nick) {
+        if (nick != null) {
+            nicks.put(CaseMapping.toLower(nick), numeric);
+        }
+    }
+
+    private void unindexNick(String numeric, String nick) {
+        if (nick != null) {
+            nicks.remove(CaseMapping.toLower(nick), numeric);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Users>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Users>> iterator() {
+                return new SnapshotIterator(snapshot().entrySet().iterator());
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Users[] ensureCapacity(int server, int slot) {
+        Users[] users = slots[server];
+        if (users == null) {
+            int length = INITIAL_SLOTS;
+            while (length <= slot) {
+                length <<= 1;
+            }
+            users = new Users[length];
+            slots[server] = users;
+            keys[server] = new String[length];
+        } else if (slot >= users.length) {
+            int length = users.length;
+            while (length <= slot) {
+                length <<= 1;
+            }
+            users = Arrays.copyOf(users, length);
+            slots[server] = users;
+            keys[server] = Arrays.copyOf(keys[server], length);
+        }
+        return users;
+    }
+
+    /**
+     * Iterates a snapshot, removal goes to the table
+     */
+    private final class SnapshotIterator implements Iterator<Entry<String, Users>> {
+
+        private final Iterator<Entry<String, Users>> entries;
+        private String lastKey;
+
+        SnapshotIterator(Iterator<Entry<String, Users>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public Entry<String, Users> next() {
+            Entry<String, Users> entry = entries.next();
+            lastKey = entry.getKey();
+            return Map.entry(lastKey, entry.getValue());
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            UserTable.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+}
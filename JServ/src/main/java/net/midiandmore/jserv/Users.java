@@ -5,12 +5,15 @@
 package net.midiandmore.jserv;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 
@@ -26,9 +29,11 @@ public final class Users {
     private String clientIp;
     private String line = "";    
     private int flood = 0;
+    private long floodUpdated = 0;
     private int repeat = 0;
     private int capsCount = 0;
-    private List<String> channels = new ArrayList<>();
+    // Changed by the reader thread only, read by the module threads too
+    private volatile Set<String> channels = ConcurrentHashMap.newKeySet();
     private boolean oper = false;    
     private boolean reg = false;    
     private boolean service = false;    
@@ -63,6 +68,11 @@ public final class Users {
 
     private static final Logger LOG = Logger.getLogger(Users.class.getName());    
 
+    /**
+     * One flood point drains every FLOOD_DECAY_MILLIS
+     */
+    static final long FLOOD_DECAY_MILLIS = 3000L;
+
     public Users(String id, String nick, String ident, String account, String host) {
         this.id = id;
         this.nick = nick;
@@ -90,21 +100,61 @@ public final class Users {
     public void setClientIp(String clientIp) { this.clientIp = clientIp; }
     public String getLine() { return line; }
     public void setLine(String line) { this.line = line; }
-    public int getFlood() { return flood; }
-    public void setFlood(int flood) { this.flood = flood; }
+    public synchronized int getFlood() {
+        decayFlood(System.currentTimeMillis());
+        return flood;
+    }
+
+    public synchronized void setFlood(int flood) {
+        this.flood = flood;
+        this.floodUpdated = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds flood points on top of the drained level
+     *
+     * @param amount Points to add
+     * @param max Upper limit
+     * @return the new flood level
+     */
+    public synchronized int addFlood(int amount, int max) {
+        decayFlood(System.currentTimeMillis());
+        flood = Math.min(flood + amount, max);
+        return flood;
+    }
+
+    /**
+     * Token bucket: drains the points accumulated since the last access,
+     * so no thread has to walk all users periodically
+     */
+    private void decayFlood(long now) {
+        if (flood <= 0) {
+            floodUpdated = now;
+            return;
+        }
+        long drained = (now - floodUpdated) / FLOOD_DECAY_MILLIS;
+        if (drained > 0) {
+            flood = (int) Math.max(0, flood - drained);
+            floodUpdated += drained * FLOOD_DECAY_MILLIS;
+        }
+    }
     public int getRepeat() { return repeat; }
     public void setRepeat(int repeat) { this.repeat = repeat; }
     public int getCapsCount() { return capsCount; }
     public void setCapsCount(int capsCount) { this.capsCount = capsCount; }
-    public List<String> getChannels() { return Collections.unmodifiableList(channels); }
-    public void setChannels(List<String> channels) { this.channels = new ArrayList<>(channels); }
+    public Set<String> getChannels() { return Collections.unmodifiableSet(channels); }
+    public void setChannels(Collection<String> channels) {
+        Set<String> copy = ConcurrentHashMap.newKeySet();
+        copy.addAll(channels);
+        this.channels = copy;
+    }
     
     /**
      * Add a channel to the user's channel list
      * @param channel Channel name (will be converted to lowercase)
      */
     public void addChannel(String channel) {
-        if (channel != null && !channels.contains(channel.toLowerCase())) {
+        if (channel != null) {
             channels.add(channel.toLowerCase());
         }
     }
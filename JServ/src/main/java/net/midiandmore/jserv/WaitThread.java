@@ -1,6 +1,5 @@
 package net.midiandmore.jserv;
 
-import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +20,7 @@ public final class WaitThread implements Runnable {
 
     private final Thread thread;
     private JServ mi;
+    private static final long CHANNEL_REGISTRY_MAX_AGE = 300000L;
     private static final Logger LOG = Logger.getLogger(WaitThread.class.getName());
 
     @Override
@@ -28,30 +28,17 @@ public final class WaitThread implements Runnable {
         while (!Thread.currentThread().isInterrupted()) {
             try {
                 SocketThread socketThread = getMi().getSocketThread();
-                if (socketThread == null) {
-                    getMi().setSocketThread(new SocketThread(getMi()));
-                } else if (socketThread.getSocket() == null) {
-                    socketThread.setRuns(false);
-                    getMi().setSocketThread(null);
-                } else if (socketThread.isRuns() && socketThread.getSocket().isClosed()) {
-                    socketThread.setRuns(false);
-                    getMi().setSocketThread(null);
-                } else {
-                    Map<String, Users> users = socketThread.getUsers();
-                    if (users != null) {
-                        for (String nick : users.keySet()) {
-                            Users user = users.get(nick);
-                            int flood = user.getFlood();
-                            if (flood != 0) {
-                                user.setFlood(flood - 1);
-                            }
-                        }
-                    } else {
-                        socketThread.setRuns(false);
-                        getMi().setSocketThread(null);
+                // The SocketThread reconnects on its own and keeps its state;
+                // a new one is only started if it has died
+                if (socketThread == null || !socketThread.isAlive()) {
+                    if (getMi().isRunning()) {
                         getMi().setSocketThread(new SocketThread(getMi()));
                     }
                 }
+                // Off the socket thread, joins only read the registry
+                if (getMi().getDb() != null) {
+                    getMi().getDb().refreshChannelRegistry(CHANNEL_REGISTRY_MAX_AGE);
+                }
                 Thread.sleep(3000L);
             } catch (InterruptedException ex) {
                 LOG.log(Level.SEVERE, "Thread interrupted", ex);
@@ -0,0 +1,264 @@
+/*
+ * Fake P10 hub for throughput measurements
+ */
+package net.midiandmore.jserv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for an ircu hub that JServ can link to.
+ * It waits for JServ on a local port, answers PASS/SERVER, replays a
+ * synthetic netburst (N lines, then B lines, then EB) and afterwards sends
+ * PRIVMSG/JOIN/QUIT traffic at a fixed rate for a while. It measures the
+ * time until JServ answers our EB with EA, the burst lines per second and
+ * the round trip of G/Z pings, which JServ answers in order with all other
+ * lines, so the ping latency shows how far JServ lags behind.
+ *
+ * This is a tool, not a unit test. Start it, point host/port in config.json
+ * to it and start JServ:
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     -Dhub.port=4400 -Dhub.users=100000 -Dhub.channels=50000 \
+ *     -Dhub.rate=5000 -Dhub.seconds=30 net.midiandmore.jserv.FakeHub
+ * </pre>
+ *
+ * @author Andreas Pschorn
+ */
+public final class FakeHub {
+
+    private static final long PING_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int port = Integer.getInteger("hub.port", 4400);
+    private final String numeric = System.getProperty("hub.numeric", "AB");
+    private final String name = System.getProperty("hub.name", "hub.fake.net");
+    private final String password = System.getProperty("hub.password", "");
+    private final int users = Integer.getInteger("hub.users", 100000);
+    private final int channels = Integer.getInteger("hub.channels", 50000);
+    private final int members = Integer.getInteger("hub.members", 10);
+    private final int accountEvery = Integer.getInteger("hub.account.every", 3);
+    private final int rate = Integer.getInteger("hub.rate", 5000);
+    private final int seconds = Integer.getInteger("hub.seconds", 30);
+
+    private final Random random = new Random(42);
+    private final ConcurrentHashMap<Long, Long> pings = new ConcurrentHashMap<>();
+    private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong received = new AtomicLong();
+    private final CountDownLatch endOfAck = new CountDownLatch(1);
+    private volatile long endOfAckNanos;
+    private String jservNumeric;
+    private BufferedWriter out;
+    private long sent;
+    private long nextPing;
+
+    public static void main(String[] args) throws Exception {
+        new FakeHub().run();
+    }
+
+    private void run() throws IOException, InterruptedException {
+        System.out.printf("Fake hub %s (%s) waiting for JServ on port %d...%n", name, numeric, port);
+        try (var server = new ServerSocket(port); Socket socket = server.accept()) {
+            socket.setTcpNoDelay(true);
+            var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            handshake(in);
+            Thread.ofPlatform().name("FakeHub-Reader").daemon().start(() -> read(in));
+
+            long start = System.nanoTime();
+            burst();
+            long burstSent = System.nanoTime();
+            long burstLines = sent;
+            if (!endOfAck.await(10, TimeUnit.MINUTES)) {
+                System.out.println("JServ did not answer EB with EA within 10 minutes");
+                return;
+            }
+            double burstSeconds = (endOfAckNanos - start) / 1e9;
+            System.out.printf("Burst: %d lines sent in %.3f s, EA after %.3f s, %.0f lines/s%n",
+                    burstLines, (burstSent - start) / 1e9, burstSeconds, burstLines / burstSeconds);
+            report("Burst ping latency");
+
+            latencies.clear();
+            long steadyStart = System.nanoTime();
+            long steadyLines = steady();
+            double steadySeconds = (System.nanoTime() - steadyStart) / 1e9;
+            System.out.printf("Steady state: %d lines in %.3f s, %.0f lines/s (target %d)%n",
+                    steadyLines, steadySeconds, steadyLines / steadySeconds, rate);
+            Thread.sleep(1000);
+            report("Steady ping latency");
+            System.out.printf("Lines received from JServ: %d%n", received.get());
+        }
+    }
+
+    private void handshake(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            var elem = line.split(" ");
+            if (elem[0].equals("SERVER") && elem.length > 6) {
+                jservNumeric = elem[6].substring(0, 2);
+                break;
+            }
+        }
+        if (jservNumeric == null) {
+            throw new IOException("JServ closed the link during the handshake");
+        }
+        long now = System.currentTimeMillis() / 1000;
+        send("PASS :" + password);
+        send("SERVER %s 1 %d %d J10 %s]]] +h6 :Fake hub".formatted(name, now, now, numeric));
+        System.out.printf("JServ linked as %s%n", jservNumeric);
+    }
+
+    private void burst() throws IOException {
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < users; i++) {
+            send(nick(i, now));
+        }
+        var line = new StringBuilder(BurstEncoder.MAX_LINE_LENGTH);
+        for (int c = 0; c < channels; c++) {
+            line.setLength(0);
+            line.append(numeric).append(" B #chan").append(c).append(' ').append(now - 3600).append(" +nt ");
+            for (int m = 0; m < members; m++) {
+                if (m > 0) {
+                    line.append(',');
+                }
+                line.append(client(random.nextInt(users)));
+                if (m == members - 1) {
+                    line.append(":o");
+                }
+            }
+            send(line.toString());
+        }
+        send(numeric + " EB");
+        ping();
+        out.flush();
+    }
+
+    private long steady() throws IOException, InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long next = System.nanoTime();
+        long lines = 0;
+        long now = System.currentTimeMillis() / 1000;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                out.flush();
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            int user = random.nextInt(users);
+            int pick = random.nextInt(100);
+            if (pick < 80) {
+                send("%s P #chan%d :message %d".formatted(client(user), random.nextInt(channels), lines));
+            } else if (pick < 95) {
+                send("%s J #chan%d %d".formatted(client(user), random.nextInt(channels), now));
+            } else {
+                // Quit and reconnect, so the population stays the same
+                send(client(user) + " Q :Quit");
+                send(nick(user, now));
+                lines++;
+            }
+            lines++;
+            if (System.nanoTime() >= nextPing) {
+                ping();
+            }
+            next += interval;
+        }
+        out.flush();
+        return lines;
+    }
+
+    private void read(BufferedReader in) {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                received.incrementAndGet();
+                var elem = line.split(" ");
+                if (elem.length < 2) {
+                    continue;
+                }
+                switch (elem[1]) {
+                    case "EA" -> {
+                        endOfAckNanos = System.nanoTime();
+                        endOfAck.countDown();
+                    }
+                    case "Z" -> {
+                        if (elem.length > 2 && elem[2].startsWith("!")) {
+                            Long sentAt = pings.remove(Long.parseLong(elem[2].substring(1)));
+                            if (sentAt != null) {
+                                latencies.add(System.nanoTime() - sentAt);
+                            }
+                        }
+                    }
+                    case "G" -> {
+                        synchronized (this) {
+                            send("%s Z %s".formatted(numeric, line.substring(line.indexOf(" G ") + 3)));
+                            out.flush();
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Reader stopped: " + e.getMessage());
+        }
+        endOfAck.countDown();
+    }
+
+    private void ping() throws IOException {
+        long id = System.nanoTime();
+        pings.put(id, id);
+        send("%s G !%d %s".formatted(numeric, id, name));
+        out.flush();
+        nextPing = id + PING_INTERVAL_NANOS;
+    }
+
+    private synchronized void send(String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+        sent++;
+    }
+
+    private String nick(int user, long now) {
+        var acct = accountEvery > 0 && user % accountEvery == 0 ? "+ir user" + user : "+i";
+        return "%s N user%d 1 %d ident%d host%d.fake.net %s B]AAAB %s :Synthetic user %d"
+                .formatted(numeric, user, now, user, user, acct, client(user), user);
+    }
+
+    private String client(int user) {
+        return numeric + P10Numeric.encode(user, 3);
+    }
+
+    private void report(String title) {
+        List<Long> copy;
+        synchronized (latencies) {
+            copy = new ArrayList<>(latencies);
+        }
+        if (copy.isEmpty()) {
+            System.out.printf("%s: no replies%n", title);
+            return;
+        }
+        Collections.sort(copy);
+        long sum = 0;
+        for (long value : copy) {
+            sum += value;
+        }
+        System.out.printf("%s: %d pings, min %.2f ms, avg %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                title, copy.size(), copy.get(0) / 1e6, sum / 1e6 / copy.size(),
+                copy.get(copy.size() / 2) / 1e6, copy.get((int) (copy.size() * 0.99)) / 1e6,
+                copy.get(copy.size() - 1) / 1e6);
+    }
+}
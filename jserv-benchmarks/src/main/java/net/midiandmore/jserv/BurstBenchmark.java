@@ -0,0 +1,71 @@
+/*
+ * Benchmarks for burst handling
+ */
+package net.midiandmore.jserv;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Building channels from burst members and encoding outgoing B lines
+ *
+ * @author Andreas Pschorn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BurstBenchmark {
+
+    @Param({"50", "3000"})
+    public int members;
+
+    private String[] numerics;
+    private String[] burstUsers;
+    private final BurstEncoder encoder = new BurstEncoder();
+
+    @Setup
+    public void setup() {
+        numerics = new String[members];
+        burstUsers = new String[members];
+        for (int i = 0; i < members; i++) {
+            numerics[i] = P10Numeric.clientNumeric(1, i);
+            burstUsers[i] = i % 10 == 0 ? numerics[i] + ":o" : i % 7 == 0 ? numerics[i] + ":v" : numerics[i];
+        }
+    }
+
+    @Benchmark
+    public Channel buildChannel() {
+        return new Channel("#bench", "+nt", burstUsers);
+    }
+
+    @Benchmark
+    public Channel mergeIntoChannel() {
+        var channel = new Channel("#bench", "+nt", burstUsers);
+        for (int i = 0; i < members; i++) {
+            channel.mergeUser(numerics[i], i % 3 == 0 ? Channel.STATUS_OP : 0, 0);
+        }
+        return channel;
+    }
+
+    @Benchmark
+    public int encode(Blackhole bh) {
+        for (int i = 0; i < members; i++) {
+            encoder.add(numerics[i], i % 10 == 0, i % 7 == 0);
+        }
+        return encoder.encode("AB", "#bench", 1700000000L, "+nt", bh::consume);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Benchmarks for P10 line parsing
+ */
+package net.midiandmore.jserv;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tokenizing and field extraction for the lines seen most during a burst
+ *
+ * @author Andreas Pschorn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class P10ParsingBenchmark {
+
+    private static final String N_LINE = "AB N Someone 1 1700000000 ident host.example.net +iwr someaccount:1700000000 B]AAAB ABAAC :Some real name";
+    private static final String B_LINE = "AB B #channel 1700000000 +nt ABAAA,ABAAB,ABAAC:v,ABAAD,ABAAE:o,ABAAF,ABAAG :%*!*@bad.host";
+    private static final String P_LINE = "ABAAC P #channel :hello there, how is everyone doing today?";
+    private static final String IPV6 = "IAENuAAAAAAAAAAAAAAAAAAB";
+
+    private final P10Tokenizer tokenizer = new P10Tokenizer();
+
+    @Benchmark
+    public P10Tokenizer tokenizeNick() {
+        return tokenizer.reset(N_LINE);
+    }
+
+    @Benchmark
+    public P10Message parseMessage() {
+        return P10Message.parse(P_LINE);
+    }
+
+    @Benchmark
+    public String[] splitBurst() {
+        return B_LINE.split(" ");
+    }
+
+    @Benchmark
+    public void extractFromNick(Blackhole bh) {
+        tokenizer.reset(N_LINE);
+        bh.consume(SocketThread.extractNumericFromNCommand(tokenizer));
+        bh.consume(SocketThread.extractBase64IpFromNCommand(tokenizer));
+    }
+
+    @Benchmark
+    public String decodeIpv4() {
+        return SocketThread.decodeP10Base64Ip("B]AAAB");
+    }
+
+    @Benchmark
+    public String decodeIpv6() {
+        return SocketThread.decodeP10Base64Ip(IPV6);
+    }
+
+    @Benchmark
+    public String normalizeIp() {
+        return SocketThread.normalizeIpString("B]AAAB");
+    }
+
+    @Benchmark
+    public int decodeNumeric() {
+        return P10Numeric.serverIndex("ABAAC") + P10Numeric.clientSlot("ABAAC");
+    }
+}
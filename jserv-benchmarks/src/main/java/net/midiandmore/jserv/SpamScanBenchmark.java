@@ -0,0 +1,86 @@
+/*
+ * Benchmarks for SpamScan scoring
+ */
+package net.midiandmore.jserv;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scoring of channel messages, without database or uplink
+ *
+ * @author Andreas Pschorn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpamScanBenchmark {
+
+    private static final String CHAT = "hey, did anyone manage to get the new release running on their box yet?";
+    private static final String SPAM = "FREE CREDITS visit http://bit.ly/abc123 and http://win.prizes.example.tk/claim NOW 1234567890";
+
+    private Settings settings;
+    private Homoglyphs homoglyphs;
+    private SpamScan spamScan;
+    private Users user;
+
+    @Setup
+    public void setup() {
+        var chars = new HashSet<Character>();
+        for (char c : "АВЕКМНОРСТХаеорсух".toCharArray()) {
+            chars.add(c);
+        }
+        homoglyphs = new Homoglyphs(null, chars);
+        var badwords = new Properties();
+        badwords.setProperty("casino", "casino");
+        badwords.setProperty("viagra", "viagra");
+        settings = Settings.of(new Properties(), new Properties(), badwords);
+        spamScan = new SpamScan(null, null, null, null);
+        user = new Users("ABAAC", "Someone", "ident", "", "host.example.net");
+        long now = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < 5; i++) {
+            user.addMessageToHistory(CHAT + " " + i, now - i, "#channel");
+        }
+    }
+
+    @Benchmark
+    public boolean homoglyphScan() {
+        return homoglyphs.scanForHomoglyphs(CHAT);
+    }
+
+    @Benchmark
+    public int levenshtein() {
+        return SpamScan.calculateLevenshteinDistance(CHAT, SPAM);
+    }
+
+    @Benchmark
+    public double urlSuspicion() {
+        return SpamScan.analyzeUrlSuspicion(SPAM, settings);
+    }
+
+    @Benchmark
+    public double scoreChat() {
+        return spamScan.calculateSpamScore(user, CHAT, "#channel", System.currentTimeMillis() / 1000,
+                settings, homoglyphs);
+    }
+
+    @Benchmark
+    public double scoreSpam() {
+        return spamScan.calculateSpamScore(user, SPAM, "#channel", System.currentTimeMillis() / 1000,
+                settings, homoglyphs);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Benchmarks for user lookups
+ */
+package net.midiandmore.jserv;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Numeric, nick and account lookups on a populated user table
+ *
+ * @author Andreas Pschorn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserLookupBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    private final UserTable table = new UserTable();
+    private String[] numerics;
+    private String[] nicks;
+    private int next;
+
+    @Setup
+    public void setup() {
+        numerics = new String[users];
+        nicks = new String[users];
+        for (int i = 0; i < users; i++) {
+            int server = i % 16;
+            numerics[i] = P10Numeric.clientNumeric(server, i / 16);
+            nicks[i] = "User[" + i + "]";
+            var account = i % 3 == 0 ? "account" + i : "";
+            table.put(numerics[i], new Users(numerics[i], nicks[i], "ident", account, "host.example.net"));
+        }
+    }
+
+    private int nextIndex() {
+        next = next + 7919 < users ? next + 7919 : (next + 7919) % users;
+        return next;
+    }
+
+    @Benchmark
+    public Users byNumeric() {
+        return table.get(numerics[nextIndex()]);
+    }
+
+    @Benchmark
+    public String numericByNick() {
+        return table.getNumericByNick(nicks[nextIndex()]);
+    }
+
+    @Benchmark
+    public Users byNickFolded() {
+        // rfc1459: [ and { are the same character
+        return table.getByNick(nicks[nextIndex()].replace('[', '{'));
+    }
+
+    @Benchmark
+    public int byAccount() {
+        int i = nextIndex();
+        return table.getNumericsByAccount("ACCOUNT" + (i - i % 3)).size();
+    }
+}